@@ -0,0 +1,71 @@
+package org.example.analytics;
+
+import jdk.incubator.vector.FloatVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Reducciones de {@link ForecastStatistics} con la Vector API (tantos floats por instrucción
+ * como quepan en el registro SIMD preferido: 8 con AVX2, 16 con AVX-512).
+ *
+ * Solo se carga si {@code jdk.incubator.vector} está en el grafo de módulos; sin él esta
+ * clase no se puede enlazar y {@link ForecastStatistics} usa el bucle escalar.
+ */
+final class VectorStatisticsKernel implements ForecastStatistics.Kernel {
+
+    private static final VectorSpecies<Float> SPECIES = FloatVector.SPECIES_PREFERRED;
+    // Las sumas por lane se pasan a double cada bloque para no perder precisión en float
+    private static final int BLOCK = 1024;
+
+    @Override
+    public void summarize(float[] values, int from, int to, double[] acc) {
+        FloatVector vmin = FloatVector.broadcast(SPECIES, Float.POSITIVE_INFINITY);
+        FloatVector vmax = FloatVector.broadcast(SPECIES, Float.NEGATIVE_INFINITY);
+        double sum = 0;
+        int i = from;
+        int upper = from + SPECIES.loopBound(to - from);
+        while (i < upper) {
+            int blockEnd = Math.min(upper, i + BLOCK);
+            FloatVector vsum = FloatVector.zero(SPECIES);
+            for (; i < blockEnd; i += SPECIES.length()) {
+                FloatVector v = FloatVector.fromArray(SPECIES, values, i);
+                vmin = vmin.min(v);
+                vmax = vmax.max(v);
+                vsum = vsum.add(v);
+            }
+            sum += vsum.reduceLanes(VectorOperators.ADD);
+        }
+        float min = Math.min((float) acc[0], vmin.reduceLanes(VectorOperators.MIN));
+        float max = Math.max((float) acc[1], vmax.reduceLanes(VectorOperators.MAX));
+        // Cola que no llena un vector
+        for (; i < to; i++) {
+            min = Math.min(min, values[i]);
+            max = Math.max(max, values[i]);
+            sum += values[i];
+        }
+        acc[0] = min;
+        acc[1] = max;
+        acc[2] += sum;
+    }
+
+    @Override
+    public long countAbove(float[] values, int from, int to, float threshold) {
+        long count = 0;
+        int i = from;
+        int upper = from + SPECIES.loopBound(to - from);
+        for (; i < upper; i += SPECIES.length()) {
+            count += FloatVector.fromArray(SPECIES, values, i).compare(VectorOperators.GT, threshold).trueCount();
+        }
+        for (; i < to; i++) {
+            if (values[i] > threshold) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    @Override
+    public String toString() {
+        return "Vector API, " + SPECIES.length() + " floats";
+    }
+}
@@ -0,0 +1,83 @@
+package org.example.benchmarks;
+
+import org.example.DailyForecastAggregator;
+import org.example.DailyForecastAggregator.DailySummary;
+import org.example.WeatherService.ForecastItem;
+import org.example.WeatherService.ForecastResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Agrupación por días y mínimo/máximo: DailyForecastAggregator frente a la versión original
+ * de updateUIWithForecast (SimpleDateFormat por tramo y segundo bucle para min/max)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DailyAggregationBenchmark {
+
+    @Param({"forecast-madrid", "forecast-tokyo"})
+    public String fixture;
+
+    private ForecastResponse response;
+
+    @Setup
+    public void setup() {
+        response = Fixtures.response(fixture);
+    }
+
+    @Benchmark
+    public List<DailySummary> singlePass() {
+        return DailyForecastAggregator.aggregate(response);
+    }
+
+    @Benchmark
+    public void legacy(Blackhole bh) {
+        Map<String, List<ForecastItem>> forecastsByDay = new LinkedHashMap<>();
+        for (ForecastItem item : response.list) {
+            String dayString = formatDate(item.dt, "yyyy-MM-dd");
+            forecastsByDay.computeIfAbsent(dayString, k -> new ArrayList<>()).add(item);
+        }
+        for (List<ForecastItem> dayItems : forecastsByDay.values()) {
+            double minTemp = 1000;
+            double maxTemp = -1000;
+            for (ForecastItem item : dayItems) {
+                if (item.main.temp < minTemp) minTemp = item.main.temp;
+                if (item.main.temp > maxTemp) maxTemp = item.main.temp;
+            }
+            bh.consume(minTemp);
+            bh.consume(maxTemp);
+            bh.consume(dayItems.get(dayItems.size() / 2).weather.get(0).icon);
+            bh.consume(formatDate(dayItems.get(0).dt, "EEEE, d MMM"));
+        }
+    }
+
+    private static String formatDate(long timestamp, String format) {
+        Date date = new Date(timestamp * 1000L);
+        SimpleDateFormat sdf = new SimpleDateFormat(format);
+        sdf.setTimeZone(TimeZone.getDefault());
+        return sdf.format(date);
+    }
+}
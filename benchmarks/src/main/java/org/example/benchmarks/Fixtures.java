@@ -0,0 +1,39 @@
+package org.example.benchmarks;
+
+import org.example.ForecastJson;
+import org.example.WeatherService.ForecastResponse;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+
+/**
+ * Respuestas /forecast grabadas que usan los benchmarks (en resources/fixtures)
+ */
+public final class Fixtures {
+
+    public static final String[] NAMES = {"forecast-madrid", "forecast-buenos-aires", "forecast-tokyo"};
+
+    private Fixtures() {
+    }
+
+    public static byte[] bytes(String name) {
+        try (InputStream in = Fixtures.class.getResourceAsStream("/fixtures/" + name + ".json")) {
+            if (in == null) {
+                throw new IllegalArgumentException("Fixture no encontrada: " + name);
+            }
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    public static ForecastResponse response(String name) {
+        try {
+            return ForecastJson.read(new ByteArrayInputStream(bytes(name)));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
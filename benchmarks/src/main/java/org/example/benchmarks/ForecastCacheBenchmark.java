@@ -0,0 +1,73 @@
+package org.example.benchmarks;
+
+import org.example.ForecastCache;
+import org.example.WeatherService.ForecastResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Rendimiento de consultas a ForecastCache (aciertos, normalización de claves y coordenadas)
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ForecastCacheBenchmark {
+
+    private static final int ENTRIES = 200;
+
+    private ForecastCache cache;
+    private String[] keys;
+
+    @Setup
+    public void setup() {
+        cache = new ForecastCache(TimeUnit.HOURS.toMillis(1), ENTRIES * 2, ForecastCache.DEFAULT_GRID_DEGREES);
+        ForecastResponse response = Fixtures.response("forecast-madrid");
+        keys = new String[ENTRIES];
+        for (int i = 0; i < ENTRIES; i++) {
+            keys[i] = cache.coordKey(40.0 + i * 0.05, -3.7);
+            cache.put(keys[i], response);
+        }
+    }
+
+    @Benchmark
+    public ForecastResponse hit() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(ENTRIES)]);
+    }
+
+    @Benchmark
+    @Threads(4)
+    public ForecastResponse hitContended() {
+        return cache.get(keys[ThreadLocalRandom.current().nextInt(ENTRIES)]);
+    }
+
+    @Benchmark
+    public ForecastResponse missAbsentKey() {
+        return cache.get("c:0:0");
+    }
+
+    @Benchmark
+    public String cityKeyNormalization() {
+        return cache.cityKey("  San Sebastián   de los Reyes ");
+    }
+
+    @Benchmark
+    public String coordKeyQuantization() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        return cache.coordKey(random.nextDouble(-90, 90), random.nextDouble(-180, 180));
+    }
+}
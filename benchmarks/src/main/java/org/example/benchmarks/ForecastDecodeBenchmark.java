@@ -0,0 +1,63 @@
+package org.example.benchmarks;
+
+import com.google.gson.Gson;
+import org.example.ForecastJson;
+import org.example.WeatherService.ForecastResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decodificación de una respuesta /forecast: lector en streaming frente al camino original
+ * (readLine + StringBuilder + new Gson() por llamada)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ForecastDecodeBenchmark {
+
+    @Param({"forecast-madrid", "forecast-buenos-aires", "forecast-tokyo"})
+    public String fixture;
+
+    private byte[] payload;
+
+    @Setup
+    public void setup() {
+        payload = Fixtures.bytes(fixture);
+    }
+
+    @Benchmark
+    public ForecastResponse streaming() throws IOException {
+        return ForecastJson.read(new ByteArrayInputStream(payload));
+    }
+
+    @Benchmark
+    public ForecastResponse legacyStringConcat() throws IOException {
+        BufferedReader in = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(payload), StandardCharsets.UTF_8));
+        String inputLine;
+        StringBuilder content = new StringBuilder();
+        while ((inputLine = in.readLine()) != null) {
+            content.append(inputLine);
+        }
+        in.close();
+        return new Gson().fromJson(content.toString(), ForecastResponse.class);
+    }
+}
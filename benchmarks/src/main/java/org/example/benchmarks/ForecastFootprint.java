@@ -0,0 +1,101 @@
+package org.example.benchmarks;
+
+import org.example.ForecastSeries;
+import org.example.WeatherService.ForecastResponse;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Locale;
+
+/**
+ * Heap retenido por pronóstico: grafo de objetos de {@link ForecastResponse} frente a
+ * {@link ForecastSeries}.
+ *
+ * Decodifica cada fixture {@code --count} veces (cada respuesta con sus propios Strings, como
+ * al llegar de la red), las mantiene vivas y mide con {@link MemoryMXBean} cuánto crece el heap
+ * ocupado tras una recolección completa; después hace lo mismo con las series construidas a
+ * partir de ellas, ya sin las respuestas. Lo más estable es un GC sin hilos concurrentes:
+ *
+ * {@code java -XX:+UseSerialGC -cp benchmarks.jar org.example.benchmarks.ForecastFootprint --count 20000}
+ */
+public final class ForecastFootprint {
+
+    private static final MemoryMXBean MEMORY = ManagementFactory.getMemoryMXBean();
+
+    private ForecastFootprint() {
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int count = 10_000;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--count" -> count = Integer.parseInt(args[++i]);
+                default -> {
+                    System.err.println("Opción desconocida: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+        if (count <= 0) {
+            System.err.println("--count debe ser positivo");
+            System.exit(2);
+        }
+
+        System.out.printf(Locale.ROOT, "%s, %s, %d copias por fixture%n",
+                System.getProperty("java.vm.name"), Runtime.version(), count);
+        System.out.printf(Locale.ROOT, "%-24s %6s %14s %14s %10s %14s%n",
+                "fixture", "tramos", "respuesta (B)", "serie (B)", "relación", "estimada (B)");
+        for (String name : Fixtures.NAMES) {
+            measure(name, count);
+        }
+    }
+
+    private static void measure(String name, int count) throws InterruptedException {
+        // Una pasada previa para cargar las clases y el diccionario de estados del cielo
+        ForecastSeries sample = ForecastSeries.from(Fixtures.response(name));
+
+        long arrayBytes = 16L + 4L * count;
+        long base = usedAfterGc();
+        ForecastResponse[] responses = new ForecastResponse[count];
+        for (int i = 0; i < count; i++) {
+            responses[i] = Fixtures.response(name);
+        }
+        double responseBytes = (double) (usedAfterGc() - base - arrayBytes) / count;
+        check(responses[count - 1].list.size(), sample);
+        responses = null;
+
+        // Cada serie se construye desde una respuesta recién decodificada que no se conserva
+        base = usedAfterGc();
+        ForecastSeries[] series = new ForecastSeries[count];
+        for (int i = 0; i < count; i++) {
+            series[i] = ForecastSeries.from(Fixtures.response(name));
+        }
+        double seriesBytes = (double) (usedAfterGc() - base - arrayBytes) / count;
+        check(series[count - 1].size(), sample);
+
+        System.out.printf(Locale.ROOT, "%-24s %6d %14.0f %14.0f %9.1fx %14d%n",
+                name, sample.size(), responseBytes, seriesBytes, responseBytes / seriesBytes, sample.estimatedHeapBytes());
+    }
+
+    /**
+     * Usa lo medido después de medir, para que siga vivo durante la recolección
+     */
+    private static void check(int size, ForecastSeries sample) {
+        if (size != sample.size()) {
+            throw new IllegalStateException("Tamaño inesperado: " + size);
+        }
+    }
+
+    /**
+     * Heap ocupado tras varias recolecciones completas (el mínimo, por si alguna se queda corta)
+     */
+    private static long usedAfterGc() throws InterruptedException {
+        long used = Long.MAX_VALUE;
+        for (int i = 0; i < 5; i++) {
+            System.gc();
+            Thread.sleep(100);
+            used = Math.min(used, MEMORY.getHeapMemoryUsage().getUsed());
+        }
+        return used;
+    }
+}
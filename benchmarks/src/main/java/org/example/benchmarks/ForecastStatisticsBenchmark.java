@@ -0,0 +1,97 @@
+package org.example.benchmarks;
+
+import org.example.ForecastSeries;
+import org.example.analytics.ForecastStatistics;
+import org.example.WeatherService.ForecastResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Estadísticas de informe regional (mín/máx/media y tramos por encima de 35 °C) sobre la
+ * columna de temperaturas de muchas ubicaciones: un bucle simple frente a
+ * {@link ForecastStatistics} escalar y con la Vector API, en uno o en todos los núcleos.
+ * Cada ubicación es la muestra de Madrid desplazada al azar entre -5 y +25 °C.
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = {"--add-modules", "jdk.incubator.vector"})
+@State(Scope.Benchmark)
+public class ForecastStatisticsBenchmark {
+
+    // 40 tramos por ubicación: 40.000 y 4.000.000 valores
+    @Param({"1000", "100000"})
+    public int locations;
+
+    @Param({"loop", "scalar", "vector", "scalar-parallel", "vector-parallel"})
+    public String variant;
+
+    private float[] temps;
+    private ForecastStatistics statistics;
+
+    @Setup
+    public void setup() {
+        ForecastResponse template = Fixtures.response("forecast-madrid");
+        Random random = new Random(42);
+        List<ForecastSeries> series = new ArrayList<>(locations);
+        for (int i = 0; i < locations; i++) {
+            ForecastSeries s = ForecastSeries.from(template);
+            float offset = -5 + 30 * random.nextFloat();
+            for (int j = 0; j < s.temp.length; j++) {
+                s.temp[j] += offset;
+            }
+            series.add(s);
+        }
+        temps = ForecastStatistics.column(series, ForecastStatistics.Field.TEMP);
+        statistics = switch (variant) {
+            case "scalar" -> new ForecastStatistics(ForecastStatistics.Mode.SCALAR, false);
+            case "vector" -> new ForecastStatistics(ForecastStatistics.Mode.VECTOR, false);
+            case "scalar-parallel" -> new ForecastStatistics(ForecastStatistics.Mode.SCALAR, true);
+            case "vector-parallel" -> new ForecastStatistics(ForecastStatistics.Mode.VECTOR, true);
+            default -> null;
+        };
+    }
+
+    @Benchmark
+    public double summarize() {
+        if (statistics != null) {
+            return statistics.summarize(temps).mean;
+        }
+        float min = Float.MAX_VALUE;
+        float max = -Float.MAX_VALUE;
+        double sum = 0;
+        for (float t : temps) {
+            if (t < min) min = t;
+            if (t > max) max = t;
+            sum += t;
+        }
+        return min + max + sum / temps.length;
+    }
+
+    @Benchmark
+    public long countAbove35() {
+        if (statistics != null) {
+            return statistics.countAbove(temps, 35f);
+        }
+        long count = 0;
+        for (float t : temps) {
+            if (t > 35f) count++;
+        }
+        return count;
+    }
+}
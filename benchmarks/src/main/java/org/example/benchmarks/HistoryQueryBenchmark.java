@@ -0,0 +1,95 @@
+package org.example.benchmarks;
+
+import org.example.ForecastHistoryStore;
+import org.example.WeatherService.ForecastResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Consultas por rango de fechas sobre un historial en disco con muchas descargas de muchas
+ * ubicaciones (cada descarga son las 40 filas de la muestra de Madrid)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HistoryQueryBenchmark {
+
+    private static final int LOCATIONS = 200;
+
+    @Param({"5000", "50000"})
+    public int fetches;
+
+    private Path directory;
+    private ForecastHistoryStore store;
+    private long firstDt;
+    private long lastDt;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        directory = Files.createTempDirectory("history-bench");
+        store = new ForecastHistoryStore(directory, ForecastHistoryStore.DEFAULT_RETENTION_DAYS);
+        ForecastResponse template = Fixtures.response("forecast-madrid");
+        firstDt = template.list.get(0).dt;
+        lastDt = template.list.get(template.list.size() - 1).dt;
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < fetches; i++) {
+            ForecastResponse response = new ForecastResponse();
+            response.list = template.list;
+            response.city = template.city;
+            response.fetchedAt = now + i;
+            store.append("c:" + (i % LOCATIONS), response);
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        store.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+
+    /**
+     * Temperatura media de una ubicación en las próximas 24 h de todas sus descargas
+     */
+    @Benchmark
+    public double meanTempNextDay() {
+        double[] sum = new double[2];
+        store.query("c:17", firstDt, firstDt + 24 * 3600, row -> {
+            sum[0] += row.temp();
+            sum[1]++;
+        });
+        return sum[0] / sum[1];
+    }
+
+    /**
+     * Máxima de una ubicación en todo el horizonte del pronóstico
+     */
+    @Benchmark
+    public float maxTempFullRange() {
+        float[] max = {Float.NEGATIVE_INFINITY};
+        store.query("c:17", firstDt, lastDt, row -> max[0] = Math.max(max[0], row.tempMax()));
+        return max[0];
+    }
+}
@@ -0,0 +1,88 @@
+package org.example.benchmarks;
+
+import org.example.DailyForecastAggregator;
+import org.example.HourlyForecastList;
+import org.example.WeatherService.ForecastItem;
+import org.example.WeatherService.ForecastResponse;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Preparación de la vista por horas de todo el pronóstico: filas preformateadas de
+ * HourlyForecastList frente al HTML que generaban displayDayForecast/formatForecastItem
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class HourlyRenderBenchmark {
+
+    private ForecastResponse response;
+    private int utcOffset;
+
+    @Setup
+    public void setup() {
+        response = Fixtures.response("forecast-madrid");
+        utcOffset = response.city.timezone;
+    }
+
+    @Benchmark
+    public HourlyForecastList.Row[] preformattedRows() {
+        return HourlyForecastList.buildRows(response.list, utcOffset);
+    }
+
+    @Benchmark
+    public String legacyHtml() {
+        StringBuilder sb = new StringBuilder();
+        sb.append(String.format(
+                "<html><body style='font-family: Arial, sans-serif; font-size: 11pt; padding: 10px; background-color: %s;'>",
+                "#ffffff"
+        ));
+        sb.append(String.format(
+                "<h3 style='margin: 0 0 10px 0; color: #333;'>Día: %s</h3>" +
+                        "<hr style='border: 0; border-top: 1px solid #ccc;'>",
+                DailyForecastAggregator.format(response.list.get(0).dt, utcOffset, DailyForecastAggregator.LONG_DAY_LABEL)
+        ));
+        for (ForecastItem item : response.list) {
+            sb.append(formatForecastItem(item));
+        }
+        sb.append("</body></html>");
+        return sb.toString();
+    }
+
+    private String formatForecastItem(ForecastItem item) {
+        String iconCode = item.weather.get(0).icon;
+        String iconUrl = "http://openweathermap.org/img/wn/" + iconCode + "@2x.png";
+
+        return String.format(
+                "<div style='display: flex; align-items: center; border-bottom: 1px solid #eee; padding: 8px 0;'>" +
+                        "  <div style='flex-shrink: 0; width: 60px; text-align: center;'>" +
+                        "    <img src='%s' width='50' height='50'>" +
+                        "  </div>" +
+                        "  <div style='flex-grow: 1; padding-left: 10px;'>" +
+                        "    <strong style='font-size: 1.1em; color: #0056b3;'>[%s] - %s (%.0f°C)</strong><br>" +
+                        "    <span style='color: #555;'>Sensación: %.0f°C | Humedad: %d%% | Viento: %.1f km/h</span>" +
+                        "  </div>" +
+                        "</div>",
+                iconUrl,
+                DailyForecastAggregator.format(item.dt, utcOffset, DailyForecastAggregator.HOUR_LABEL),
+                item.weather.get(0).description,
+                item.main.temp,
+                item.main.feels_like,
+                item.main.humidity,
+                item.wind.speed * 3.6
+        );
+    }
+}
@@ -0,0 +1,180 @@
+package org.example.benchmarks;
+
+import org.example.CircuitBreaker;
+import org.example.ForecastCache;
+import org.example.RequestRateLimiter;
+import org.example.WeatherService;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Generador de carga para {@link WeatherService} a un ritmo objetivo.
+ *
+ * Es de bucle abierto: la petición i se lanza en {@code inicio + i / rate} aunque las
+ * anteriores no hayan terminado, y su latencia se mide desde ese instante previsto, no desde
+ * que se pudo enviar. Así un servidor lento no reduce la carga ni oculta la cola que se
+ * forma (omisión coordinada). Sin {@code --url} arranca un {@link StubWeatherServer} propio.
+ *
+ * {@code java -cp benchmarks.jar org.example.benchmarks.LoadDriver --rate 500 --duration 30 --latency 50 --jitter 50}
+ */
+public final class LoadDriver {
+
+    private final WeatherService service;
+    private final int rate;
+    private final int durationSeconds;
+    private final int warmupSeconds;
+    private final int distinctLocations;
+
+    private LoadDriver(WeatherService service, int rate, int durationSeconds, int warmupSeconds, int distinctLocations) {
+        this.service = service;
+        this.rate = rate;
+        this.durationSeconds = durationSeconds;
+        this.warmupSeconds = warmupSeconds;
+        this.distinctLocations = distinctLocations;
+    }
+
+    public static void main(String[] args) throws Exception {
+        String url = null;
+        int rate = 200;
+        int duration = 20;
+        int warmup = 5;
+        // 0 = cada petición es una ubicación nueva (la caché nunca acierta)
+        int distinct = 0;
+        StubWeatherServer.Config stubConfig = new StubWeatherServer.Config();
+        stubConfig.port = 0;
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--url" -> url = args[++i];
+                case "--rate" -> rate = Integer.parseInt(args[++i]);
+                case "--duration" -> duration = Integer.parseInt(args[++i]);
+                case "--warmup" -> warmup = Integer.parseInt(args[++i]);
+                case "--distinct" -> distinct = Integer.parseInt(args[++i]);
+                case "--latency" -> stubConfig.latencyMillis = Long.parseLong(args[++i]);
+                case "--jitter" -> stubConfig.jitterMillis = Long.parseLong(args[++i]);
+                case "--error-404" -> stubConfig.notFoundRate = Double.parseDouble(args[++i]);
+                case "--error-429" -> stubConfig.tooManyRequestsRate = Double.parseDouble(args[++i]);
+                case "--error-500" -> stubConfig.serverErrorRate = Double.parseDouble(args[++i]);
+                case "--items" -> stubConfig.items = Integer.parseInt(args[++i]);
+                default -> {
+                    System.err.println("Opción desconocida: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+        if (rate <= 0 || duration <= 0 || warmup < 0) {
+            System.err.println("--rate y --duration deben ser positivos");
+            System.exit(2);
+        }
+
+        StubWeatherServer stub = url == null ? new StubWeatherServer(stubConfig).start() : null;
+        try {
+            String baseUrl = url != null ? url : stub.baseUrl();
+            // Caché amplia: con --distinct N se mide también el camino de aciertos
+            ForecastCache cache = new ForecastCache(TimeUnit.HOURS.toMillis(1), Math.max(distinct, 1), ForecastCache.DEFAULT_GRID_DEGREES);
+            // Sin cuota: se mide el cliente, no el limitador
+            WeatherService service = new WeatherService(cache, baseUrl, new CircuitBreaker(), RequestRateLimiter.unlimited());
+            System.out.printf(Locale.ROOT, "Objetivo %s: %d pet/s durante %d s (+%d s de calentamiento)%n",
+                    baseUrl, rate, duration, warmup);
+
+            LoadDriver driver = new LoadDriver(service, rate, duration, warmup, distinct);
+            if (warmup > 0) {
+                driver.run(warmup, 0, false);
+            }
+            driver.run(duration, warmup * rate, true);
+        } finally {
+            if (stub != null) {
+                System.out.printf(Locale.ROOT, "Servidor de pruebas: %d peticiones, %d errores simulados%n",
+                        stub.getRequests(), stub.getErrors());
+                stub.close();
+            }
+        }
+    }
+
+    /**
+     * Lanza {@code rate * seconds} peticiones al ritmo objetivo y, si {@code report}, imprime el resultado
+     */
+    private void run(int seconds, long firstId, boolean report) throws InterruptedException {
+        int total = Math.multiplyExact(rate, seconds);
+        long intervalNanos = TimeUnit.SECONDS.toNanos(1) / rate;
+        // 0 = sin terminar
+        AtomicLongArray latencies = new AtomicLongArray(total);
+        AtomicInteger completed = new AtomicInteger();
+        LongAdder failures = new LongAdder();
+        Map<String, LongAdder> errorsByMessage = new ConcurrentHashMap<>();
+        CountDownLatch done = new CountDownLatch(total);
+
+        long start = System.nanoTime();
+        for (int i = 0; i < total; i++) {
+            long intended = start + i * intervalNanos;
+            long wait = intended - System.nanoTime();
+            if (wait > 0) {
+                LockSupport.parkNanos(wait);
+            }
+            int slot = i;
+            service.getWeatherAsync(cityFor(firstId + i)).whenComplete((response, error) -> {
+                latencies.set(slot, System.nanoTime() - intended);
+                if (error != null) {
+                    failures.increment();
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    errorsByMessage.computeIfAbsent(String.valueOf(cause.getMessage()), k -> new LongAdder()).increment();
+                }
+                completed.incrementAndGet();
+                done.countDown();
+            });
+        }
+        long sendNanos = System.nanoTime() - start;
+        if (!done.await(60, TimeUnit.SECONDS)) {
+            System.out.println("Aviso: " + (total - completed.get()) + " peticiones sin terminar tras 60 s");
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        if (!report) {
+            return;
+        }
+
+        // Las que siguen en vuelo cuentan con lo que llevan esperando (una cota inferior): si se
+        // dejaran en 0 irían al principio y los percentiles mejorarían justo con sobrecarga
+        long now = System.nanoTime();
+        long[] sorted = new long[total];
+        int unfinished = 0;
+        for (int i = 0; i < total; i++) {
+            long latency = latencies.get(i);
+            if (latency == 0) {
+                latency = now - (start + i * intervalNanos);
+                unfinished++;
+            }
+            sorted[i] = latency;
+        }
+        Arrays.sort(sorted);
+        System.out.printf(Locale.ROOT, "Peticiones: %d (%d con error, %d sin terminar), enviadas a %.1f pet/s, completadas a %.1f pet/s%n",
+                total, failures.sum(), unfinished, total / (sendNanos / 1e9), completed.get() / (elapsedNanos / 1e9));
+        if (unfinished > 0) {
+            System.out.println("Aviso: las latencias incluyen las peticiones sin terminar con su espera hasta ahora (cota inferior)");
+        }
+        System.out.printf(Locale.ROOT, "Latencia (ms): p50=%.2f  p90=%.2f  p99=%.2f  p999=%.2f  max=%.2f%n",
+                percentile(sorted, 0.50), percentile(sorted, 0.90), percentile(sorted, 0.99),
+                percentile(sorted, 0.999), sorted[total - 1] / 1e6);
+        System.out.println("Caché: " + service.getCache());
+        new TreeMap<>(errorsByMessage).forEach((message, count) ->
+                System.out.printf(Locale.ROOT, "  %6d  %s%n", count.sum(), message));
+    }
+
+    private String cityFor(long id) {
+        return "Ciudad-" + (distinctLocations > 0 ? id % distinctLocations : id);
+    }
+
+    private static double percentile(long[] sorted, double p) {
+        int index = (int) Math.ceil(p * sorted.length) - 1;
+        return sorted[Math.max(0, Math.min(index, sorted.length - 1))] / 1e6;
+    }
+}
@@ -0,0 +1,110 @@
+package org.example.benchmarks;
+
+import org.example.ForecastMarkersPainter;
+import org.example.WeatherService.City;
+import org.example.WeatherService.Coord;
+import org.example.WeatherService.ForecastResponse;
+import org.jxmapviewer.JXMapViewer;
+import org.jxmapviewer.OSMTileFactoryInfo;
+import org.jxmapviewer.viewer.DefaultTileFactory;
+import org.jxmapviewer.viewer.GeoPosition;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.awt.Graphics2D;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coste de repintar la capa de marcadores mientras se desplaza el mapa, con miles de sitios
+ * repartidos por Europa (sin iconos: la caché de iconos no se usa fuera de la aplicación)
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+@State(Scope.Thread)
+public class MarkerPaintBenchmark {
+
+    private static final int WIDTH = 1280;
+    private static final int HEIGHT = 800;
+
+    @Param({"1000", "5000", "20000"})
+    public int sites;
+
+    @Param({"6", "10"})
+    public int zoom;
+
+    private ForecastMarkersPainter painter;
+    private JXMapViewer map;
+    private BufferedImage canvas;
+    private Graphics2D graphics;
+    private int step;
+
+    @Setup
+    public void setup() {
+        painter = new ForecastMarkersPainter(null);
+        Random random = new Random(42);
+        ForecastResponse template = Fixtures.response("forecast-madrid");
+        for (int i = 0; i < sites; i++) {
+            ForecastResponse response = new ForecastResponse();
+            response.list = template.list;
+            response.city = new City();
+            response.city.coord = new Coord();
+            response.city.coord.lat = 36 + random.nextDouble() * 20;
+            response.city.coord.lon = -10 + random.nextDouble() * 30;
+            painter.onPut("c:" + i, response, Long.MAX_VALUE);
+        }
+
+        map = new JXMapViewer();
+        map.setTileFactory(new DefaultTileFactory(new OSMTileFactoryInfo()));
+        map.setSize(WIDTH, HEIGHT);
+        map.setZoom(zoom);
+        map.setAddressLocation(new GeoPosition(46, 5));
+        canvas = new BufferedImage(WIDTH, HEIGHT, BufferedImage.TYPE_INT_ARGB);
+        graphics = canvas.createGraphics();
+        // Primer pintado: proyección, agrupado e imágenes de los marcadores
+        painter.paint(graphics, map, WIDTH, HEIGHT);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        graphics.dispose();
+    }
+
+    /**
+     * Un fotograma de desplazamiento: solo cambia la vista, no el zoom ni los datos
+     */
+    @Benchmark
+    public BufferedImage panFrame() {
+        step = (step + 1) & 63;
+        map.setCenter(new Point2D.Double(
+                map.getCenter().getX() + (step < 32 ? 7 : -7), map.getCenter().getY()));
+        painter.paint(graphics, map, WIDTH, HEIGHT);
+        return canvas;
+    }
+
+    /**
+     * Cambio de zoom: se vuelve a proyectar y agrupar todo
+     */
+    @Benchmark
+    public BufferedImage zoomFrame() {
+        map.setZoom(map.getZoom() == zoom ? zoom + 1 : zoom);
+        painter.paint(graphics, map, WIDTH, HEIGHT);
+        return canvas;
+    }
+}
@@ -0,0 +1,227 @@
+package org.example.benchmarks;
+
+import com.google.gson.JsonArray;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Sustituto local de OpenWeatherMap para pruebas de carga y de regresión.
+ *
+ * Sirve las respuestas grabadas de {@link Fixtures} en {@code /data/2.5/forecast} con una
+ * latencia configurable (base + variación aleatoria), una proporción de errores 404/429/500
+ * y un número de tramos por respuesta ajustable para variar el tamaño del cuerpo. Cada
+ * petición se atiende en un hilo virtual, así que la latencia simulada no limita el
+ * número de peticiones simultáneas. Para apuntar la aplicación a él:
+ * {@code -Dmeteomap.api.url=http://localhost:8089/data/2.5}
+ */
+public final class StubWeatherServer implements AutoCloseable {
+
+    public static final String FORECAST_PATH = "/data/2.5/forecast";
+
+    private final HttpServer server;
+    private final ExecutorService executor;
+    private final Config config;
+    // Cuerpos precalculados (sin comprimir y en gzip) por fixture
+    private final byte[][] bodies;
+    private final byte[][] gzipBodies;
+
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong errors = new AtomicLong();
+
+    /**
+     * Parámetros del servidor. Las proporciones de error son probabilidades en [0, 1].
+     */
+    public static final class Config {
+        public int port = 8089;
+        public long latencyMillis = 0;
+        public long jitterMillis = 0;
+        public double notFoundRate = 0;
+        public double tooManyRequestsRate = 0;
+        public double serverErrorRate = 0;
+        // Tramos por respuesta (la API real devuelve 40); 0 deja la fixture tal cual
+        public int items = 0;
+    }
+
+    public StubWeatherServer(Config config) throws IOException {
+        double errorRate = config.notFoundRate + config.tooManyRequestsRate + config.serverErrorRate;
+        if (errorRate < 0 || errorRate > 1) {
+            throw new IllegalArgumentException("La suma de las proporciones de error debe estar entre 0 y 1");
+        }
+        this.config = config;
+        this.bodies = new byte[Fixtures.NAMES.length][];
+        this.gzipBodies = new byte[Fixtures.NAMES.length][];
+        for (int i = 0; i < Fixtures.NAMES.length; i++) {
+            bodies[i] = resize(Fixtures.bytes(Fixtures.NAMES[i]), config.items);
+            gzipBodies[i] = gzip(bodies[i]);
+        }
+
+        this.executor = Executors.newVirtualThreadPerTaskExecutor();
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", config.port), 1024);
+        server.setExecutor(executor);
+        server.createContext(FORECAST_PATH, this::handle);
+    }
+
+    public StubWeatherServer start() {
+        server.start();
+        return this;
+    }
+
+    /**
+     * URL base para {@code WeatherService(cache, baseUrl)}
+     */
+    public String baseUrl() {
+        return "http://127.0.0.1:" + server.getAddress().getPort() + "/data/2.5";
+    }
+
+    public long getRequests() {
+        return requests.get();
+    }
+
+    public long getErrors() {
+        return errors.get();
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try (exchange) {
+            requests.incrementAndGet();
+            exchange.getRequestBody().readAllBytes();
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                exchange.sendResponseHeaders(405, -1);
+                return;
+            }
+
+            sleepLatency();
+
+            int status = pickStatus();
+            if (status != 200) {
+                errors.incrementAndGet();
+                byte[] error = String.format(Locale.ROOT, "{\"cod\":\"%d\",\"message\":\"stub error\"}", status)
+                        .getBytes(StandardCharsets.UTF_8);
+                exchange.getResponseHeaders().set("Content-Type", "application/json");
+                exchange.sendResponseHeaders(status, error.length);
+                exchange.getResponseBody().write(error);
+                return;
+            }
+
+            // La misma consulta recibe siempre la misma fixture
+            String query = exchange.getRequestURI().getRawQuery();
+            int fixture = Math.floorMod(query != null ? query.hashCode() : 0, bodies.length);
+            String acceptEncoding = exchange.getRequestHeaders().getFirst("Accept-Encoding");
+            boolean gzip = acceptEncoding != null && acceptEncoding.contains("gzip");
+            byte[] body = gzip ? gzipBodies[fixture] : bodies[fixture];
+
+            exchange.getResponseHeaders().set("Content-Type", "application/json; charset=utf-8");
+            if (gzip) {
+                exchange.getResponseHeaders().set("Content-Encoding", "gzip");
+            }
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+        }
+    }
+
+    private void sleepLatency() {
+        long delay = config.latencyMillis;
+        if (config.jitterMillis > 0) {
+            delay += ThreadLocalRandom.current().nextLong(config.jitterMillis + 1);
+        }
+        if (delay > 0) {
+            try {
+                Thread.sleep(delay);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private int pickStatus() {
+        double r = ThreadLocalRandom.current().nextDouble();
+        if (r < config.notFoundRate) return 404;
+        r -= config.notFoundRate;
+        if (r < config.tooManyRequestsRate) return 429;
+        r -= config.tooManyRequestsRate;
+        if (r < config.serverErrorRate) return 500;
+        return 200;
+    }
+
+    /**
+     * Ajusta la lista de tramos a {@code items} elementos, repitiendo los existentes con
+     * {@code dt} consecutivos cada 3 horas
+     */
+    private static byte[] resize(byte[] fixture, int items) {
+        if (items <= 0) {
+            return fixture;
+        }
+        JsonObject root = JsonParser.parseString(new String(fixture, StandardCharsets.UTF_8)).getAsJsonObject();
+        JsonArray source = root.getAsJsonArray("list");
+        long firstDt = source.get(0).getAsJsonObject().get("dt").getAsLong();
+        JsonArray list = new JsonArray(items);
+        for (int i = 0; i < items; i++) {
+            JsonElement copy = source.get(i % source.size()).deepCopy();
+            copy.getAsJsonObject().addProperty("dt", firstDt + i * TimeUnit.HOURS.toSeconds(3));
+            list.add(copy);
+        }
+        root.add("list", list);
+        root.addProperty("cnt", items);
+        return root.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static byte[] gzip(byte[] data) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(data.length / 4);
+        try (OutputStream gz = new GZIPOutputStream(out)) {
+            gz.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+
+    /**
+     * Arranca el servidor en primer plano:
+     * {@code java -cp benchmarks.jar org.example.benchmarks.StubWeatherServer --port 8089 --latency 80 --jitter 40 --error-500 0.01}
+     */
+    public static void main(String[] args) throws Exception {
+        Config config = new Config();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "--port" -> config.port = Integer.parseInt(args[++i]);
+                case "--latency" -> config.latencyMillis = Long.parseLong(args[++i]);
+                case "--jitter" -> config.jitterMillis = Long.parseLong(args[++i]);
+                case "--error-404" -> config.notFoundRate = Double.parseDouble(args[++i]);
+                case "--error-429" -> config.tooManyRequestsRate = Double.parseDouble(args[++i]);
+                case "--error-500" -> config.serverErrorRate = Double.parseDouble(args[++i]);
+                case "--items" -> config.items = Integer.parseInt(args[++i]);
+                default -> {
+                    System.err.println("Opción desconocida: " + args[i]);
+                    System.exit(2);
+                }
+            }
+        }
+        StubWeatherServer stub = new StubWeatherServer(config).start();
+        System.out.println("Servidor de pruebas en " + stub.baseUrl());
+        Runtime.getRuntime().addShutdownHook(new Thread(stub::close));
+        Thread.currentThread().join();
+    }
+}
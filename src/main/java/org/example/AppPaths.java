@@ -0,0 +1,56 @@
+package org.example;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+
+/**
+ * Directorios locales de la aplicación (caché de iconos, teselas, historial...)
+ */
+public final class AppPaths {
+
+    // Permite redirigir la caché, p. ej. en servidores o pruebas
+    public static final String CACHE_DIR_PROPERTY = "meteomap.cache.dir";
+
+    private AppPaths() {
+    }
+
+    /**
+     * Directorio de caché del usuario según el sistema operativo
+     */
+    public static Path cacheDir() {
+        String override = System.getProperty(CACHE_DIR_PROPERTY);
+        if (override != null && !override.isBlank()) {
+            return Path.of(override);
+        }
+
+        String home = System.getProperty("user.home");
+        String os = System.getProperty("os.name", "").toLowerCase(Locale.ROOT);
+        if (os.contains("win")) {
+            String localAppData = System.getenv("LOCALAPPDATA");
+            Path base = localAppData != null ? Path.of(localAppData) : Path.of(home, "AppData", "Local");
+            return base.resolve("MeteoMap").resolve("cache");
+        }
+        if (os.contains("mac")) {
+            return Path.of(home, "Library", "Caches", "MeteoMap");
+        }
+        String xdg = System.getenv("XDG_CACHE_HOME");
+        Path base = xdg != null && !xdg.isBlank() ? Path.of(xdg) : Path.of(home, ".cache");
+        return base.resolve("meteomap");
+    }
+
+    /**
+     * Subdirectorio de la caché, creado si no existe
+     */
+    public static Path cacheDir(String name) {
+        Path dir = cacheDir().resolve(name);
+        try {
+            Files.createDirectories(dir);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo crear el directorio " + dir, e);
+        }
+        return dir;
+    }
+}
@@ -0,0 +1,239 @@
+package org.example;
+
+import org.jxmapviewer.OSMTileFactoryInfo;
+import org.jxmapviewer.viewer.DefaultTileFactory;
+import org.jxmapviewer.viewer.TileFactoryInfo;
+
+import javax.imageio.ImageIO;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Servicios de la aplicación que no dependen de Swing y tardan en crearse: cliente del
+ * tiempo, historial en disco, caché de teselas (lee su índice), nomenclátor de ciudades y
+ * logo ya escalado.
+ *
+ * {@link #start()} los crea en paralelo en hilos propios mientras el EDT pinta la ventana
+ * vacía; la interfaz los recoge cuando el futuro se completa. En el mismo pool se lee y
+ * decodifica la sesión anterior, que no espera a los servicios: la ventana la pinta en cuanto
+ * está.
+ *
+ * Ningún servicio impide el arranque: si uno falla se sigue sin él o con una alternativa (el
+ * cliente con la URL predeterminada, el mapa sin caché de teselas en disco).
+ */
+public final class AppServices {
+
+    static final int LOGO_WIDTH = 330;
+    static final int LOGO_HEIGHT = 80;
+
+    public final WeatherService weatherService;
+    // null si el historial no se pudo abrir
+    public final ForecastHistoryStore historyStore;
+    // null si la caché de teselas no se pudo abrir (el mapa se descarga siempre de la red)
+    public final DiskTileCache tileCache;
+    public final DefaultTileFactory tileFactory;
+    // null si el nomenclátor no se pudo cargar (la búsqueda sigue funcionando sin sugerencias)
+    public final Gazetteer gazetteer;
+    // null si no se encontró el logo
+    public final BufferedImage logo;
+
+    /**
+     * Futuros del arranque: la sesión anterior (null si no hay o no se pudo leer; nunca falla)
+     * y los servicios
+     */
+    public static final class Startup {
+        public final CompletableFuture<SessionSnapshot> session;
+        public final CompletableFuture<AppServices> services;
+
+        Startup(CompletableFuture<SessionSnapshot> session, CompletableFuture<AppServices> services) {
+            this.session = session;
+            this.services = services;
+        }
+    }
+
+    private AppServices(WeatherService weatherService, ForecastHistoryStore historyStore, DiskTileCache tileCache,
+                        DefaultTileFactory tileFactory, Gazetteer gazetteer, BufferedImage logo) {
+        this.weatherService = weatherService;
+        this.historyStore = historyStore;
+        this.tileCache = tileCache;
+        this.tileFactory = tileFactory;
+        this.gazetteer = gazetteer;
+        this.logo = logo;
+    }
+
+    /**
+     * Lanza la lectura de la sesión y la creación en paralelo de todos los servicios
+     */
+    public static Startup start() {
+        AtomicInteger threads = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(4, r -> {
+            Thread t = new Thread(r, "startup-" + threads.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        });
+
+        // Lo primero: es lo que la ventana pinta en cuanto aparece
+        CompletableFuture<SessionSnapshot> session = CompletableFuture.supplyAsync(AppServices::loadSession, executor);
+        CompletableFuture<WeatherService> weather = CompletableFuture.supplyAsync(AppServices::createWeatherService, executor);
+        CompletableFuture<ForecastHistoryStore> history = CompletableFuture.supplyAsync(AppServices::openHistoryStore, executor);
+        CompletableFuture<DiskTileCache> tiles = CompletableFuture.supplyAsync(AppServices::openTileCache, executor);
+        CompletableFuture<DefaultTileFactory> factory = tiles.thenApplyAsync(AppServices::openTileFactory, executor);
+        CompletableFuture<Gazetteer> gazetteer = CompletableFuture.supplyAsync(AppServices::loadGazetteer, executor);
+        CompletableFuture<BufferedImage> logo = CompletableFuture.supplyAsync(AppServices::loadLogo, executor);
+        // Las clases del mapa se cargan aquí; el componente se crea después en el EDT
+        CompletableFuture<Void> mapClasses = CompletableFuture.runAsync(() -> preload(
+                "org.jxmapviewer.JXMapKit", "org.jxmapviewer.JXMapViewer", "org.jxmapviewer.viewer.TileFactory"), executor);
+
+        CompletableFuture<AppServices> services = CompletableFuture.allOf(weather, history, factory, gazetteer, logo, mapClasses)
+                .thenApply(ignored -> new AppServices(weather.join(), history.join(), tiles.join(), factory.join(),
+                        gazetteer.join(), logo.join()));
+        CompletableFuture.allOf(session, services).whenComplete((ignored, error) -> executor.shutdown());
+        return new Startup(session, services);
+    }
+
+    /**
+     * Lee y decodifica entera la instantánea de la sesión anterior; null si no hay o está dañada
+     */
+    private static SessionSnapshot loadSession() {
+        try {
+            SessionSnapshot session = SessionSnapshot.load(SessionSnapshot.defaultPath());
+            if (session != null) {
+                session.decodeAll();
+                StartupTimer.mark("sesión");
+            }
+            return session;
+        } catch (IOException | RuntimeException e) {
+            System.err.println("No se pudo restaurar la sesión anterior: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Cliente del tiempo; si la URL de {@value WeatherService#BASE_URL_PROPERTY} no es válida,
+     * con la de OpenWeatherMap
+     */
+    private static WeatherService createWeatherService() {
+        WeatherService service;
+        try {
+            service = new WeatherService();
+        } catch (RuntimeException e) {
+            System.err.println("URL de la API no válida, se usa " + WeatherService.DEFAULT_BASE_URL + ": " + e.getMessage());
+            service = new WeatherService(new ForecastCache(), WeatherService.DEFAULT_BASE_URL);
+        }
+        // Carga de Gson y de los adaptadores antes de la primera respuesta
+        ForecastJson.gson();
+        StartupTimer.mark("servicio");
+        return service;
+    }
+
+    private static DiskTileCache openTileCache() {
+        try {
+            DiskTileCache cache = new DiskTileCache();
+            StartupTimer.mark("teselas");
+            return cache;
+        } catch (RuntimeException e) {
+            System.err.println("Caché de teselas desactivada: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * El TileFactory con la caché en disco; si no se puede montar con ella, sin caché
+     */
+    private static DefaultTileFactory openTileFactory(DiskTileCache tileCache) {
+        if (tileCache != null) {
+            try {
+                return createTileFactory(tileCache);
+            } catch (RuntimeException e) {
+                System.err.println("Mapa sin caché de teselas: " + e.getMessage());
+            }
+        }
+        return createTileFactory(null);
+    }
+
+    /**
+     * Crea el TileFactory de OpenStreetMap respaldado por la caché de teselas en disco (si
+     * {@code tileCache} no es null)
+     */
+    public static DefaultTileFactory createTileFactory(DiskTileCache tileCache) {
+        // MODIFICACIÓN para limitar el zoom máximo a 16
+        TileFactoryInfo info = new OSMTileFactoryInfo("OpenStreetMap", "https://tile.openstreetmap.org") {
+            @Override
+            public int getMaximumZoomLevel() {
+                return 16;
+            }
+        };
+
+        DefaultTileFactory tileFactory = new DefaultTileFactory(info);
+        tileFactory.setUserAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/58.0.3029.110 Safari/537.36");
+        if (tileCache != null) {
+            tileFactory.setLocalCache(tileCache);
+        }
+        return tileFactory;
+    }
+
+    private static ForecastHistoryStore openHistoryStore() {
+        try {
+            return new ForecastHistoryStore();
+        } catch (RuntimeException e) {
+            System.err.println("Historial de pronósticos desactivado: " + e.getMessage());
+            return null;
+        }
+    }
+
+    private static Gazetteer loadGazetteer() {
+        try {
+            Gazetteer gazetteer = Gazetteer.load();
+            StartupTimer.mark("nomenclátor");
+            return gazetteer;
+        } catch (RuntimeException e) {
+            System.err.println("Sugerencias de ciudades desactivadas: " + e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Lee y escala el logo de una vez (getScaledInstance lo escalaba perezosamente en el EDT)
+     */
+    private static BufferedImage loadLogo() {
+        try (InputStream in = AppServices.class.getResourceAsStream("/MeteoMapLogo.png")) {
+            if (in == null) {
+                return null;
+            }
+            BufferedImage original = ImageIO.read(in);
+            if (original == null) {
+                return null;
+            }
+            BufferedImage scaled = new BufferedImage(LOGO_WIDTH, LOGO_HEIGHT, BufferedImage.TYPE_INT_ARGB);
+            Graphics2D g = scaled.createGraphics();
+            try {
+                g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+                g.drawImage(original, 0, 0, LOGO_WIDTH, LOGO_HEIGHT, null);
+            } finally {
+                g.dispose();
+            }
+            return scaled;
+        } catch (IOException e) {
+            System.err.println("No se pudo cargar el logo: " + e.getMessage());
+            return null;
+        }
+    }
+
+    static void preload(String... classNames) {
+        for (String name : classNames) {
+            try {
+                Class.forName(name, true, AppServices.class.getClassLoader());
+            } catch (ClassNotFoundException | LinkageError e) {
+                // Solo es una optimización: la clase se cargará al usarla
+            }
+        }
+    }
+}
@@ -0,0 +1,231 @@
+package org.example;
+
+import com.google.gson.stream.JsonWriter;
+import org.example.WeatherService.City;
+import org.example.WeatherService.ForecastItem;
+import org.example.WeatherService.ForecastResponse;
+import org.example.WeatherService.Weather;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.util.Iterator;
+import java.util.Locale;
+import java.util.NoSuchElementException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Exportación masiva de pronósticos sin interfaz gráfica.
+ *
+ * Lee ubicaciones línea a línea, las consulta en paralelo con
+ * {@link WeatherService#getWeatherBatch(Iterable, int, java.util.function.Consumer)} y escribe
+ * cada resultado en CSV o NDJSON en cuanto termina. Nada se acumula en memoria: la entrada
+ * se lee de forma perezosa y el número de peticiones en vuelo está acotado.
+ */
+public class BatchExporter {
+
+    public enum Format { CSV, NDJSON }
+
+    private static final String CSV_HEADER = "query,city,country,lat,lon,dt,temp,feels_like,temp_min,temp_max,"
+            + "pressure,humidity,wind_speed,wind_deg,pop,condition,description,icon,error";
+
+    private final WeatherService weatherService;
+    private final Format format;
+    private final int concurrency;
+
+    private final AtomicLong succeeded = new AtomicLong();
+    private final AtomicLong failed = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+    private volatile IOException writeError;
+
+    public BatchExporter(WeatherService weatherService, Format format, int concurrency) {
+        this.weatherService = weatherService;
+        this.format = format;
+        this.concurrency = concurrency;
+    }
+
+    /**
+     * Procesa todas las líneas de {@code input} y escribe los resultados en {@code output}
+     */
+    public void run(BufferedReader input, Writer output) throws IOException, InterruptedException {
+        if (format == Format.CSV) {
+            output.write(CSV_HEADER);
+            output.write('\n');
+        }
+
+        Iterable<LocationQuery> locations = () -> new LineIterator(input);
+        try {
+            weatherService.getWeatherBatch(locations, concurrency, result -> write(output, result));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        if (writeError != null) {
+            throw writeError;
+        }
+        output.flush();
+    }
+
+    public long getSucceeded() {
+        return succeeded.get();
+    }
+
+    public long getFailed() {
+        return failed.get();
+    }
+
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    private void write(Writer output, BatchResult result) {
+        // Se formatea fuera del bloqueo; solo la escritura está sincronizada
+        String text;
+        try {
+            text = format(result);
+        } catch (RuntimeException e) {
+            // Una respuesta que no se puede formatear cuenta como fallida, con su línea de error
+            result = new BatchResult(result.getLocation(), null,
+                    new WeatherException("Respuesta no exportable: " + e, e), result.getElapsedNanos());
+            text = format(result);
+        }
+        if (result.isSuccess()) {
+            succeeded.incrementAndGet();
+        } else {
+            failed.incrementAndGet();
+        }
+        try {
+            synchronized (output) {
+                output.write(text);
+                output.flush();
+            }
+        } catch (IOException e) {
+            // Se relanza en run(): aquí estamos en un hilo del lote
+            if (writeError == null) {
+                writeError = e;
+            }
+        }
+    }
+
+    private String format(BatchResult result) {
+        return format == Format.CSV ? toCsv(result) : toNdjson(result);
+    }
+
+    private static String toCsv(BatchResult result) {
+        StringBuilder sb = new StringBuilder(4096);
+        String query = csv(result.getLocation().toString());
+        if (!result.isSuccess()) {
+            sb.append(query).append(",,,,,,,,,,,,,,,,,,").append(csv(result.getError().getMessage())).append('\n');
+            return sb.toString();
+        }
+
+        ForecastResponse response = result.getResponse();
+        City city = response.city;
+        String cityPart = city == null ? ",,,"
+                : csv(city.name) + "," + csv(city.country) + ","
+                + (city.coord != null ? city.coord.lat + "," + city.coord.lon : ",");
+        if (response.list == null) {
+            return sb.toString();
+        }
+        for (ForecastItem item : response.list) {
+            Weather weather = item.weather != null && !item.weather.isEmpty() ? item.weather.get(0) : new Weather();
+            sb.append(query).append(',').append(cityPart).append(',')
+                    .append(item.dt).append(',');
+            // Sin bloque main o wind las columnas quedan vacías, como en la vista por horas
+            WeatherService.Main main = item.main;
+            if (main != null) {
+                sb.append(main.temp).append(',')
+                        .append(main.feels_like).append(',')
+                        .append(main.temp_min).append(',')
+                        .append(main.temp_max).append(',')
+                        .append(main.pressure).append(',')
+                        .append(main.humidity).append(',');
+            } else {
+                sb.append(",,,,,,");
+            }
+            if (item.wind != null) {
+                sb.append(item.wind.speed).append(',').append(item.wind.deg).append(',');
+            } else {
+                sb.append(",,");
+            }
+            sb.append(item.pop).append(',')
+                    .append(csv(weather.main)).append(',')
+                    .append(csv(weather.description)).append(',')
+                    .append(csv(weather.icon)).append(",\n");
+        }
+        return sb.toString();
+    }
+
+    private static String csv(String value) {
+        if (value == null) {
+            return "";
+        }
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) {
+            return value;
+        }
+        return '"' + value.replace("\"", "\"\"") + '"';
+    }
+
+    private static String toNdjson(BatchResult result) {
+        StringWriter buffer = new StringWriter(4096);
+        try (JsonWriter json = new JsonWriter(buffer)) {
+            json.beginObject();
+            json.name("query").value(result.getLocation().toString());
+            if (!result.isSuccess()) {
+                json.name("error").value(result.getError().getMessage());
+            } else {
+                // Mismo esquema que la respuesta de la API (solo los campos que usamos)
+                json.name("forecast").jsonValue(ForecastJson.toJson(result.getResponse()));
+            }
+            json.endObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.append('\n').toString();
+    }
+
+    /**
+     * Iterador perezoso sobre las líneas de entrada: ignora líneas vacías y comentarios (#)
+     */
+    private final class LineIterator implements Iterator<LocationQuery> {
+        private final BufferedReader reader;
+        private LocationQuery next;
+
+        LineIterator(BufferedReader reader) {
+            this.reader = reader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            try {
+                String line;
+                while (next == null && (line = reader.readLine()) != null) {
+                    line = line.trim();
+                    if (line.isEmpty() || line.startsWith("#")) {
+                        continue;
+                    }
+                    try {
+                        next = LocationQuery.parse(line);
+                    } catch (IllegalArgumentException e) {
+                        skipped.incrementAndGet();
+                        System.err.println(String.format(Locale.ROOT, "Línea ignorada (%s): %s", e.getMessage(), line));
+                    }
+                }
+                return next != null;
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public LocationQuery next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            LocationQuery location = next;
+            next = null;
+            return location;
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package org.example;
+
+import org.example.WeatherService.ForecastResponse;
+
+/**
+ * Resultado de una consulta dentro de un lote: el pronóstico o el error de esa ubicación
+ */
+public final class BatchResult {
+    private final LocationQuery location;
+    private final ForecastResponse response;
+    private final WeatherException error;
+    private final long elapsedNanos;
+
+    BatchResult(LocationQuery location, ForecastResponse response, WeatherException error, long elapsedNanos) {
+        this.location = location;
+        this.response = response;
+        this.error = error;
+        this.elapsedNanos = elapsedNanos;
+    }
+
+    public LocationQuery getLocation() {
+        return location;
+    }
+
+    public ForecastResponse getResponse() {
+        return response;
+    }
+
+    public WeatherException getError() {
+        return error;
+    }
+
+    public boolean isSuccess() {
+        return error == null;
+    }
+
+    public long getElapsedNanos() {
+        return elapsedNanos;
+    }
+}
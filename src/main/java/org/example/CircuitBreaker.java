@@ -0,0 +1,110 @@
+package org.example;
+
+import java.util.Locale;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cortocircuito para las llamadas a la API.
+ *
+ * Tras {@code failureThreshold} fallos seguidos (errores de red, 429 o 5xx) se abre y rechaza
+ * las peticiones durante {@code openMillis}, sin esperar a ningún timeout. Pasado ese tiempo
+ * deja pasar una sola petición de prueba: si va bien se cierra y, si falla, vuelve a abrirse.
+ */
+public class CircuitBreaker {
+
+    public static final int DEFAULT_FAILURE_THRESHOLD = 5;
+    public static final long DEFAULT_OPEN_MILLIS = TimeUnit.SECONDS.toMillis(30);
+
+    public enum State { CLOSED, OPEN, HALF_OPEN }
+
+    private final int failureThreshold;
+    private final long openMillis;
+
+    private State state = State.CLOSED;
+    private int consecutiveFailures;
+    private long openedAt;
+    private boolean trialInFlight;
+    private long rejected;
+
+    public CircuitBreaker() {
+        this(DEFAULT_FAILURE_THRESHOLD, DEFAULT_OPEN_MILLIS);
+    }
+
+    public CircuitBreaker(int failureThreshold, long openMillis) {
+        if (failureThreshold <= 0 || openMillis <= 0) {
+            throw new IllegalArgumentException("El umbral y el tiempo de apertura deben ser positivos");
+        }
+        this.failureThreshold = failureThreshold;
+        this.openMillis = openMillis;
+    }
+
+    /**
+     * Indica si se puede lanzar una petición ahora. En semiabierto solo la primera obtiene permiso.
+     */
+    public synchronized boolean tryAcquire() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            state = State.HALF_OPEN;
+            trialInFlight = false;
+        }
+        switch (state) {
+            case CLOSED:
+                return true;
+            case HALF_OPEN:
+                if (!trialInFlight) {
+                    trialInFlight = true;
+                    return true;
+                }
+                break;
+            default:
+                break;
+        }
+        rejected++;
+        return false;
+    }
+
+    public synchronized void onSuccess() {
+        state = State.CLOSED;
+        consecutiveFailures = 0;
+        trialInFlight = false;
+    }
+
+    public synchronized void onFailure() {
+        consecutiveFailures++;
+        if (state == State.HALF_OPEN || consecutiveFailures >= failureThreshold) {
+            state = State.OPEN;
+            openedAt = System.currentTimeMillis();
+            trialInFlight = false;
+        }
+    }
+
+    public synchronized State getState() {
+        if (state == State.OPEN && System.currentTimeMillis() - openedAt >= openMillis) {
+            return State.HALF_OPEN;
+        }
+        return state;
+    }
+
+    public boolean isOpen() {
+        return getState() == State.OPEN;
+    }
+
+    /**
+     * Milisegundos hasta que se permita la siguiente petición de prueba (0 si no está abierto)
+     */
+    public synchronized long getRetryInMillis() {
+        if (state != State.OPEN) {
+            return 0;
+        }
+        return Math.max(0, openedAt + openMillis - System.currentTimeMillis());
+    }
+
+    public synchronized long getRejected() {
+        return rejected;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "CircuitBreaker[%s, fallos seguidos=%d, rechazadas=%d]",
+                getState(), consecutiveFailures, rejected);
+    }
+}
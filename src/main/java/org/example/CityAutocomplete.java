@@ -0,0 +1,182 @@
+package org.example;
+
+import javax.swing.DefaultListModel;
+import javax.swing.JList;
+import javax.swing.JPopupMenu;
+import javax.swing.JTextField;
+import javax.swing.ListSelectionModel;
+import javax.swing.SwingUtilities;
+import javax.swing.event.DocumentEvent;
+import javax.swing.event.DocumentListener;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.event.FocusAdapter;
+import java.awt.event.FocusEvent;
+import java.awt.event.KeyAdapter;
+import java.awt.event.KeyEvent;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Sugerencias de ciudades bajo el campo de búsqueda según se escribe.
+ *
+ * Cada pulsación consulta el {@link Gazetteer} en el EDT (son microsegundos, sin red ni
+ * hilos) y muestra una lista emergente sin foco, así que se puede seguir escribiendo.
+ * Flechas para moverse, Intro o clic para elegir y Escape para cerrar; Intro sin ninguna
+ * sugerencia marcada deja que el campo lance su búsqueda normal.
+ */
+public class CityAutocomplete {
+
+    static final int MAX_SUGGESTIONS = 8;
+
+    private final JTextField field;
+    private final Consumer<Gazetteer.Place> onSelect;
+    private final DefaultListModel<Gazetteer.Place> model = new DefaultListModel<>();
+    private final JList<Gazetteer.Place> list = new JList<>(model);
+    private final JPopupMenu popup = new JPopupMenu();
+    private Gazetteer gazetteer;
+    // El texto lo cambiamos nosotros al elegir: no hay que volver a sugerir
+    private boolean adjusting;
+
+    public CityAutocomplete(JTextField field, Consumer<Gazetteer.Place> onSelect) {
+        this.field = field;
+        this.onSelect = onSelect;
+
+        list.setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        list.setFocusable(false);
+        list.setFont(field.getFont().deriveFont(Font.PLAIN));
+        // Como mucho MAX_SUGGESTIONS filas: caben sin barra de desplazamiento
+        popup.setFocusable(false);
+        popup.add(list);
+
+        field.getDocument().addDocumentListener(new DocumentListener() {
+            @Override
+            public void insertUpdate(DocumentEvent e) {
+                update();
+            }
+
+            @Override
+            public void removeUpdate(DocumentEvent e) {
+                update();
+            }
+
+            @Override
+            public void changedUpdate(DocumentEvent e) {
+                update();
+            }
+        });
+        // Los KeyListener van antes que los atajos del campo: si se consume Intro no salta su acción
+        field.addKeyListener(new KeyAdapter() {
+            @Override
+            public void keyPressed(KeyEvent e) {
+                onKeyPressed(e);
+            }
+        });
+        field.addFocusListener(new FocusAdapter() {
+            @Override
+            public void focusLost(FocusEvent e) {
+                hide();
+            }
+        });
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                int index = list.locationToIndex(e.getPoint());
+                if (index >= 0) {
+                    choose(model.get(index));
+                }
+            }
+        });
+    }
+
+    /**
+     * Activa las sugerencias (el nomenclátor se carga durante el arranque); null las desactiva
+     */
+    public void setGazetteer(Gazetteer gazetteer) {
+        this.gazetteer = gazetteer;
+        if (gazetteer == null) {
+            hide();
+        }
+    }
+
+    public void hide() {
+        popup.setVisible(false);
+    }
+
+    private void update() {
+        if (adjusting || gazetteer == null) {
+            return;
+        }
+        List<Gazetteer.Place> places = gazetteer.suggest(field.getText(), MAX_SUGGESTIONS);
+        if (places.isEmpty() || !field.isShowing()) {
+            hide();
+            return;
+        }
+        model.clear();
+        model.addAll(places);
+        // Sin selección: Intro busca lo escrito salvo que el usuario baje a una sugerencia
+        list.clearSelection();
+        // Al menos tan ancha como el campo
+        popup.setPreferredSize(null);
+        Dimension size = popup.getPreferredSize();
+        popup.setPreferredSize(new Dimension(Math.max(field.getWidth(), size.width), size.height));
+        if (popup.isVisible()) {
+            popup.pack();
+        } else {
+            popup.show(field, 0, field.getHeight());
+        }
+    }
+
+    private void onKeyPressed(KeyEvent e) {
+        if (!popup.isVisible()) {
+            return;
+        }
+        switch (e.getKeyCode()) {
+            case KeyEvent.VK_DOWN:
+                move(1);
+                e.consume();
+                break;
+            case KeyEvent.VK_UP:
+                move(-1);
+                e.consume();
+                break;
+            case KeyEvent.VK_ENTER:
+                Gazetteer.Place selected = list.getSelectedValue();
+                if (selected != null) {
+                    e.consume();
+                    choose(selected);
+                } else {
+                    hide();
+                }
+                break;
+            case KeyEvent.VK_ESCAPE:
+                hide();
+                e.consume();
+                break;
+            default:
+                break;
+        }
+    }
+
+    private void move(int delta) {
+        int size = model.getSize();
+        int index = list.getSelectedIndex();
+        // Desde "sin selección", abajo va a la primera y arriba a la última
+        int next = index < 0 ? (delta > 0 ? 0 : size - 1) : Math.floorMod(index + delta, size);
+        list.setSelectedIndex(next);
+        list.ensureIndexIsVisible(next);
+    }
+
+    private void choose(Gazetteer.Place place) {
+        hide();
+        adjusting = true;
+        try {
+            field.setText(place.label());
+        } finally {
+            adjusting = false;
+        }
+        SwingUtilities.invokeLater(() -> onSelect.accept(place));
+    }
+}
@@ -0,0 +1,178 @@
+package org.example;
+
+import org.example.WeatherService.ForecastItem;
+import org.example.WeatherService.ForecastResponse;
+import org.example.WeatherService.Weather;
+
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Agrupa los tramos de 3 horas de un pronóstico por días.
+ *
+ * Los días se calculan con aritmética sobre el epoch-day en el desfase UTC de la ubicación
+ * del pronóstico (no en la zona horaria del equipo), y en una sola pasada se obtienen las
+ * temperaturas mínima/máxima/media, la probabilidad de precipitación máxima, la racha de
+ * viento máxima y el estado del cielo predominante. No depende de Swing.
+ */
+public final class DailyForecastAggregator {
+
+    private static final int SECONDS_PER_DAY = 86_400;
+
+    // DateTimeFormatter es inmutable y thread-safe: se crean una sola vez
+    public static final DateTimeFormatter DAY_LABEL = DateTimeFormatter.ofPattern("EEEE, d MMM", Locale.getDefault());
+    public static final DateTimeFormatter LONG_DAY_LABEL = DateTimeFormatter.ofPattern("EEEE, d 'de' MMMM", Locale.getDefault());
+    public static final DateTimeFormatter HOUR_LABEL = DateTimeFormatter.ofPattern("HH:mm", Locale.getDefault());
+
+    private DailyForecastAggregator() {
+    }
+
+    /**
+     * Agrupa la respuesta usando el desfase horario de su ciudad
+     */
+    public static List<DailySummary> aggregate(ForecastResponse response) {
+        if (response == null || response.list == null) {
+            return Collections.emptyList();
+        }
+        int offset = response.city != null ? response.city.timezone : 0;
+        return aggregate(response.list, offset);
+    }
+
+    /**
+     * Agrupa tramos ordenados por {@code dt}. Cada día conserva una vista de sus tramos.
+     */
+    public static List<DailySummary> aggregate(List<ForecastItem> items, int utcOffsetSeconds) {
+        List<DailySummary> days = new ArrayList<>(6);
+        int size = items.size();
+        int start = 0;
+        while (start < size) {
+            long epochDay = epochDay(items.get(start).dt, utcOffsetSeconds);
+
+            double min = Double.POSITIVE_INFINITY;
+            double max = Double.NEGATIVE_INFINITY;
+            double sum = 0;
+            double maxPop = 0;
+            double maxWind = 0;
+            // Recuento por grupo de icono ("01".."50"): basta un array indexado por el número
+            int[] conditionCounts = new int[51];
+
+            int end = start;
+            while (end < size && epochDay(items.get(end).dt, utcOffsetSeconds) == epochDay) {
+                ForecastItem item = items.get(end);
+                if (item.main != null) {
+                    double temp = item.main.temp;
+                    if (temp < min) min = temp;
+                    if (temp > max) max = temp;
+                    sum += temp;
+                }
+                if (item.pop > maxPop) maxPop = item.pop;
+                if (item.wind != null && item.wind.speed > maxWind) maxWind = item.wind.speed;
+                int group = conditionGroup(item);
+                if (group >= 0) conditionCounts[group]++;
+                end++;
+            }
+
+            List<ForecastItem> dayItems = items.subList(start, end);
+            Weather dominant = dominantCondition(dayItems, conditionCounts);
+            days.add(new DailySummary(epochDay, utcOffsetSeconds, start, dayItems,
+                    min, max, sum / dayItems.size(), maxPop, maxWind,
+                    dominant != null ? daytimeIcon(dominant.icon) : null,
+                    dominant != null ? dominant.description : null));
+            start = end;
+        }
+        return days;
+    }
+
+    public static long epochDay(long dt, int utcOffsetSeconds) {
+        return Math.floorDiv(dt + utcOffsetSeconds, SECONDS_PER_DAY);
+    }
+
+    /**
+     * Formatea un instante (segundos epoch) en el desfase horario de la ubicación
+     */
+    public static String format(long dt, int utcOffsetSeconds, DateTimeFormatter formatter) {
+        return formatter.format(Instant.ofEpochSecond(dt).atOffset(ZoneOffset.ofTotalSeconds(utcOffsetSeconds)));
+    }
+
+    private static int conditionGroup(ForecastItem item) {
+        if (item.weather == null || item.weather.isEmpty()) return -1;
+        String icon = item.weather.get(0).icon;
+        if (icon == null || icon.length() < 2) return -1;
+        int group = (icon.charAt(0) - '0') * 10 + (icon.charAt(1) - '0');
+        return group >= 0 && group <= 50 ? group : -1;
+    }
+
+    private static Weather dominantCondition(List<ForecastItem> dayItems, int[] counts) {
+        int best = -1;
+        for (int group = 0; group < counts.length; group++) {
+            // En caso de empate gana el grupo más alto (lluvia sobre nubes, por ejemplo)
+            if (counts[group] > 0 && (best < 0 || counts[group] >= counts[best])) {
+                best = group;
+            }
+        }
+        if (best < 0) return null;
+        for (ForecastItem item : dayItems) {
+            if (conditionGroup(item) == best) {
+                return item.weather.get(0);
+            }
+        }
+        return null;
+    }
+
+    // Para el resumen del día se usa siempre la variante diurna del icono
+    private static String daytimeIcon(String icon) {
+        return icon != null && icon.endsWith("n") ? icon.substring(0, icon.length() - 1) + "d" : icon;
+    }
+
+    /**
+     * Resumen de un día del pronóstico
+     */
+    public static final class DailySummary {
+        public final long epochDay;
+        public final int utcOffsetSeconds;
+        // Posición del primer tramo del día dentro del pronóstico completo
+        public final int firstIndex;
+        public final List<ForecastItem> items;
+        public final double minTemp;
+        public final double maxTemp;
+        public final double meanTemp;
+        public final double maxPop;
+        public final double maxWindSpeed;
+        public final String icon;
+        public final String description;
+
+        DailySummary(long epochDay, int utcOffsetSeconds, int firstIndex, List<ForecastItem> items,
+                     double minTemp, double maxTemp, double meanTemp, double maxPop, double maxWindSpeed,
+                     String icon, String description) {
+            this.epochDay = epochDay;
+            this.utcOffsetSeconds = utcOffsetSeconds;
+            this.firstIndex = firstIndex;
+            this.items = items;
+            this.minTemp = minTemp;
+            this.maxTemp = maxTemp;
+            this.meanTemp = meanTemp;
+            this.maxPop = maxPop;
+            this.maxWindSpeed = maxWindSpeed;
+            this.icon = icon;
+            this.description = description;
+        }
+
+        public LocalDate date() {
+            return LocalDate.ofEpochDay(epochDay);
+        }
+
+        public String label(DateTimeFormatter formatter) {
+            return formatter.format(date());
+        }
+
+        public String hourLabel(ForecastItem item) {
+            return format(item.dt, utcOffsetSeconds, HOUR_LABEL);
+        }
+    }
+}
@@ -0,0 +1,141 @@
+package org.example;
+
+import org.example.DailyForecastAggregator.DailySummary;
+
+import javax.swing.BorderFactory;
+import javax.swing.Box;
+import javax.swing.BoxLayout;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.SwingConstants;
+import javax.swing.border.LineBorder;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Cursor;
+import java.awt.Dimension;
+import java.awt.Font;
+import java.awt.event.MouseAdapter;
+import java.awt.event.MouseEvent;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.function.Consumer;
+
+/**
+ * Tarjeta de un día del pronóstico (la grande para hoy o una de las pequeñas).
+ *
+ * Se crea una vez y se reutiliza en cada búsqueda: {@link #update} solo cambia el texto o el
+ * icono de las etiquetas que difieren, y una JLabel con el mismo texto no se vuelve a maquetar
+ * ni a pintar. Las temperaturas van en etiquetas propias, sin HTML que analizar en cada cambio.
+ */
+public class DayCard extends JPanel {
+
+    private static final Color COLOR_PRIMARIO = new Color(0, 123, 255);
+    private static final Color COLOR_FECHA_SECUNDARIA = new Color(50, 50, 50);
+    private static final Color COLOR_MAXIMA = new Color(0xd9534f);
+    private static final Color COLOR_MINIMA = new Color(0x5bc0de);
+    private static final Color COLOR_FONDO = Color.WHITE;
+    private static final Color COLOR_BORDE = new Color(220, 220, 220);
+
+    private final WeatherIconCache iconCache;
+    private final int iconSize;
+    private final JLabel dateLabel;
+    private final JLabel iconLabel = new JLabel("", SwingConstants.CENTER);
+    private final JLabel maxLabel;
+    private final JLabel minLabel;
+    // Día mostrado: el que se abre al hacer clic
+    private DailySummary day;
+    private String iconCode;
+
+    /**
+     * @param large    tarjeta grande (el primer día) o pequeña
+     * @param onSelect se llama con el día mostrado al hacer clic en la tarjeta
+     */
+    public DayCard(WeatherIconCache iconCache, boolean large, Consumer<DailySummary> onSelect) {
+        this.iconCache = iconCache;
+        this.iconSize = large ? 80 : 32;
+        setLayout(new BoxLayout(this, BoxLayout.Y_AXIS));
+        setBorder(BorderFactory.createCompoundBorder(
+                new LineBorder(COLOR_BORDE, 1),
+                large ? BorderFactory.createEmptyBorder(60, 110, 20, 110) : BorderFactory.createEmptyBorder(5, 5, 5, 5)));
+        setBackground(COLOR_FONDO);
+
+        dateLabel = label(new Font("Arial", Font.BOLD, large ? 22 : 12), large ? COLOR_PRIMARIO : COLOR_FECHA_SECUNDARIA);
+        iconLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
+        maxLabel = label(new Font("Arial", Font.PLAIN, large ? 36 : 11), COLOR_MAXIMA);
+        minLabel = label(new Font("Arial", Font.PLAIN, large ? 27 : 10), COLOR_MINIMA);
+
+        int gap = large ? 15 : 3;
+        add(dateLabel);
+        add(Box.createRigidArea(new Dimension(0, gap)));
+        add(iconLabel);
+        add(Box.createRigidArea(new Dimension(0, gap)));
+        add(maxLabel);
+        add(minLabel);
+
+        setCursor(new Cursor(Cursor.HAND_CURSOR));
+        addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (day != null && isEnabled()) {
+                    onSelect.accept(day);
+                }
+            }
+
+            @Override
+            public void mouseEntered(MouseEvent e) {
+                if (isEnabled()) {
+                    setBackground(COLOR_BORDE);
+                }
+            }
+
+            @Override
+            public void mouseExited(MouseEvent e) {
+                setBackground(COLOR_FONDO);
+            }
+        });
+    }
+
+    private static JLabel label(Font font, Color color) {
+        JLabel label = new JLabel("", SwingConstants.CENTER);
+        label.setAlignmentX(Component.CENTER_ALIGNMENT);
+        label.setFont(font);
+        label.setForeground(color);
+        return label;
+    }
+
+    /**
+     * Muestra otro día cambiando solo lo que difiere del anterior
+     */
+    public void update(DailySummary day) {
+        this.day = day;
+        dateLabel.setText(day.label(DailyForecastAggregator.DAY_LABEL));
+        if (!Objects.equals(day.icon, iconCode)) {
+            // Mismo tamaño: JLabel solo repinta, sin maquetar
+            iconCode = day.icon;
+            iconLabel.setIcon(iconCache.icon(iconCode, iconSize));
+        }
+        maxLabel.setText(String.format(Locale.ROOT, "%.0f°C", day.maxTemp));
+        minLabel.setText(String.format(Locale.ROOT, "%.0f°C", day.minTemp));
+    }
+
+    /**
+     * Desactivada, la tarjeta se atenúa y no responde a los clics: muestra un pronóstico que ya
+     * no es el actual (búsqueda en curso)
+     */
+    @Override
+    public void setEnabled(boolean enabled) {
+        if (enabled == isEnabled()) {
+            return;
+        }
+        super.setEnabled(enabled);
+        for (Component child : getComponents()) {
+            child.setEnabled(enabled);
+        }
+        setBackground(COLOR_FONDO);
+        setCursor(enabled ? new Cursor(Cursor.HAND_CURSOR) : Cursor.getDefaultCursor());
+    }
+
+    public DailySummary getDay() {
+        return day;
+    }
+}
@@ -0,0 +1,282 @@
+package org.example;
+
+import org.jxmapviewer.cache.LocalCache;
+
+import javax.imageio.ImageIO;
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Caché persistente de teselas del mapa para {@link org.jxmapviewer.viewer.DefaultTileFactory}.
+ *
+ * Guarda cada tesela en disco con un presupuesto máximo de bytes (desalojo LRU) y una
+ * caducidad. En modo sin conexión solo se pintan las teselas guardadas (aunque hayan
+ * caducado) y el resto se sustituye por una tesela gris, sin tocar la red.
+ */
+public class DiskTileCache implements LocalCache {
+
+    public static final long DEFAULT_MAX_BYTES = 256L * 1024 * 1024;
+    // La política de uso de OSM pide no volver a descargar teselas antes de 7 días
+    public static final long DEFAULT_MAX_AGE_MILLIS = TimeUnit.DAYS.toMillis(7);
+
+    private static final int TILE_SIZE = 256;
+
+    private final Path directory;
+    private final long maxBytes;
+    private final long maxAgeMillis;
+    private volatile boolean offline;
+
+    // Índice en orden de acceso: ruta relativa -> tamaño en bytes
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(1024, 0.75f, true);
+    private long totalBytes;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong bytesSaved = new AtomicLong();
+    private final AtomicLong bytesDownloaded = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+
+    // El TileRunner llama a put() tras get() en el mismo hilo, también cuando la tesela salió de
+    // la caché: así sabemos que no hay que volver a escribirla
+    private final ThreadLocal<Boolean> servedLocally = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private volatile byte[] offlineTile;
+
+    public DiskTileCache() {
+        this(AppPaths.cacheDir("tiles"), DEFAULT_MAX_BYTES, DEFAULT_MAX_AGE_MILLIS);
+    }
+
+    public DiskTileCache(Path directory, long maxBytes, long maxAgeMillis) {
+        if (maxBytes <= 0 || maxAgeMillis <= 0) {
+            throw new IllegalArgumentException("El presupuesto y la caducidad deben ser positivos");
+        }
+        this.directory = directory;
+        this.maxBytes = maxBytes;
+        this.maxAgeMillis = maxAgeMillis;
+        loadIndex();
+    }
+
+    public boolean isOffline() {
+        return offline;
+    }
+
+    public void setOffline(boolean offline) {
+        this.offline = offline;
+    }
+
+    @Override
+    public InputStream get(URL url) throws IOException {
+        String key = keyFor(url);
+        Path file = directory.resolve(key);
+        boolean known;
+        synchronized (this) {
+            known = index.get(key) != null;
+        }
+
+        if (known && Files.isRegularFile(file)) {
+            boolean expired = System.currentTimeMillis() - Files.getLastModifiedTime(file).toMillis() > maxAgeMillis;
+            // Sin conexión se sirven también las teselas caducadas
+            if (!expired || offline) {
+                hits.incrementAndGet();
+                bytesSaved.addAndGet(Files.size(file));
+                servedLocally.set(Boolean.TRUE);
+                return new BufferedInputStream(Files.newInputStream(file));
+            }
+        }
+
+        misses.incrementAndGet();
+        if (offline) {
+            servedLocally.set(Boolean.TRUE);
+            return new ByteArrayInputStream(offlineTile());
+        }
+        servedLocally.set(Boolean.FALSE);
+        return null;
+    }
+
+    @Override
+    public void put(URL url, InputStream data) throws IOException {
+        if (servedLocally.get()) {
+            servedLocally.set(Boolean.FALSE);
+            return;
+        }
+
+        String key = keyFor(url);
+        Path file = directory.resolve(key);
+        Files.createDirectories(file.getParent());
+
+        // Escritura atómica: una tesela a medias nunca queda en la caché
+        Path tmp = Files.createTempFile(file.getParent(), "tile", ".tmp");
+        long size;
+        try {
+            size = Files.copy(data, tmp, StandardCopyOption.REPLACE_EXISTING);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(tmp);
+        }
+        bytesDownloaded.addAndGet(size);
+
+        List<String> evicted;
+        synchronized (this) {
+            Long previous = index.put(key, size);
+            totalBytes += size - (previous != null ? previous : 0);
+            evicted = evictIfNeeded();
+        }
+        for (String old : evicted) {
+            Files.deleteIfExists(directory.resolve(old));
+        }
+    }
+
+    private List<String> evictIfNeeded() {
+        List<String> evicted = new ArrayList<>();
+        Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+        while (totalBytes > maxBytes && it.hasNext()) {
+            Map.Entry<String, Long> eldest = it.next();
+            totalBytes -= eldest.getValue();
+            evicted.add(eldest.getKey());
+            it.remove();
+            evictions.incrementAndGet();
+        }
+        return evicted;
+    }
+
+    /**
+     * Reconstruye el índice a partir de los ficheros en disco, del más antiguo al más reciente
+     */
+    private void loadIndex() {
+        try {
+            Files.createDirectories(directory);
+            List<TileFile> files = new ArrayList<>();
+            try (Stream<Path> paths = Files.walk(directory)) {
+                paths.forEach(path -> {
+                    try {
+                        BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                        if (attrs.isRegularFile() && path.toString().endsWith(".png")) {
+                            files.add(new TileFile(path, attrs.lastModifiedTime().toMillis(), attrs.size()));
+                        } else if (attrs.isRegularFile() && path.toString().endsWith(".tmp")) {
+                            Files.deleteIfExists(path);
+                        }
+                    } catch (IOException ignored) {
+                        // Fichero borrado mientras se recorría el directorio
+                    }
+                });
+            }
+            files.sort(Comparator.comparingLong(TileFile::modified));
+
+            List<String> evicted;
+            synchronized (this) {
+                for (TileFile f : files) {
+                    String key = directory.relativize(f.path()).toString().replace('\\', '/');
+                    index.put(key, f.size());
+                    totalBytes += f.size();
+                }
+                evicted = evictIfNeeded();
+            }
+            for (String old : evicted) {
+                Files.deleteIfExists(directory.resolve(old));
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer la caché de teselas " + directory, e);
+        }
+    }
+
+    private record TileFile(Path path, long modified, long size) {
+    }
+
+    /**
+     * Ruta relativa de la tesela: host/z/x/y.png
+     */
+    private static String keyFor(URL url) {
+        String path = url.getPath().replaceAll("[^A-Za-z0-9/._-]", "_");
+        while (path.startsWith("/")) {
+            path = path.substring(1);
+        }
+        path = path.replace("..", "_");
+        if (!path.endsWith(".png")) {
+            path = path + ".png";
+        }
+        return url.getHost() + "/" + path;
+    }
+
+    private byte[] offlineTile() throws IOException {
+        byte[] tile = offlineTile;
+        if (tile == null) {
+            BufferedImage image = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+            Graphics2D g = image.createGraphics();
+            g.setColor(new Color(235, 235, 235));
+            g.fillRect(0, 0, TILE_SIZE, TILE_SIZE);
+            g.setColor(new Color(160, 160, 160));
+            g.setFont(new Font("Arial", Font.PLAIN, 12));
+            String text = "Sin conexión";
+            FontMetrics metrics = g.getFontMetrics();
+            g.drawString(text, (TILE_SIZE - metrics.stringWidth(text)) / 2, TILE_SIZE / 2);
+            g.dispose();
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            ImageIO.write(image, "png", out);
+            tile = out.toByteArray();
+            offlineTile = tile;
+        }
+        return tile;
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public double getHitRatio() {
+        long total = hits.get() + misses.get();
+        return total == 0 ? 0 : (double) hits.get() / total;
+    }
+
+    public long getBytesSaved() {
+        return bytesSaved.get();
+    }
+
+    public long getBytesDownloaded() {
+        return bytesDownloaded.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public synchronized long getTotalBytes() {
+        return totalBytes;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT,
+                "DiskTileCache[%d teselas, %.1f/%.1f MB, aciertos=%.1f%%, ahorrado=%.1f MB, descargado=%.1f MB%s]",
+                index.size(), getTotalBytes() / 1048576.0, maxBytes / 1048576.0, getHitRatio() * 100,
+                getBytesSaved() / 1048576.0, getBytesDownloaded() / 1048576.0, offline ? ", sin conexión" : "");
+    }
+}
@@ -0,0 +1,295 @@
+package org.example;
+
+import org.example.WeatherService.ForecastResponse;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caché en memoria de pronósticos con expiración (TTL) y desalojo LRU.
+ *
+ * Las ciudades se normalizan (mayúsculas, acentos y espacios) y las coordenadas
+ * se redondean a una rejilla, de modo que clics cercanos comparten la misma entrada.
+ * Las entradas caducadas se conservan hasta {@code maxStaleMillis} para poder servirlas
+ * como dato antiguo ({@link #getStale}) mientras se refrescan o si la API falla.
+ * Las claves fijadas ({@link #pin}) no se desalojan por LRU.
+ */
+public class ForecastCache {
+
+    // El pronóstico de OpenWeatherMap avanza en pasos de 3 horas
+    public static final long DEFAULT_TTL_MILLIS = TimeUnit.HOURS.toMillis(3);
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+    // Un pronóstico de hasta un día de antigüedad sigue siendo útil si la API no responde
+    public static final long DEFAULT_MAX_STALE_MILLIS = TimeUnit.HOURS.toMillis(24);
+    // 0.01 grados ~ 1 km de latitud
+    public static final double DEFAULT_GRID_DEGREES = 0.01;
+
+    private final long ttlMillis;
+    private final int maxEntries;
+    private final double gridDegrees;
+    private final long maxStaleMillis;
+
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+    private final AtomicLong evictions = new AtomicLong();
+    private final AtomicLong staleHits = new AtomicLong();
+
+    // LinkedHashMap en orden de acceso: el primer elemento es el menos usado
+    private final LinkedHashMap<String, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private final Set<String> pinned = new HashSet<>();
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Cambios en el contenido de la caché. Se notifican con el bloqueo de la caché tomado, así
+     * que el listener no debe volver a llamarla.
+     */
+    public interface Listener {
+        void onPut(String key, ForecastResponse response, long expiresAt);
+
+        void onRemove(String key);
+
+        /**
+         * Entrada desalojada por LRU, no invalidada ni caducada; por defecto se trata como {@link #onRemove}
+         */
+        default void onEvict(String key) {
+            onRemove(key);
+        }
+
+        void onClear();
+    }
+
+    public ForecastCache() {
+        this(DEFAULT_TTL_MILLIS, DEFAULT_MAX_ENTRIES, DEFAULT_GRID_DEGREES);
+    }
+
+    public ForecastCache(long ttlMillis, int maxEntries, double gridDegrees) {
+        this(ttlMillis, maxEntries, gridDegrees, Math.max(ttlMillis, DEFAULT_MAX_STALE_MILLIS));
+    }
+
+    /**
+     * @param maxStaleMillis edad máxima (desde la descarga) hasta la que se guarda una entrada caducada
+     */
+    public ForecastCache(long ttlMillis, int maxEntries, double gridDegrees, long maxStaleMillis) {
+        if (ttlMillis <= 0 || maxEntries <= 0 || gridDegrees <= 0) {
+            throw new IllegalArgumentException("TTL, tamaño y rejilla deben ser positivos");
+        }
+        if (maxStaleMillis < ttlMillis) {
+            throw new IllegalArgumentException("La edad máxima de los datos antiguos no puede ser menor que el TTL");
+        }
+        this.ttlMillis = ttlMillis;
+        this.maxEntries = maxEntries;
+        this.gridDegrees = gridDegrees;
+        this.maxStaleMillis = maxStaleMillis;
+    }
+
+    /**
+     * Clave normalizada para una búsqueda por nombre de ciudad
+     */
+    public String cityKey(String city) {
+        String normalized = Normalizer.normalize(city.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+        return "q:" + normalized;
+    }
+
+    /**
+     * Clave para una búsqueda por coordenadas, redondeadas a la rejilla configurada
+     */
+    public String coordKey(double lat, double lon) {
+        long latCell = Math.round(lat / gridDegrees);
+        long lonCell = Math.round(lon / gridDegrees);
+        return "c:" + latCell + ":" + lonCell;
+    }
+
+    /**
+     * Devuelve el pronóstico si existe y no ha caducado; si no, null
+     */
+    public synchronized ForecastResponse get(String key) {
+        Entry entry = entries.get(key);
+        long now = System.currentTimeMillis();
+        if (entry == null || now >= entry.expiresAt) {
+            if (entry != null && now - entry.storedAt >= maxStaleMillis) {
+                remove(key);
+            }
+            misses.incrementAndGet();
+            return null;
+        }
+        hits.incrementAndGet();
+        return entry.response;
+    }
+
+    /**
+     * Devuelve el pronóstico aunque haya caducado, siempre que no supere la edad máxima; si no, null
+     */
+    public synchronized ForecastResponse getStale(String key) {
+        Entry entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (System.currentTimeMillis() - entry.storedAt >= maxStaleMillis) {
+            remove(key);
+            return null;
+        }
+        staleHits.incrementAndGet();
+        return entry.response;
+    }
+
+    public synchronized void put(String key, ForecastResponse response) {
+        long now = System.currentTimeMillis();
+        entries.put(key, new Entry(response, now, now + ttlMillis));
+        for (Listener listener : listeners) {
+            listener.onPut(key, response, now + ttlMillis);
+        }
+        evictIfNeeded();
+    }
+
+    /**
+     * Vuelve a cargar un pronóstico guardado (p. ej. de la sesión anterior) con su antigüedad
+     * real: caduca según {@code response.fetchedAt} y no sustituye a una entrada existente.
+     *
+     * @return false si ya había entrada o si el pronóstico supera la edad máxima
+     */
+    public synchronized boolean restore(String key, ForecastResponse response) {
+        long storedAt = response.fetchedAt;
+        if (entries.containsKey(key) || storedAt <= 0 || System.currentTimeMillis() - storedAt >= maxStaleMillis) {
+            return false;
+        }
+        entries.put(key, new Entry(response, storedAt, storedAt + ttlMillis));
+        for (Listener listener : listeners) {
+            listener.onPut(key, response, storedAt + ttlMillis);
+        }
+        evictIfNeeded();
+        return true;
+    }
+
+    /**
+     * Las {@code limit} entradas usadas más recientemente (la más reciente primero), incluidas
+     * las caducadas que aún se conservan
+     */
+    public synchronized Map<String, ForecastResponse> recent(int limit) {
+        List<Map.Entry<String, Entry>> all = new ArrayList<>(entries.entrySet());
+        Map<String, ForecastResponse> result = new LinkedHashMap<>();
+        for (int i = all.size() - 1; i >= 0 && result.size() < limit; i--) {
+            result.put(all.get(i).getKey(), all.get(i).getValue().response);
+        }
+        return result;
+    }
+
+    /**
+     * Milisegundos hasta que caduque la entrada; negativo si no está o ya ha caducado
+     */
+    public synchronized long expiresInMillis(String key) {
+        Entry entry = entries.get(key);
+        return entry == null ? -1 : entry.expiresAt - System.currentTimeMillis();
+    }
+
+    /**
+     * Excluye la clave del desalojo LRU (ubicaciones fijadas por el usuario)
+     */
+    public synchronized void pin(String key) {
+        pinned.add(key);
+    }
+
+    public synchronized void unpin(String key) {
+        if (pinned.remove(key)) {
+            evictIfNeeded();
+        }
+    }
+
+    public synchronized void invalidate(String key) {
+        remove(key);
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+        listeners.forEach(Listener::onClear);
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    private void remove(String key) {
+        if (entries.remove(key) != null) {
+            for (Listener listener : listeners) {
+                listener.onRemove(key);
+            }
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private void evictIfNeeded() {
+        Iterator<Map.Entry<String, Entry>> it = entries.entrySet().iterator();
+        while (entries.size() > maxEntries && it.hasNext()) {
+            String key = it.next().getKey();
+            if (pinned.contains(key)) {
+                continue;
+            }
+            it.remove();
+            evictions.incrementAndGet();
+            for (Listener listener : listeners) {
+                listener.onEvict(key);
+            }
+        }
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public long getEvictions() {
+        return evictions.get();
+    }
+
+    public long getStaleHits() {
+        return staleHits.get();
+    }
+
+    public long getTtlMillis() {
+        return ttlMillis;
+    }
+
+    public double getGridDegrees() {
+        return gridDegrees;
+    }
+
+    public long getMaxStaleMillis() {
+        return maxStaleMillis;
+    }
+
+    @Override
+    public String toString() {
+        return String.format(Locale.ROOT, "ForecastCache[size=%d, hits=%d, misses=%d, stale=%d, evictions=%d]",
+                size(), getHits(), getMisses(), getStaleHits(), getEvictions());
+    }
+
+    private static class Entry {
+        final ForecastResponse response;
+        final long storedAt;
+        final long expiresAt;
+
+        Entry(ForecastResponse response, long storedAt, long expiresAt) {
+            this.response = response;
+            this.storedAt = storedAt;
+            this.expiresAt = expiresAt;
+        }
+    }
+}
@@ -0,0 +1,593 @@
+package org.example;
+
+import org.example.WeatherService.ForecastItem;
+import org.example.WeatherService.ForecastResponse;
+import org.example.WeatherService.Weather;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
+
+/**
+ * Historial de todos los pronósticos descargados, en ficheros mapeados en memoria.
+ *
+ * Cada tramo de 3 horas ocupa una fila binaria de {@value #ROW_BYTES} bytes (instante de
+ * descarga, instante previsto, ubicación, temperaturas, presión, humedad, viento, probabilidad
+ * de lluvia y estado del cielo), y las ubicaciones y estados del cielo se guardan una sola vez
+ * en diccionarios. Solo se añade al final. Los segmentos se abren por día (UTC) de descarga y
+ * los que superan la retención se borran enteros. Un segmento existente nunca se vuelve a
+ * crear: una descarga que llega tarde (p. ej. terminada justo después de medianoche o tras un
+ * ajuste del reloj) se añade al segmento en curso.
+ *
+ * Solo una instancia de la aplicación puede escribir en el directorio: lo reserva con un
+ * {@link FileLock} sobre {@value #LOCK_FILE} mientras el historial está abierto.
+ *
+ * En el heap solo vive un índice de "tandas" (las filas de una misma descarga, una entrada
+ * por cada ~40 filas), así que el historial puede crecer a decenas de millones de filas sin
+ * que crezca el heap en proporción. Las consultas recorren las filas directamente sobre el
+ * fichero mapeado con un cursor ({@link Row}), sin crear objetos por fila.
+ */
+public class ForecastHistoryStore implements AutoCloseable {
+
+    public static final int DEFAULT_RETENTION_DAYS = 30;
+
+    static final int ROW_BYTES = 48;
+    private static final int HEADER_BYTES = 64;
+    // 256 Ki filas por segmento: 12 MB
+    private static final int ROWS_PER_SEGMENT = 1 << 18;
+
+    private static final int MAGIC = 0x4D4D4831; // "MMH1"
+    private static final int VERSION = 1;
+    private static final int OFFSET_ROW_COUNT = 8;
+
+    // Posiciones dentro de la fila
+    private static final int COL_FETCHED_AT = 0;
+    private static final int COL_DT = 8;
+    private static final int COL_LOCATION = 16;
+    private static final int COL_TEMP = 20;
+    private static final int COL_FEELS_LIKE = 24;
+    private static final int COL_TEMP_MIN = 28;
+    private static final int COL_TEMP_MAX = 32;
+    private static final int COL_PRESSURE = 36;
+    private static final int COL_HUMIDITY = 38;
+    private static final int COL_POP = 39;
+    private static final int COL_WIND_SPEED = 40;
+    private static final int COL_WIND_DEG = 44;
+    private static final int COL_CONDITION = 46;
+
+    private static final DateTimeFormatter DAY = DateTimeFormatter.ofPattern("yyyyMMdd");
+    private static final String LOCK_FILE = "history.lock";
+
+    private final Path directory;
+    private final int retentionDays;
+
+    private final Dictionary locations;
+    private final Dictionary conditions;
+    private final List<Segment> segments = new CopyOnWriteArrayList<>();
+    private final FileChannel lockChannel;
+    private final FileLock lock;
+
+    public ForecastHistoryStore() {
+        this(AppPaths.cacheDir("history"), DEFAULT_RETENTION_DAYS);
+    }
+
+    public ForecastHistoryStore(Path directory, int retentionDays) {
+        if (retentionDays <= 0) {
+            throw new IllegalArgumentException("La retención debe ser positiva");
+        }
+        this.directory = directory;
+        this.retentionDays = retentionDays;
+        FileChannel channel = null;
+        try {
+            Files.createDirectories(directory);
+            channel = FileChannel.open(directory.resolve(LOCK_FILE), StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+            this.lockChannel = channel;
+            this.lock = tryLock(channel);
+            if (lock == null) {
+                throw new IOException("otra instancia de la aplicación lo está usando");
+            }
+            this.locations = new Dictionary(directory.resolve("locations.tsv"));
+            this.conditions = new Dictionary(directory.resolve("conditions.tsv"));
+            openSegments();
+            enforceRetention();
+        } catch (IOException e) {
+            closeQuietly(channel);
+            throw new UncheckedIOException("No se pudo abrir el historial en " + directory, e);
+        }
+    }
+
+    /**
+     * null si el directorio ya está reservado, por otro proceso o por otro historial de este JVM
+     */
+    private static FileLock tryLock(FileChannel channel) throws IOException {
+        try {
+            return channel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            return null;
+        }
+    }
+
+    private static void closeQuietly(FileChannel channel) {
+        if (channel != null) {
+            try {
+                // Cerrar el canal libera también el bloqueo
+                channel.close();
+            } catch (IOException ignored) {
+                // Nada que hacer
+            }
+        }
+    }
+
+    /**
+     * Añade todos los tramos de una descarga. {@code locationKey} identifica la ubicación en
+     * las consultas (p. ej. la clave de {@link ForecastCache}).
+     */
+    public synchronized void append(String locationKey, ForecastResponse response) {
+        if (response == null || response.list == null || response.list.isEmpty()) {
+            return;
+        }
+        long fetchedAt = response.fetchedAt != 0 ? response.fetchedAt : System.currentTimeMillis();
+        String name = response.city != null && response.city.name != null ? response.city.name : "";
+        try {
+            int location = locations.idOf(locationKey, name);
+            Segment segment = segmentFor(fetchedAt, response.list.size());
+            int first = segment.rowCount;
+            long minDt = Long.MAX_VALUE;
+            long maxDt = Long.MIN_VALUE;
+            for (ForecastItem item : response.list) {
+                int row = segment.rowCount++;
+                writeRow(segment.buffer, HEADER_BYTES + row * ROW_BYTES, fetchedAt, location, item);
+                minDt = Math.min(minDt, item.dt);
+                maxDt = Math.max(maxDt, item.dt);
+            }
+            // El contador se publica después de escribir las filas: un lector nunca ve filas a medias
+            segment.buffer.putInt(OFFSET_ROW_COUNT, segment.rowCount);
+            segment.addRun(location, first, segment.rowCount - first, minDt, maxDt);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo escribir en el historial", e);
+        }
+    }
+
+    private void writeRow(MappedByteBuffer buffer, int offset, long fetchedAt, int location, ForecastItem item) throws IOException {
+        Weather weather = item.weather != null && !item.weather.isEmpty() ? item.weather.get(0) : null;
+        short condition = weather == null ? -1 : (short) conditions.idOf(
+                weather.icon + '\u0000' + weather.main, weather.description != null ? weather.description : "");
+        buffer.putLong(offset + COL_FETCHED_AT, fetchedAt);
+        buffer.putLong(offset + COL_DT, item.dt);
+        buffer.putInt(offset + COL_LOCATION, location);
+        buffer.putFloat(offset + COL_TEMP, item.main != null ? (float) item.main.temp : Float.NaN);
+        buffer.putFloat(offset + COL_FEELS_LIKE, item.main != null ? (float) item.main.feels_like : Float.NaN);
+        buffer.putFloat(offset + COL_TEMP_MIN, item.main != null ? (float) item.main.temp_min : Float.NaN);
+        buffer.putFloat(offset + COL_TEMP_MAX, item.main != null ? (float) item.main.temp_max : Float.NaN);
+        buffer.putShort(offset + COL_PRESSURE, item.main != null ? (short) item.main.pressure : 0);
+        buffer.put(offset + COL_HUMIDITY, item.main != null ? (byte) item.main.humidity : 0);
+        buffer.put(offset + COL_POP, (byte) Math.round(item.pop * 100));
+        buffer.putFloat(offset + COL_WIND_SPEED, item.wind != null ? (float) item.wind.speed : 0f);
+        buffer.putShort(offset + COL_WIND_DEG, item.wind != null ? (short) item.wind.deg : 0);
+        buffer.putShort(offset + COL_CONDITION, condition);
+    }
+
+    /**
+     * Recorre las filas de una ubicación con instante previsto en [fromDt, toDt] (segundos
+     * epoch), en orden de descarga. El cursor solo es válido durante la llamada.
+     *
+     * @return número de filas visitadas
+     */
+    public long query(String locationKey, long fromDt, long toDt, Consumer<Row> visitor) {
+        int location = locations.find(locationKey);
+        if (location < 0) {
+            return 0;
+        }
+        long visited = 0;
+        Row row = new Row();
+        for (Segment segment : segments) {
+            Segment.Runs runs = segment.snapshot();
+            if (runs.size == 0 || runs.segmentMaxDt < fromDt || runs.segmentMinDt > toDt) {
+                continue;
+            }
+            row.buffer = segment.buffer;
+            for (int r = 0; r < runs.size; r++) {
+                if (runs.location[r] != location || runs.maxDt[r] < fromDt || runs.minDt[r] > toDt) {
+                    continue;
+                }
+                int end = runs.firstRow[r] + runs.count[r];
+                for (int i = runs.firstRow[r]; i < end; i++) {
+                    row.offset = HEADER_BYTES + i * ROW_BYTES;
+                    long dt = row.dt();
+                    if (dt >= fromDt && dt <= toDt) {
+                        visitor.accept(row);
+                        visited++;
+                    }
+                }
+            }
+        }
+        return visited;
+    }
+
+    /**
+     * Nombre legible de una ubicación registrada; null si no existe
+     */
+    public String locationName(String locationKey) {
+        int id = locations.find(locationKey);
+        return id < 0 ? null : locations.value(id);
+    }
+
+    public long getRowCount() {
+        long rows = 0;
+        for (Segment segment : segments) {
+            rows += segment.snapshot().rows;
+        }
+        return rows;
+    }
+
+    public int getSegmentCount() {
+        return segments.size();
+    }
+
+    /**
+     * Borra los segmentos de días anteriores a la retención
+     */
+    public synchronized void enforceRetention() {
+        LocalDate oldest = LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays - 1L);
+        for (Segment segment : segments) {
+            if (segment.day.isBefore(oldest)) {
+                segments.remove(segment);
+                segment.force();
+                try {
+                    Files.deleteIfExists(segment.path);
+                } catch (IOException e) {
+                    // En Windows un fichero mapeado no se puede borrar: se reintentará al volver a abrir
+                    System.err.println("No se pudo borrar " + segment.path + ": " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    @Override
+    public synchronized void close() {
+        for (Segment segment : segments) {
+            segment.force();
+        }
+        locations.close();
+        conditions.close();
+        closeQuietly(lockChannel);
+    }
+
+    /**
+     * Segmento en el que escribir una descarga. Solo se abre uno nuevo al avanzar el día o al
+     * llenarse el último; una descarga de un día anterior al último segmento va a este (las
+     * consultas filtran por instante previsto, no por segmento).
+     */
+    private Segment segmentFor(long fetchedAt, int rows) throws IOException {
+        LocalDate day = Instant.ofEpochMilli(fetchedAt).atZone(ZoneOffset.UTC).toLocalDate();
+        Segment last = segments.isEmpty() ? null : segments.get(segments.size() - 1);
+        if (last != null && !day.isAfter(last.day)) {
+            if (last.rowCount + rows <= ROWS_PER_SEGMENT) {
+                return last;
+            }
+            day = last.day;
+        }
+        int sequence = last != null && last.day.equals(day) ? last.sequence + 1 : 0;
+        Path path = segmentPath(day, sequence);
+        while (Files.exists(path)) {
+            // Un fichero que no está en la lista (p. ej. uno que no se pudo borrar) no se pisa
+            path = segmentPath(day, ++sequence);
+        }
+        Segment segment = Segment.create(path, day, sequence);
+        segments.add(segment);
+        enforceRetention();
+        return segment;
+    }
+
+    private Path segmentPath(LocalDate day, int sequence) {
+        return directory.resolve(String.format(Locale.ROOT, "%s-%03d.seg", DAY.format(day), sequence));
+    }
+
+    private void openSegments() throws IOException {
+        List<Path> files = new ArrayList<>();
+        try (Stream<Path> paths = Files.list(directory)) {
+            paths.filter(p -> p.getFileName().toString().matches("\\d{8}-\\d{3}\\.seg")).forEach(files::add);
+        }
+        files.sort(null);
+        for (Path file : files) {
+            String name = file.getFileName().toString();
+            LocalDate day = LocalDate.parse(name.substring(0, 8), DAY);
+            int sequence = Integer.parseInt(name.substring(9, 12));
+            segments.add(Segment.open(file, day, sequence));
+        }
+    }
+
+    /**
+     * Cursor sobre una fila del fichero mapeado
+     */
+    public final class Row {
+        private MappedByteBuffer buffer;
+        private int offset;
+
+        public long fetchedAt() {
+            return buffer.getLong(offset + COL_FETCHED_AT);
+        }
+
+        public long dt() {
+            return buffer.getLong(offset + COL_DT);
+        }
+
+        public float temp() {
+            return buffer.getFloat(offset + COL_TEMP);
+        }
+
+        public float feelsLike() {
+            return buffer.getFloat(offset + COL_FEELS_LIKE);
+        }
+
+        public float tempMin() {
+            return buffer.getFloat(offset + COL_TEMP_MIN);
+        }
+
+        public float tempMax() {
+            return buffer.getFloat(offset + COL_TEMP_MAX);
+        }
+
+        public int pressure() {
+            return buffer.getShort(offset + COL_PRESSURE);
+        }
+
+        public int humidity() {
+            return buffer.get(offset + COL_HUMIDITY);
+        }
+
+        public double pop() {
+            return buffer.get(offset + COL_POP) / 100.0;
+        }
+
+        public float windSpeed() {
+            return buffer.getFloat(offset + COL_WIND_SPEED);
+        }
+
+        public int windDeg() {
+            return buffer.getShort(offset + COL_WIND_DEG);
+        }
+
+        public String icon() {
+            short code = buffer.getShort(offset + COL_CONDITION);
+            if (code < 0) return null;
+            String key = conditions.key(code);
+            return key.substring(0, key.indexOf('\u0000'));
+        }
+
+        public String description() {
+            short code = buffer.getShort(offset + COL_CONDITION);
+            return code < 0 ? null : conditions.value(code);
+        }
+    }
+
+    /**
+     * Un fichero de filas de ancho fijo con su índice de tandas en memoria
+     */
+    private static final class Segment {
+        final Path path;
+        final LocalDate day;
+        final int sequence;
+        final MappedByteBuffer buffer;
+        int rowCount;
+
+        // Índice de tandas como columnas paralelas; crecen duplicando
+        private int[] runLocation = new int[64];
+        private int[] runFirstRow = new int[64];
+        private int[] runCount = new int[64];
+        private long[] runMinDt = new long[64];
+        private long[] runMaxDt = new long[64];
+        private int runs;
+        private long minDt = Long.MAX_VALUE;
+        private long maxDt = Long.MIN_VALUE;
+
+        private Segment(Path path, LocalDate day, int sequence, MappedByteBuffer buffer) {
+            this.path = path;
+            this.day = day;
+            this.sequence = sequence;
+            this.buffer = buffer;
+        }
+
+        /**
+         * Crea un segmento vacío; falla si el fichero ya existe
+         */
+        static Segment create(Path path, LocalDate day, int sequence) throws IOException {
+            MappedByteBuffer buffer = map(path, StandardOpenOption.CREATE_NEW);
+            buffer.putInt(0, MAGIC);
+            buffer.putInt(4, VERSION);
+            buffer.putInt(OFFSET_ROW_COUNT, 0);
+            buffer.putInt(12, ROW_BYTES);
+            return new Segment(path, day, sequence, buffer);
+        }
+
+        static Segment open(Path path, LocalDate day, int sequence) throws IOException {
+            MappedByteBuffer buffer = map(path, StandardOpenOption.READ);
+            if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(12) != ROW_BYTES) {
+                throw new IOException("Segmento de historial no reconocido: " + path);
+            }
+            Segment segment = new Segment(path, day, sequence, buffer);
+            segment.rebuildIndex(Math.min(buffer.getInt(OFFSET_ROW_COUNT), ROWS_PER_SEGMENT));
+            return segment;
+        }
+
+        private static MappedByteBuffer map(Path path, StandardOpenOption mode) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, mode, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+                // El mapeo sigue siendo válido después de cerrar el canal
+                MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, HEADER_BYTES + (long) ROWS_PER_SEGMENT * ROW_BYTES);
+                buffer.order(ByteOrder.LITTLE_ENDIAN);
+                return buffer;
+            }
+        }
+
+        /**
+         * Reconstruye las tandas recorriendo las filas: una tanda es una racha de filas con la
+         * misma ubicación e instante de descarga
+         */
+        private void rebuildIndex(int rows) {
+            int start = 0;
+            for (int i = 1; i <= rows; i++) {
+                int offset = HEADER_BYTES + i * ROW_BYTES;
+                int startOffset = HEADER_BYTES + start * ROW_BYTES;
+                boolean sameRun = i < rows
+                        && buffer.getInt(offset + COL_LOCATION) == buffer.getInt(startOffset + COL_LOCATION)
+                        && buffer.getLong(offset + COL_FETCHED_AT) == buffer.getLong(startOffset + COL_FETCHED_AT);
+                if (!sameRun) {
+                    long runMin = Long.MAX_VALUE;
+                    long runMax = Long.MIN_VALUE;
+                    for (int r = start; r < i; r++) {
+                        long dt = buffer.getLong(HEADER_BYTES + r * ROW_BYTES + COL_DT);
+                        runMin = Math.min(runMin, dt);
+                        runMax = Math.max(runMax, dt);
+                    }
+                    addRun(buffer.getInt(startOffset + COL_LOCATION), start, i - start, runMin, runMax);
+                    start = i;
+                }
+            }
+            rowCount = rows;
+        }
+
+        synchronized void addRun(int location, int firstRow, int count, long runMin, long runMax) {
+            if (runs == runLocation.length) {
+                int capacity = runs * 2;
+                runLocation = Arrays.copyOf(runLocation, capacity);
+                runFirstRow = Arrays.copyOf(runFirstRow, capacity);
+                runCount = Arrays.copyOf(runCount, capacity);
+                runMinDt = Arrays.copyOf(runMinDt, capacity);
+                runMaxDt = Arrays.copyOf(runMaxDt, capacity);
+            }
+            runLocation[runs] = location;
+            runFirstRow[runs] = firstRow;
+            runCount[runs] = count;
+            runMinDt[runs] = runMin;
+            runMaxDt[runs] = runMax;
+            runs++;
+            minDt = Math.min(minDt, runMin);
+            maxDt = Math.max(maxDt, runMax);
+        }
+
+        /**
+         * Vista coherente del índice: los arrays solo se amplían copiando, así que las
+         * posiciones anteriores a {@code size} no cambian después
+         */
+        synchronized Runs snapshot() {
+            int rows = runs == 0 ? 0 : runFirstRow[runs - 1] + runCount[runs - 1];
+            return new Runs(runLocation, runFirstRow, runCount, runMinDt, runMaxDt, runs, minDt, maxDt, rows);
+        }
+
+        void force() {
+            buffer.force();
+        }
+
+        record Runs(int[] location, int[] firstRow, int[] count, long[] minDt, long[] maxDt,
+                    int size, long segmentMinDt, long segmentMaxDt, int rows) {
+        }
+    }
+
+    /**
+     * Diccionario persistente cadena -> id, añadido al final de un fichero de texto
+     * (id, clave y valor separados por tabuladores)
+     */
+    private static final class Dictionary {
+        private final Path file;
+        private final Map<String, Integer> ids = new HashMap<>();
+        private final List<String> keys = new ArrayList<>();
+        private final List<String> values = new ArrayList<>();
+        private BufferedWriter writer;
+
+        Dictionary(Path file) throws IOException {
+            this.file = file;
+            if (Files.exists(file)) {
+                for (String line : Files.readAllLines(file, StandardCharsets.UTF_8)) {
+                    String[] parts = line.split("\t", 3);
+                    if (parts.length == 3 && Integer.parseInt(parts[0]) == keys.size()) {
+                        String key = unescape(parts[1]);
+                        ids.put(key, keys.size());
+                        keys.add(key);
+                        values.add(unescape(parts[2]));
+                    }
+                }
+            }
+        }
+
+        synchronized int find(String key) {
+            Integer id = ids.get(key);
+            return id != null ? id : -1;
+        }
+
+        synchronized String key(int id) {
+            return keys.get(id);
+        }
+
+        synchronized String value(int id) {
+            return values.get(id);
+        }
+
+        synchronized int idOf(String key, String value) throws IOException {
+            Integer id = ids.get(key);
+            if (id != null) {
+                return id;
+            }
+            int next = keys.size();
+            if (writer == null) {
+                writer = Files.newBufferedWriter(file, StandardCharsets.UTF_8, StandardOpenOption.CREATE, StandardOpenOption.APPEND);
+            }
+            writer.write(next + "\t" + escape(key) + "\t" + escape(value) + "\n");
+            writer.flush();
+            ids.put(key, next);
+            keys.add(key);
+            values.add(value);
+            return next;
+        }
+
+        synchronized void close() {
+            if (writer != null) {
+                try {
+                    writer.close();
+                } catch (IOException ignored) {
+                    // Ya se vació tras cada línea
+                }
+                writer = null;
+            }
+        }
+
+        private static String escape(String s) {
+            return s.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+        }
+
+        private static String unescape(String s) {
+            StringBuilder sb = new StringBuilder(s.length());
+            for (int i = 0; i < s.length(); i++) {
+                char c = s.charAt(i);
+                if (c == '\\' && i + 1 < s.length()) {
+                    char next = s.charAt(++i);
+                    sb.append(next == 't' ? '\t' : next == 'n' ? '\n' : next);
+                } else {
+                    sb.append(c);
+                }
+            }
+            return sb.toString();
+        }
+    }
+}
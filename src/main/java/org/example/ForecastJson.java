@@ -0,0 +1,275 @@
+package org.example;
+
+import com.google.gson.Gson;
+import com.google.gson.GsonBuilder;
+import com.google.gson.TypeAdapter;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
+import com.google.gson.stream.JsonWriter;
+import org.example.WeatherService.City;
+import org.example.WeatherService.Coord;
+import org.example.WeatherService.ForecastItem;
+import org.example.WeatherService.ForecastResponse;
+import org.example.WeatherService.Main;
+import org.example.WeatherService.Weather;
+import org.example.WeatherService.Wind;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Decodificador en streaming de la respuesta /forecast de OpenWeatherMap.
+ *
+ * Lee directamente del InputStream de la respuesta con {@link JsonReader}, sin copiar
+ * el cuerpo a un String, y salta los campos que la aplicación no usa.
+ */
+public final class ForecastJson {
+
+    private static final TypeAdapter<ForecastResponse> ADAPTER = new ForecastResponseAdapter();
+
+    // Instancia compartida: Gson es thread-safe una vez construido
+    private static final Gson GSON = new GsonBuilder()
+            .registerTypeAdapter(ForecastResponse.class, ADAPTER)
+            .create();
+
+    private ForecastJson() {
+    }
+
+    public static Gson gson() {
+        return GSON;
+    }
+
+    public static ForecastResponse read(InputStream in) throws IOException {
+        return read(new InputStreamReader(in, StandardCharsets.UTF_8));
+    }
+
+    public static ForecastResponse read(Reader reader) throws IOException {
+        JsonReader json = new JsonReader(reader);
+        if (json.peek() == JsonToken.NULL) {
+            json.nextNull();
+            return null;
+        }
+        return ADAPTER.read(json);
+    }
+
+    public static String toJson(ForecastResponse response) {
+        return ADAPTER.toJson(response);
+    }
+
+    private static final class ForecastResponseAdapter extends TypeAdapter<ForecastResponse> {
+
+        @Override
+        public ForecastResponse read(JsonReader in) throws IOException {
+            ForecastResponse response = new ForecastResponse();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "list" -> response.list = readItems(in);
+                    case "city" -> response.city = readCity(in);
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return response;
+        }
+
+        private List<ForecastItem> readItems(JsonReader in) throws IOException {
+            if (skipIfNull(in)) return null;
+            // La API devuelve 40 tramos de 3 horas
+            List<ForecastItem> items = new ArrayList<>(40);
+            in.beginArray();
+            while (in.hasNext()) {
+                items.add(readItem(in));
+            }
+            in.endArray();
+            return items;
+        }
+
+        private ForecastItem readItem(JsonReader in) throws IOException {
+            ForecastItem item = new ForecastItem();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "dt" -> item.dt = in.nextLong();
+                    case "main" -> item.main = readMain(in);
+                    case "weather" -> item.weather = readWeatherList(in);
+                    case "wind" -> item.wind = readWind(in);
+                    case "pop" -> item.pop = in.nextDouble();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return item;
+        }
+
+        private Main readMain(JsonReader in) throws IOException {
+            if (skipIfNull(in)) return null;
+            Main main = new Main();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "temp" -> main.temp = in.nextDouble();
+                    case "feels_like" -> main.feels_like = in.nextDouble();
+                    case "temp_min" -> main.temp_min = in.nextDouble();
+                    case "temp_max" -> main.temp_max = in.nextDouble();
+                    case "pressure" -> main.pressure = in.nextInt();
+                    case "humidity" -> main.humidity = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return main;
+        }
+
+        private List<Weather> readWeatherList(JsonReader in) throws IOException {
+            if (skipIfNull(in)) return null;
+            List<Weather> list = new ArrayList<>(1);
+            in.beginArray();
+            while (in.hasNext()) {
+                Weather weather = new Weather();
+                in.beginObject();
+                while (in.hasNext()) {
+                    switch (in.nextName()) {
+                        case "main" -> weather.main = nextStringOrNull(in);
+                        case "description" -> weather.description = nextStringOrNull(in);
+                        case "icon" -> weather.icon = nextStringOrNull(in);
+                        default -> in.skipValue();
+                    }
+                }
+                in.endObject();
+                list.add(weather);
+            }
+            in.endArray();
+            return list;
+        }
+
+        private Wind readWind(JsonReader in) throws IOException {
+            if (skipIfNull(in)) return null;
+            Wind wind = new Wind();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "speed" -> wind.speed = in.nextDouble();
+                    case "deg" -> wind.deg = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return wind;
+        }
+
+        private City readCity(JsonReader in) throws IOException {
+            if (skipIfNull(in)) return null;
+            City city = new City();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "name" -> city.name = nextStringOrNull(in);
+                    case "country" -> city.country = nextStringOrNull(in);
+                    case "coord" -> city.coord = readCoord(in);
+                    case "timezone" -> city.timezone = in.nextInt();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return city;
+        }
+
+        private Coord readCoord(JsonReader in) throws IOException {
+            if (skipIfNull(in)) return null;
+            Coord coord = new Coord();
+            in.beginObject();
+            while (in.hasNext()) {
+                switch (in.nextName()) {
+                    case "lat" -> coord.lat = in.nextDouble();
+                    case "lon" -> coord.lon = in.nextDouble();
+                    default -> in.skipValue();
+                }
+            }
+            in.endObject();
+            return coord;
+        }
+
+        private static boolean skipIfNull(JsonReader in) throws IOException {
+            if (in.peek() == JsonToken.NULL) {
+                in.nextNull();
+                return true;
+            }
+            return false;
+        }
+
+        private static String nextStringOrNull(JsonReader in) throws IOException {
+            return skipIfNull(in) ? null : in.nextString();
+        }
+
+        @Override
+        public void write(JsonWriter out, ForecastResponse response) throws IOException {
+            if (response == null) {
+                out.nullValue();
+                return;
+            }
+            out.beginObject();
+            if (response.list != null) {
+                out.name("list").beginArray();
+                for (ForecastItem item : response.list) {
+                    writeItem(out, item);
+                }
+                out.endArray();
+            }
+            if (response.city != null) {
+                City city = response.city;
+                out.name("city").beginObject();
+                out.name("name").value(city.name);
+                out.name("country").value(city.country);
+                out.name("timezone").value(city.timezone);
+                if (city.coord != null) {
+                    out.name("coord").beginObject()
+                            .name("lat").value(city.coord.lat)
+                            .name("lon").value(city.coord.lon)
+                            .endObject();
+                }
+                out.endObject();
+            }
+            out.endObject();
+        }
+
+        private void writeItem(JsonWriter out, ForecastItem item) throws IOException {
+            out.beginObject();
+            out.name("dt").value(item.dt);
+            if (item.main != null) {
+                out.name("main").beginObject()
+                        .name("temp").value(item.main.temp)
+                        .name("feels_like").value(item.main.feels_like)
+                        .name("temp_min").value(item.main.temp_min)
+                        .name("temp_max").value(item.main.temp_max)
+                        .name("pressure").value(item.main.pressure)
+                        .name("humidity").value(item.main.humidity)
+                        .endObject();
+            }
+            if (item.weather != null) {
+                out.name("weather").beginArray();
+                for (Weather weather : item.weather) {
+                    out.beginObject()
+                            .name("main").value(weather.main)
+                            .name("description").value(weather.description)
+                            .name("icon").value(weather.icon)
+                            .endObject();
+                }
+                out.endArray();
+            }
+            if (item.wind != null) {
+                out.name("wind").beginObject()
+                        .name("speed").value(item.wind.speed)
+                        .name("deg").value(item.wind.deg)
+                        .endObject();
+            }
+            out.name("pop").value(item.pop);
+            out.endObject();
+        }
+    }
+}
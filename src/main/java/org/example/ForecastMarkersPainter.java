@@ -0,0 +1,360 @@
+package org.example;
+
+import org.example.WeatherService.ForecastItem;
+import org.example.WeatherService.ForecastResponse;
+import org.jxmapviewer.JXMapViewer;
+import org.jxmapviewer.painter.Painter;
+import org.jxmapviewer.viewer.GeoPosition;
+import org.jxmapviewer.viewer.TileFactory;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.Rectangle;
+import java.awt.RenderingHints;
+import java.awt.geom.Point2D;
+import java.awt.image.BufferedImage;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Capa del mapa con un marcador (icono + temperatura) por cada ubicación consultada.
+ *
+ * Los marcadores se agrupan en una rejilla de {@value #CLUSTER_CELL_PX} px en coordenadas de
+ * mundo del nivel de zoom actual. Como esas coordenadas no cambian al desplazar el mapa, la
+ * proyección y el agrupado solo se recalculan al cambiar el zoom o los datos; cada repintado
+ * se limita a descartar los grupos fuera de la vista y copiar su imagen, que se prerenderiza
+ * una vez y se guarda en una caché LRU. Se alimenta de {@link ForecastCache} como listener.
+ *
+ * Guarda su propio conjunto de sitios (última temperatura e icono de cada clave), de hasta
+ * {@value #MAX_SITES}: lo que la caché desaloja por LRU sigue en el mapa, así que no se limita
+ * a las {@value ForecastCache#DEFAULT_MAX_ENTRIES} entradas de la caché. Sí se quitan las
+ * invalidadas y, como en {@link ForecastSpatialIndex}, las caducadas: al caducar la primera se
+ * vuelve a agrupar.
+ */
+public class ForecastMarkersPainter implements Painter<JXMapViewer>, ForecastCache.Listener {
+
+    private static final int CLUSTER_CELL_PX = 64;
+    private static final int ICON_SIZE = 28;
+    private static final int MAX_GLYPHS = 1024;
+    // Lo mayor medido en MarkerPaintBenchmark; por encima se olvida el sitio actualizado hace más tiempo
+    private static final int MAX_SITES = 20_000;
+
+    private static final Color COLOR_FONDO = new Color(255, 255, 255, 230);
+    private static final Color COLOR_BORDE = new Color(0, 86, 179);
+    private static final Color COLOR_TEXTO = new Color(33, 37, 41);
+    private static final Color COLOR_GRUPO = new Color(0, 123, 255);
+    private static final Font FONT_TEMP = new Font("Arial", Font.BOLD, 12);
+    private static final Font FONT_COUNT = new Font("Arial", Font.BOLD, 10);
+
+    private final WeatherIconCache iconCache;
+    private Runnable changeListener = () -> { };
+    private final AtomicBoolean changePending = new AtomicBoolean();
+
+    // Datos: clave de caché -> sitio, el actualizado más recientemente al final (se modifican desde los hilos HTTP)
+    private final Map<String, Site> sites = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, Site> eldest) {
+            return size() > MAX_SITES;
+        }
+    };
+    private int dataVersion;
+
+    // Agrupado para un zoom y versión de datos concretos (solo en el EDT)
+    private TileFactory layoutFactory;
+    private int layoutZoom = -1;
+    private int layoutVersion = -1;
+    // Caducidad más próxima de los sitios agrupados: a partir de ahí hay que reagrupar
+    private long layoutExpiresAt;
+    private Cluster[] clusters = new Cluster[0];
+
+    private final Map<String, BufferedImage> glyphs = new LinkedHashMap<>(256, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, BufferedImage> eldest) {
+            return size() > MAX_GLYPHS;
+        }
+    };
+
+    public ForecastMarkersPainter(WeatherIconCache iconCache) {
+        this.iconCache = iconCache;
+    }
+
+    /**
+     * Acción al cambiar los datos (normalmente repintar el mapa). Varios cambios seguidos
+     * producen una sola llamada hasta que se vuelve a pintar.
+     */
+    public void setChangeListener(Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Descarta las imágenes prerenderizadas (p. ej. al terminar de cargar un icono)
+     */
+    public void clearGlyphs() {
+        glyphs.clear();
+    }
+
+    public synchronized int getSiteCount() {
+        return sites.size();
+    }
+
+    @Override
+    public void onPut(String key, ForecastResponse response, long expiresAt) {
+        if (response.city == null || response.city.coord == null || response.list == null || response.list.isEmpty()) {
+            return;
+        }
+        ForecastItem now = response.list.get(0);
+        String icon = now.weather != null && !now.weather.isEmpty() ? now.weather.get(0).icon : null;
+        double temp = now.main != null ? now.main.temp : Double.NaN;
+        synchronized (this) {
+            sites.put(key, new Site(response.city.coord.lat, response.city.coord.lon, temp, icon, expiresAt));
+            dataVersion++;
+        }
+        fireChanged();
+    }
+
+    @Override
+    public void onRemove(String key) {
+        synchronized (this) {
+            if (sites.remove(key) == null) {
+                return;
+            }
+            dataVersion++;
+        }
+        fireChanged();
+    }
+
+    /**
+     * Lo que la caché desaloja por falta de sitio se sigue mostrando hasta que caduque
+     */
+    @Override
+    public void onEvict(String key) {
+    }
+
+    @Override
+    public void onClear() {
+        synchronized (this) {
+            sites.clear();
+            dataVersion++;
+        }
+        fireChanged();
+    }
+
+    private void fireChanged() {
+        if (changePending.compareAndSet(false, true)) {
+            changeListener.run();
+        }
+    }
+
+    @Override
+    public void paint(Graphics2D g, JXMapViewer map, int width, int height) {
+        changePending.set(false);
+        int zoom = map.getZoom();
+        TileFactory factory = map.getTileFactory();
+        updateLayout(factory, zoom);
+        if (clusters.length == 0) {
+            return;
+        }
+
+        Rectangle viewport = map.getViewportBounds();
+        Graphics2D g2 = (Graphics2D) g.create();
+        try {
+            g2.translate(-viewport.x, -viewport.y);
+            int margin = CLUSTER_CELL_PX;
+            int minX = viewport.x - margin;
+            int maxX = viewport.x + viewport.width + margin;
+            int minY = viewport.y - margin;
+            int maxY = viewport.y + viewport.height + margin;
+            for (Cluster cluster : clusters) {
+                if (cluster.x < minX || cluster.x > maxX || cluster.y < minY || cluster.y > maxY) {
+                    continue;
+                }
+                BufferedImage glyph = glyph(cluster);
+                g2.drawImage(glyph, cluster.x - glyph.getWidth() / 2, cluster.y - glyph.getHeight() / 2, null);
+            }
+        } finally {
+            g2.dispose();
+        }
+    }
+
+    /**
+     * Proyecta y agrupa los sitios si ha cambiado el zoom, el proveedor de teselas o los datos
+     */
+    private void updateLayout(TileFactory factory, int zoom) {
+        long now = System.currentTimeMillis();
+        Site[] snapshot;
+        int version;
+        synchronized (this) {
+            if (factory == layoutFactory && zoom == layoutZoom && dataVersion == layoutVersion && now < layoutExpiresAt) {
+                return;
+            }
+            // Los caducados se olvidan: si la caché los refresca vuelven con onPut
+            sites.values().removeIf(site -> site.expiresAt <= now);
+            snapshot = sites.values().toArray(new Site[0]);
+            version = dataVersion;
+        }
+
+        long expiresAt = Long.MAX_VALUE;
+        Map<Long, ClusterBuilder> cells = new HashMap<>(snapshot.length * 2);
+        for (Site site : snapshot) {
+            expiresAt = Math.min(expiresAt, site.expiresAt);
+            Point2D p = factory.geoToPixel(new GeoPosition(site.lat, site.lon), zoom);
+            long cellX = (long) Math.floor(p.getX() / CLUSTER_CELL_PX);
+            long cellY = (long) Math.floor(p.getY() / CLUSTER_CELL_PX);
+            cells.computeIfAbsent((cellX << 32) | (cellY & 0xffffffffL), id -> new ClusterBuilder()).add(site, p);
+        }
+
+        Cluster[] result = new Cluster[cells.size()];
+        int i = 0;
+        for (ClusterBuilder builder : cells.values()) {
+            result[i++] = builder.build();
+        }
+        clusters = result;
+        layoutFactory = factory;
+        layoutZoom = zoom;
+        layoutVersion = version;
+        layoutExpiresAt = expiresAt;
+    }
+
+    private BufferedImage glyph(Cluster cluster) {
+        String count = cluster.count == 1 ? "" : cluster.count > 99 ? "99+" : String.valueOf(cluster.count);
+        String temp = Double.isNaN(cluster.temp) ? "--" : Math.round(cluster.temp) + "°";
+        String key = cluster.icon + '|' + temp + '|' + count;
+        BufferedImage glyph = glyphs.get(key);
+        if (glyph == null) {
+            glyph = renderGlyph(cluster.icon, temp, count);
+            glyphs.put(key, glyph);
+        }
+        return glyph;
+    }
+
+    private BufferedImage renderGlyph(String iconCode, String temp, String count) {
+        Graphics2D measure = new BufferedImage(1, 1, BufferedImage.TYPE_INT_ARGB).createGraphics();
+        FontMetrics tempMetrics = measure.getFontMetrics(FONT_TEMP);
+        measure.dispose();
+        int textWidth = tempMetrics.stringWidth(temp);
+        int badge = count.isEmpty() ? 0 : 8 + count.length() * 6;
+        int width = 4 + ICON_SIZE + textWidth + 8 + badge;
+        int height = ICON_SIZE + 4;
+
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = image.createGraphics();
+        try {
+            g.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(COLOR_FONDO);
+            g.fillRoundRect(0, 0, width - 1, height - 1, height, height);
+            g.setColor(count.isEmpty() ? COLOR_BORDE : COLOR_GRUPO);
+            g.drawRoundRect(0, 0, width - 1, height - 1, height, height);
+
+            Image icon = iconCode != null && iconCache != null ? iconCache.image(iconCode, ICON_SIZE) : null;
+            if (icon != null) {
+                g.drawImage(icon, 4, 2, null);
+            }
+
+            g.setFont(FONT_TEMP);
+            g.setColor(COLOR_TEXTO);
+            int baseline = (height + tempMetrics.getAscent() - tempMetrics.getDescent()) / 2;
+            g.drawString(temp, 4 + ICON_SIZE, baseline);
+
+            if (badge > 0) {
+                int bx = width - badge - 2;
+                g.setColor(COLOR_GRUPO);
+                g.fillRoundRect(bx, 6, badge, height - 12, height - 12, height - 12);
+                g.setFont(FONT_COUNT);
+                g.setColor(Color.WHITE);
+                FontMetrics countMetrics = g.getFontMetrics();
+                g.drawString(count, bx + (badge - countMetrics.stringWidth(count)) / 2,
+                        (height + countMetrics.getAscent() - countMetrics.getDescent()) / 2);
+            }
+        } finally {
+            g.dispose();
+        }
+        return image;
+    }
+
+    private static final class Site {
+        final double lat;
+        final double lon;
+        final double temp;
+        final String icon;
+        final long expiresAt;
+
+        Site(double lat, double lon, double temp, String icon, long expiresAt) {
+            this.lat = lat;
+            this.lon = lon;
+            this.temp = temp;
+            this.icon = icon;
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Grupo ya calculado: posición en píxeles de mundo, temperatura media y condición más frecuente
+     */
+    private static final class Cluster {
+        final int x;
+        final int y;
+        final int count;
+        final double temp;
+        final String icon;
+
+        Cluster(int x, int y, int count, double temp, String icon) {
+            this.x = x;
+            this.y = y;
+            this.count = count;
+            this.temp = temp;
+            this.icon = icon;
+        }
+    }
+
+    private static final class ClusterBuilder {
+        double sumX;
+        double sumY;
+        double sumTemp;
+        int tempCount;
+        int count;
+        Map<String, Integer> icons;
+        String firstIcon;
+
+        void add(Site site, Point2D p) {
+            sumX += p.getX();
+            sumY += p.getY();
+            count++;
+            if (!Double.isNaN(site.temp)) {
+                sumTemp += site.temp;
+                tempCount++;
+            }
+            if (site.icon != null) {
+                if (firstIcon == null) {
+                    firstIcon = site.icon;
+                } else {
+                    if (icons == null) {
+                        icons = new HashMap<>();
+                        icons.put(firstIcon, 1);
+                    }
+                    icons.merge(site.icon, 1, Integer::sum);
+                }
+            }
+        }
+
+        Cluster build() {
+            String icon = firstIcon;
+            if (icons != null) {
+                int best = 0;
+                for (Map.Entry<String, Integer> e : icons.entrySet()) {
+                    if (e.getValue() > best) {
+                        best = e.getValue();
+                        icon = e.getKey();
+                    }
+                }
+            }
+            double temp = tempCount == 0 ? Double.NaN : sumTemp / tempCount;
+            return new Cluster((int) Math.round(sumX / count), (int) Math.round(sumY / count), count, temp, icon);
+        }
+    }
+}
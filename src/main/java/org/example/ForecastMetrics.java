@@ -0,0 +1,399 @@
+package org.example;
+
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.io.PrintStream;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Métricas del flujo de un pronóstico: tiempos por etapa y contadores.
+ *
+ * Cada etapa tiene un {@link LatencyHistogram}; medir es tomar {@link System#nanoTime()} al
+ * empezar y llamar a {@link #record(Stage, long)} al terminar. Se publican por JMX
+ * ({@code org.example:type=ForecastMetrics}, una MXBean más por etapa, visibles en jconsole)
+ * y, si se define {@value #DUMP_PROPERTY} con un periodo en segundos, se vuelcan como texto
+ * en la salida de error.
+ */
+public final class ForecastMetrics {
+
+    public static final String DUMP_PROPERTY = "meteomap.metrics.dump";
+    public static final String OBJECT_NAME = "org.example:type=ForecastMetrics";
+
+    private static final ForecastMetrics GLOBAL = createGlobal();
+
+    /**
+     * Etapas medidas. El cliente HTTP del JDK no separa la conexión del tiempo hasta el primer
+     * byte, así que ambas van juntas en {@link #HTTP_HEADERS}.
+     */
+    public enum Stage {
+        HTTP_HEADERS("Conexión y espera hasta las cabeceras"),
+        DOWNLOAD("Descarga del cuerpo"),
+        PARSE("Decodificación JSON"),
+        REQUEST("Petición HTTP completa"),
+        AGGREGATION("Agrupación por días y filas por horas"),
+        UI_BUILD("Construcción de los paneles"),
+        UI_LAYOUT("Maquetación y pintado Swing");
+
+        private final String description;
+
+        Stage(String description) {
+            this.description = description;
+        }
+
+        public String getDescription() {
+            return description;
+        }
+    }
+
+    /**
+     * Atributos generales visibles en jconsole
+     */
+    public interface PipelineMXBean {
+        long getHttpRequests();
+
+        long getNetworkErrors();
+
+        Map<String, Long> getResponsesByStatus();
+
+        long getBytesReceived();
+
+        long getCacheHits();
+
+        long getCacheMisses();
+
+        long getCoalescedRequests();
+
+        long getRetries();
+
+        long getCircuitRejections();
+
+        long getStaleServed();
+
+        long getNearbyHits();
+
+        String getSummary();
+
+        void resetStages();
+    }
+
+    /**
+     * Latencias de una etapa, en milisegundos
+     */
+    public interface StageMXBean {
+        String getDescription();
+
+        long getCount();
+
+        double getMeanMillis();
+
+        double getP50Millis();
+
+        double getP90Millis();
+
+        double getP99Millis();
+
+        double getP999Millis();
+
+        double getMaxMillis();
+
+        void reset();
+    }
+
+    private final Map<Stage, LatencyHistogram> stages = new EnumMap<>(Stage.class);
+    private final LongAdder httpRequests = new LongAdder();
+    private final LongAdder networkErrors = new LongAdder();
+    private final Map<Integer, LongAdder> responsesByStatus = new ConcurrentHashMap<>();
+    private final LongAdder bytesReceived = new LongAdder();
+    private final LongAdder cacheHits = new LongAdder();
+    private final LongAdder cacheMisses = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder circuitRejections = new LongAdder();
+    private final LongAdder staleServed = new LongAdder();
+    private final LongAdder nearbyHits = new LongAdder();
+
+    private ScheduledExecutorService dumper;
+
+    public ForecastMetrics() {
+        for (Stage stage : Stage.values()) {
+            stages.put(stage, new LatencyHistogram());
+        }
+    }
+
+    /**
+     * Instancia compartida por toda la aplicación (la que se publica por JMX)
+     */
+    public static ForecastMetrics global() {
+        return GLOBAL;
+    }
+
+    private static ForecastMetrics createGlobal() {
+        ForecastMetrics metrics = new ForecastMetrics();
+        metrics.registerMBeans();
+        String period = System.getProperty(DUMP_PROPERTY);
+        if (period != null && !period.isBlank()) {
+            try {
+                metrics.startPeriodicDump(Duration.ofSeconds(Long.parseLong(period.trim())), System.err);
+            } catch (IllegalArgumentException e) {
+                System.err.println("Valor no válido para " + DUMP_PROPERTY + ": " + period);
+            }
+        }
+        return metrics;
+    }
+
+    public void record(Stage stage, long startNanos) {
+        stages.get(stage).recordNanos(System.nanoTime() - startNanos);
+    }
+
+    public void recordNanos(Stage stage, long nanos) {
+        stages.get(stage).recordNanos(nanos);
+    }
+
+    public LatencyHistogram histogram(Stage stage) {
+        return stages.get(stage);
+    }
+
+    public void httpRequest() {
+        httpRequests.increment();
+    }
+
+    public void networkError() {
+        networkErrors.increment();
+    }
+
+    public void responseStatus(int status) {
+        responsesByStatus.computeIfAbsent(status, s -> new LongAdder()).increment();
+    }
+
+    public void bytesReceived(long bytes) {
+        bytesReceived.add(bytes);
+    }
+
+    public void cacheHit() {
+        cacheHits.increment();
+    }
+
+    public void cacheMiss() {
+        cacheMisses.increment();
+    }
+
+    public void coalesced() {
+        coalesced.increment();
+    }
+
+    public void retry() {
+        retries.increment();
+    }
+
+    public void circuitRejected() {
+        circuitRejections.increment();
+    }
+
+    public void staleServed() {
+        staleServed.increment();
+    }
+
+    public void nearbyHit() {
+        nearbyHits.increment();
+    }
+
+    /**
+     * Resumen de todas las etapas y contadores en texto
+     */
+    public String dump() {
+        StringBuilder sb = new StringBuilder(1024);
+        sb.append(String.format(Locale.ROOT, "%-14s %8s %9s %9s %9s %9s %9s%n",
+                "etapa (ms)", "n", "media", "p50", "p99", "p999", "max"));
+        for (Stage stage : Stage.values()) {
+            LatencyHistogram h = stages.get(stage);
+            sb.append(String.format(Locale.ROOT, "%-14s %8d %9.2f %9.2f %9.2f %9.2f %9.2f%n",
+                    stage.name().toLowerCase(Locale.ROOT), h.getCount(), h.getMeanMillis(),
+                    h.percentileMillis(0.50), h.percentileMillis(0.99), h.percentileMillis(0.999), h.getMaxMillis()));
+        }
+        sb.append(String.format(Locale.ROOT,
+                "peticiones=%d errores_red=%d respuestas=%s bytes=%d cache_aciertos=%d cache_fallos=%d unidas=%d"
+                        + " reintentos=%d cortocircuito=%d antiguos=%d cercanos=%d",
+                httpRequests.sum(), networkErrors.sum(), statusSnapshot(), bytesReceived.sum(),
+                cacheHits.sum(), cacheMisses.sum(), coalesced.sum(),
+                retries.sum(), circuitRejections.sum(), staleServed.sum(), nearbyHits.sum()));
+        return sb.toString();
+    }
+
+    /**
+     * Vuelca {@link #dump()} cada {@code period} en un hilo demonio
+     */
+    public synchronized void startPeriodicDump(Duration period, PrintStream out) {
+        if (period.isZero() || period.isNegative()) {
+            throw new IllegalArgumentException("El periodo debe ser positivo");
+        }
+        stopPeriodicDump();
+        dumper = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "forecast-metrics-dump");
+            t.setDaemon(true);
+            return t;
+        });
+        DateTimeFormatter time = DateTimeFormatter.ofPattern("HH:mm:ss");
+        dumper.scheduleAtFixedRate(() -> out.println("--- Métricas " + time.format(LocalTime.now()) + " ---\n" + dump()),
+                period.toMillis(), period.toMillis(), TimeUnit.MILLISECONDS);
+    }
+
+    public synchronized void stopPeriodicDump() {
+        if (dumper != null) {
+            dumper.shutdownNow();
+            dumper = null;
+        }
+    }
+
+    private Map<String, Long> statusSnapshot() {
+        Map<String, Long> snapshot = new TreeMap<>();
+        responsesByStatus.forEach((status, count) -> snapshot.put(String.valueOf(status), count.sum()));
+        return snapshot;
+    }
+
+    private void registerMBeans() {
+        try {
+            MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+            server.registerMBean(new Pipeline(), new ObjectName(OBJECT_NAME));
+            for (Stage stage : Stage.values()) {
+                ObjectName name = new ObjectName(OBJECT_NAME + ",stage=" + stage.name().toLowerCase(Locale.ROOT));
+                server.registerMBean(new StageBean(stage), name);
+            }
+        } catch (JMException | SecurityException e) {
+            // Sin JMX las métricas siguen disponibles con dump()
+            System.err.println("No se pudieron registrar las métricas JMX: " + e.getMessage());
+        }
+    }
+
+    private final class Pipeline implements PipelineMXBean {
+        @Override
+        public long getHttpRequests() {
+            return httpRequests.sum();
+        }
+
+        @Override
+        public long getNetworkErrors() {
+            return networkErrors.sum();
+        }
+
+        @Override
+        public Map<String, Long> getResponsesByStatus() {
+            return statusSnapshot();
+        }
+
+        @Override
+        public long getBytesReceived() {
+            return bytesReceived.sum();
+        }
+
+        @Override
+        public long getCacheHits() {
+            return cacheHits.sum();
+        }
+
+        @Override
+        public long getCacheMisses() {
+            return cacheMisses.sum();
+        }
+
+        @Override
+        public long getCoalescedRequests() {
+            return coalesced.sum();
+        }
+
+        @Override
+        public long getRetries() {
+            return retries.sum();
+        }
+
+        @Override
+        public long getCircuitRejections() {
+            return circuitRejections.sum();
+        }
+
+        @Override
+        public long getStaleServed() {
+            return staleServed.sum();
+        }
+
+        @Override
+        public long getNearbyHits() {
+            return nearbyHits.sum();
+        }
+
+        @Override
+        public String getSummary() {
+            return dump();
+        }
+
+        @Override
+        public void resetStages() {
+            stages.values().forEach(LatencyHistogram::reset);
+        }
+    }
+
+    private final class StageBean implements StageMXBean {
+        private final Stage stage;
+
+        StageBean(Stage stage) {
+            this.stage = stage;
+        }
+
+        @Override
+        public String getDescription() {
+            return stage.getDescription();
+        }
+
+        @Override
+        public long getCount() {
+            return stages.get(stage).getCount();
+        }
+
+        @Override
+        public double getMeanMillis() {
+            return stages.get(stage).getMeanMillis();
+        }
+
+        @Override
+        public double getP50Millis() {
+            return stages.get(stage).percentileMillis(0.50);
+        }
+
+        @Override
+        public double getP90Millis() {
+            return stages.get(stage).percentileMillis(0.90);
+        }
+
+        @Override
+        public double getP99Millis() {
+            return stages.get(stage).percentileMillis(0.99);
+        }
+
+        @Override
+        public double getP999Millis() {
+            return stages.get(stage).percentileMillis(0.999);
+        }
+
+        @Override
+        public double getMaxMillis() {
+            return stages.get(stage).getMaxMillis();
+        }
+
+        @Override
+        public void reset() {
+            stages.get(stage).reset();
+        }
+    }
+}
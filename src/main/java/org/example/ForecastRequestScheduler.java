@@ -0,0 +1,118 @@
+package org.example;
+
+import org.example.WeatherService.ForecastResponse;
+
+import javax.swing.SwingUtilities;
+import javax.swing.Timer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Planificador entre la UI y {@link WeatherService}.
+ *
+ * Agrupa ráfagas de clics (debounce), cancela las peticiones que quedan obsoletas y
+ * garantiza que solo se pinta el resultado de la petición más reciente. Las peticiones
+ * idénticas simultáneas ya se unen en una sola llamada dentro de WeatherService.
+ *
+ * Todos los métodos deben llamarse desde el EDT; los callbacks también se ejecutan en el EDT.
+ */
+public class ForecastRequestScheduler {
+
+    public static final int DEFAULT_DEBOUNCE_MILLIS = 250;
+
+    private final Timer debounceTimer;
+    private long generation;
+    private Runnable pendingStart;
+    private CompletableFuture<ForecastResponse> inFlight;
+
+    public ForecastRequestScheduler() {
+        this(DEFAULT_DEBOUNCE_MILLIS);
+    }
+
+    public ForecastRequestScheduler(int debounceMillis) {
+        this.debounceTimer = new Timer(debounceMillis, e -> startPending());
+        this.debounceTimer.setRepeats(false);
+    }
+
+    /**
+     * Programa una petición tras el intervalo de debounce. Cada nueva llamada reinicia el
+     * intervalo y sustituye a la anterior.
+     */
+    public void submit(Supplier<CompletableFuture<ForecastResponse>> call,
+                       Consumer<ForecastResponse> onSuccess,
+                       Consumer<Throwable> onError) {
+        long requestGeneration = supersede();
+        pendingStart = () -> start(requestGeneration, call, onSuccess, onError);
+        debounceTimer.restart();
+    }
+
+    /**
+     * Lanza la petición inmediatamente (p. ej. al pulsar "Buscar"), cancelando las anteriores
+     */
+    public void submitNow(Supplier<CompletableFuture<ForecastResponse>> call,
+                          Consumer<ForecastResponse> onSuccess,
+                          Consumer<Throwable> onError) {
+        long requestGeneration = supersede();
+        start(requestGeneration, call, onSuccess, onError);
+    }
+
+    /**
+     * Descarta la petición pendiente o en vuelo sin lanzar otra
+     */
+    public void cancel() {
+        supersede();
+    }
+
+    private long supersede() {
+        generation++;
+        debounceTimer.stop();
+        pendingStart = null;
+        if (inFlight != null) {
+            // Cancela nuestra copia: si otra vista espera la misma petición sigue en curso; si
+            // no, WeatherService la abandona y libera su puesto en la cola de la cuota
+            inFlight.cancel(true);
+            inFlight = null;
+        }
+        return generation;
+    }
+
+    private void startPending() {
+        Runnable start = pendingStart;
+        pendingStart = null;
+        if (start != null) {
+            start.run();
+        }
+    }
+
+    private void start(long requestGeneration,
+                       Supplier<CompletableFuture<ForecastResponse>> call,
+                       Consumer<ForecastResponse> onSuccess,
+                       Consumer<Throwable> onError) {
+        CompletableFuture<ForecastResponse> future;
+        try {
+            future = call.get();
+        } catch (RuntimeException e) {
+            onError.accept(e);
+            return;
+        }
+        inFlight = future;
+        future.whenComplete((response, error) -> SwingUtilities.invokeLater(() -> {
+            // Solo se pinta el resultado de la petición más reciente
+            if (requestGeneration != generation) {
+                return;
+            }
+            inFlight = null;
+            if (error != null) {
+                onError.accept(unwrap(error));
+            } else {
+                onSuccess.accept(response);
+            }
+        }));
+    }
+
+    private static Throwable unwrap(Throwable error) {
+        return error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+    }
+}
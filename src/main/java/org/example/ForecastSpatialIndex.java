@@ -0,0 +1,148 @@
+package org.example;
+
+import org.example.WeatherService.ForecastResponse;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Índice espacial de los pronósticos que hay en memoria, por {@code City.coord}.
+ *
+ * Rejilla uniforme de celdas de {@value #CELL_DEGREES}°: la búsqueda del vecino más cercano
+ * dentro de un radio solo recorre las celdas que lo cubren, así que cuesta microsegundos
+ * aunque la caché tenga cientos de entradas. Se alimenta de la propia {@link ForecastCache}
+ * como {@link ForecastCache.Listener}, de modo que las entradas desalojadas desaparecen del
+ * índice en el mismo momento; las caducadas se conservan (siguen como dato antiguo en la
+ * caché) pero las consultas las descartan.
+ */
+public class ForecastSpatialIndex implements ForecastCache.Listener {
+
+    // 0.05° ~ 5,5 km de latitud: con radios de pocos km basta con 3x3 celdas
+    static final double CELL_DEGREES = 0.05;
+    private static final int LON_CELLS = (int) Math.round(360 / CELL_DEGREES);
+    private static final double EARTH_RADIUS_KM = 6371.0;
+
+    private final Map<Long, List<Entry>> cells = new HashMap<>();
+    private final Map<String, Entry> byKey = new HashMap<>();
+
+    /**
+     * Pronóstico vigente más cercano a (lat, lon) a menos de {@code radiusKm}; null si no hay
+     */
+    public synchronized ForecastResponse nearestFresh(double lat, double lon, double radiusKm) {
+        if (byKey.isEmpty() || radiusKm <= 0) {
+            return null;
+        }
+        long now = System.currentTimeMillis();
+        double radiusDeg = Math.toDegrees(radiusKm / EARTH_RADIUS_KM);
+        int latSpan = (int) Math.ceil(radiusDeg / CELL_DEGREES);
+        // Los meridianos se juntan hacia los polos: hacen falta más celdas de longitud
+        double cosLat = Math.cos(Math.toRadians(Math.min(89.0, Math.abs(lat) + radiusDeg)));
+        int lonSpan = Math.min(LON_CELLS / 2, (int) Math.ceil(radiusDeg / cosLat / CELL_DEGREES));
+
+        int latCell = latCell(lat);
+        int lonCell = lonCell(lon);
+        Entry best = null;
+        double bestKm = radiusKm;
+        for (int dLat = -latSpan; dLat <= latSpan; dLat++) {
+            for (int dLon = -lonSpan; dLon <= lonSpan; dLon++) {
+                List<Entry> cell = cells.get(cellId(latCell + dLat, Math.floorMod(lonCell + dLon, LON_CELLS)));
+                if (cell == null) {
+                    continue;
+                }
+                for (Entry entry : cell) {
+                    if (entry.expiresAt <= now) {
+                        continue;
+                    }
+                    double km = distanceKm(lat, lon, entry.lat, entry.lon);
+                    if (km <= bestKm) {
+                        best = entry;
+                        bestKm = km;
+                    }
+                }
+            }
+        }
+        return best != null ? best.response : null;
+    }
+
+    public synchronized int size() {
+        return byKey.size();
+    }
+
+    @Override
+    public synchronized void onPut(String key, ForecastResponse response, long expiresAt) {
+        remove(key);
+        if (response.city == null || response.city.coord == null) {
+            return;
+        }
+        double lat = response.city.coord.lat;
+        double lon = response.city.coord.lon;
+        Entry entry = new Entry(key, lat, lon, expiresAt, response);
+        byKey.put(key, entry);
+        cells.computeIfAbsent(cellId(latCell(lat), lonCell(lon)), id -> new ArrayList<>(2)).add(entry);
+    }
+
+    @Override
+    public synchronized void onRemove(String key) {
+        remove(key);
+    }
+
+    @Override
+    public synchronized void onClear() {
+        cells.clear();
+        byKey.clear();
+    }
+
+    private void remove(String key) {
+        Entry old = byKey.remove(key);
+        if (old == null) {
+            return;
+        }
+        long id = cellId(latCell(old.lat), lonCell(old.lon));
+        List<Entry> cell = cells.get(id);
+        cell.remove(old);
+        if (cell.isEmpty()) {
+            cells.remove(id);
+        }
+    }
+
+    private static int latCell(double lat) {
+        return (int) Math.floor((lat + 90) / CELL_DEGREES);
+    }
+
+    private static int lonCell(double lon) {
+        return Math.floorMod((int) Math.floor((lon + 180) / CELL_DEGREES), LON_CELLS);
+    }
+
+    private static long cellId(int latCell, int lonCell) {
+        return ((long) latCell << 32) | (lonCell & 0xffffffffL);
+    }
+
+    /**
+     * Distancia de gran círculo (haversine) en km
+     */
+    static double distanceKm(double lat1, double lon1, double lat2, double lon2) {
+        double dLat = Math.toRadians(lat2 - lat1);
+        double dLon = Math.toRadians(lon2 - lon1);
+        double a = Math.sin(dLat / 2) * Math.sin(dLat / 2)
+                + Math.cos(Math.toRadians(lat1)) * Math.cos(Math.toRadians(lat2)) * Math.sin(dLon / 2) * Math.sin(dLon / 2);
+        return 2 * EARTH_RADIUS_KM * Math.asin(Math.min(1, Math.sqrt(a)));
+    }
+
+    private static final class Entry {
+        final String key;
+        final double lat;
+        final double lon;
+        final long expiresAt;
+        final ForecastResponse response;
+
+        Entry(String key, double lat, double lon, long expiresAt, ForecastResponse response) {
+            this.key = key;
+            this.lat = lat;
+            this.lon = lon;
+            this.expiresAt = expiresAt;
+            this.response = response;
+        }
+    }
+}
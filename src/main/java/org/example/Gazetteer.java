@@ -0,0 +1,374 @@
+package org.example;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Nomenclátor de ciudades sin conexión para el autocompletado de la búsqueda.
+ *
+ * Se carga de {@value #RESOURCE} (nombre, alias, país, coordenadas y población) en un trie
+ * de prefijos guardado en arrays paralelos (una letra, primer hijo y siguiente hermano por
+ * nodo). Cada nodo guarda además sus {@value #TOP_K} mejores sitios por población, calculados
+ * al construirlo, así que una sugerencia es bajar por el prefijo y copiar esa lista: unos
+ * microsegundos sin recorrer el subárbol. Se indexan el nombre, los alias y cada palabra de
+ * ambos ("compostela" encuentra Santiago de Compostela); las mayúsculas y los acentos dan igual.
+ * Aparte, cada nodo guarda todos los sitios cuyo nombre o alias completo termina en él, para
+ * las coincidencias exactas.
+ */
+public final class Gazetteer {
+
+    public static final String RESOURCE = "/gazetteer.tsv";
+    static final int TOP_K = 10;
+
+    private final Place[] places;
+
+    // Trie: nodo 0 = raíz
+    private char[] letter = new char[1024];
+    private int[] firstChild = new int[1024];
+    private int[] nextSibling = new int[1024];
+    private int nodes = 1;
+    // Mejores sitios de cada nodo: top[topStart[n] .. topStart[n] + topCount[n])
+    private int[] topStart;
+    private byte[] topCount;
+    private int[] top;
+    // Sitios cuyo nombre o alias completo acaba en cada nodo: exact[exactStart[n] .. exactStart[n + 1])
+    private int[] exactStart;
+    private int[] exact;
+
+    /**
+     * Una ciudad del nomenclátor
+     */
+    public static final class Place {
+        public final String name;
+        public final String country;
+        public final double lat;
+        public final double lon;
+        public final int population;
+        // Otros nombres (p. ej. en inglés o en la lengua local)
+        public final List<String> aliases;
+
+        Place(String name, List<String> aliases, String country, double lat, double lon, int population) {
+            this.name = name;
+            this.aliases = aliases;
+            this.country = country;
+            this.lat = lat;
+            this.lon = lon;
+            this.population = population;
+        }
+
+        /**
+         * Texto para mostrar, p. ej. "Córdoba, ES"
+         */
+        public String label() {
+            return name + ", " + country;
+        }
+
+        @Override
+        public String toString() {
+            return label();
+        }
+    }
+
+    /**
+     * Carga el nomenclátor incluido en la aplicación
+     */
+    public static Gazetteer load() {
+        InputStream in = Gazetteer.class.getResourceAsStream(RESOURCE);
+        if (in == null) {
+            throw new IllegalStateException("No se encuentra el recurso " + RESOURCE);
+        }
+        try (Reader reader = new InputStreamReader(in, StandardCharsets.UTF_8)) {
+            return load(reader);
+        } catch (IOException e) {
+            throw new UncheckedIOException("No se pudo leer " + RESOURCE, e);
+        }
+    }
+
+    public static Gazetteer load(Reader reader) throws IOException {
+        List<Place> places = new ArrayList<>();
+        BufferedReader lines = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        String line;
+        int lineNumber = 0;
+        while ((line = lines.readLine()) != null) {
+            lineNumber++;
+            if (line.isBlank() || line.startsWith("#")) {
+                continue;
+            }
+            String[] cols = line.split("\t", -1);
+            if (cols.length != 6) {
+                throw new IOException("Línea " + lineNumber + " del nomenclátor con " + cols.length + " columnas");
+            }
+            try {
+                places.add(new Place(cols[0], cols[1].isEmpty() ? List.of() : List.of(cols[1].split(",")),
+                        cols[2], Double.parseDouble(cols[3]), Double.parseDouble(cols[4]), Integer.parseInt(cols[5])));
+            } catch (NumberFormatException e) {
+                throw new IOException("Línea " + lineNumber + " del nomenclátor no válida: " + e.getMessage());
+            }
+        }
+        return new Gazetteer(places);
+    }
+
+    private Gazetteer(List<Place> placeList) {
+        // Ordenados por población: así los índices más bajos son los mejores
+        Integer[] order = new Integer[placeList.size()];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(placeList.get(b).population, placeList.get(a).population));
+        places = new Place[order.length];
+
+        // Un nodo puede ser final de varias claves: pares (nodo, sitio), y si la clave es el
+        // nombre o alias completo (no una palabra suya)
+        int[] terminalNode = new int[64];
+        int[] terminalPlace = new int[64];
+        boolean[] terminalFull = new boolean[64];
+        int terminals = 0;
+        for (int i = 0; i < order.length; i++) {
+            places[i] = placeList.get(order[i]);
+            List<String> names = new ArrayList<>();
+            names.add(places[i].name);
+            names.addAll(places[i].aliases);
+            for (String name : names) {
+                List<String> keys = searchKeys(name);
+                for (int k = 0; k < keys.size(); k++) {
+                    if (terminals == terminalNode.length) {
+                        terminalNode = Arrays.copyOf(terminalNode, terminals * 2);
+                        terminalPlace = Arrays.copyOf(terminalPlace, terminals * 2);
+                        terminalFull = Arrays.copyOf(terminalFull, terminals * 2);
+                    }
+                    terminalNode[terminals] = insert(keys.get(k));
+                    terminalPlace[terminals] = i;
+                    terminalFull[terminals] = k == 0;
+                    terminals++;
+                }
+            }
+        }
+        computeTop(terminalNode, terminalPlace, terminals);
+        computeExact(terminalNode, terminalPlace, terminalFull, terminals);
+    }
+
+    public int size() {
+        return places.length;
+    }
+
+    /**
+     * Hasta {@code limit} ciudades (como mucho {@value #TOP_K}) cuyo nombre, alias o alguna de
+     * sus palabras empieza por {@code prefix}, de más a menos poblada
+     */
+    public List<Place> suggest(String prefix, int limit) {
+        String key = normalize(prefix);
+        if (key.isEmpty() || limit <= 0) {
+            return List.of();
+        }
+        int node = find(key);
+        if (node < 0) {
+            return List.of();
+        }
+        int count = Math.min(limit, topCount[node]);
+        List<Place> result = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            result.add(places[top[topStart[node] + i]]);
+        }
+        return result;
+    }
+
+    /**
+     * Ciudades cuyo nombre o alias completo es {@code text}, de más a menos poblada (varias si
+     * el nombre es ambiguo, p. ej. Córdoba). Admite el formato de {@link Place#label()},
+     * "Córdoba, ES", para quedarse con la de ese país.
+     */
+    public List<Place> exactMatches(String text) {
+        String name = text;
+        String country = null;
+        int comma = text.lastIndexOf(',');
+        if (comma >= 0) {
+            name = text.substring(0, comma);
+            country = text.substring(comma + 1).trim();
+        }
+        String key = normalize(name);
+        int node = key.isEmpty() ? -1 : find(key);
+        if (node < 0) {
+            return List.of();
+        }
+        List<Place> result = new ArrayList<>(2);
+        for (int i = exactStart[node]; i < exactStart[node + 1]; i++) {
+            Place place = places[exact[i]];
+            if (country == null || place.country.equalsIgnoreCase(country)) {
+                result.add(place);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Minúsculas, sin acentos y con los espacios normalizados (como las claves de {@link ForecastCache})
+     */
+    static String normalize(String text) {
+        return Normalizer.normalize(text.trim(), Normalizer.Form.NFD)
+                .replaceAll("\\p{M}", "")
+                .replaceAll("\\s+", " ")
+                .toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * El nombre completo y el resto del nombre a partir de cada palabra
+     */
+    private static List<String> searchKeys(String name) {
+        String key = normalize(name);
+        List<String> keys = new ArrayList<>();
+        keys.add(key);
+        for (int i = 1; i < key.length(); i++) {
+            char previous = key.charAt(i - 1);
+            if ((previous == ' ' || previous == '-' || previous == '\'') && key.charAt(i) != ' ') {
+                keys.add(key.substring(i));
+            }
+        }
+        return keys;
+    }
+
+    private int find(String key) {
+        int node = 0;
+        for (int i = 0; i < key.length() && node >= 0; i++) {
+            node = child(node, key.charAt(i));
+        }
+        return node;
+    }
+
+    private int child(int node, char c) {
+        for (int n = firstChild[node]; n != 0; n = nextSibling[n]) {
+            if (letter[n] == c) {
+                return n;
+            }
+        }
+        return -1;
+    }
+
+    private int insert(String key) {
+        int node = 0;
+        for (int i = 0; i < key.length(); i++) {
+            char c = key.charAt(i);
+            int next = child(node, c);
+            if (next < 0) {
+                next = newNode(c);
+                nextSibling[next] = firstChild[node];
+                firstChild[node] = next;
+            }
+            node = next;
+        }
+        return node;
+    }
+
+    private int newNode(char c) {
+        if (nodes == letter.length) {
+            int capacity = nodes * 2;
+            letter = Arrays.copyOf(letter, capacity);
+            firstChild = Arrays.copyOf(firstChild, capacity);
+            nextSibling = Arrays.copyOf(nextSibling, capacity);
+        }
+        letter[nodes] = c;
+        return nodes++;
+    }
+
+    /**
+     * Calcula los mejores sitios de cada nodo de abajo arriba y ajusta los arrays a su tamaño
+     */
+    private void computeTop(int[] terminalNode, int[] terminalPlace, int terminals) {
+        letter = Arrays.copyOf(letter, nodes);
+        firstChild = Arrays.copyOf(firstChild, nodes);
+        nextSibling = Arrays.copyOf(nextSibling, nodes);
+
+        // Sitios que terminan en cada nodo (puede haber varios con el mismo nombre)
+        int[][] lists = new int[nodes][];
+        for (int i = 0; i < terminals; i++) {
+            int[] own = lists[terminalNode[i]];
+            lists[terminalNode[i]] = mergeTop(own != null ? own : new int[0], new int[]{terminalPlace[i]});
+        }
+        // Los hijos siempre tienen índice mayor que su padre: basta recorrer los nodos al revés
+        int total = 0;
+        for (int node = nodes - 1; node >= 0; node--) {
+            int[] merged = lists[node] != null ? lists[node] : new int[0];
+            for (int c = firstChild[node]; c != 0; c = nextSibling[c]) {
+                merged = mergeTop(merged, lists[c]);
+            }
+            lists[node] = merged;
+            total += merged.length;
+        }
+
+        topStart = new int[nodes];
+        topCount = new byte[nodes];
+        top = new int[total];
+        int used = 0;
+        for (int node = 0; node < nodes; node++) {
+            topStart[node] = used;
+            topCount[node] = (byte) lists[node].length;
+            System.arraycopy(lists[node], 0, top, used, lists[node].length);
+            used += lists[node].length;
+        }
+    }
+
+    /**
+     * Agrupa por nodo los sitios de las claves completas, sin límite y sin repetidos (nombre y
+     * alias pueden normalizarse igual)
+     */
+    private void computeExact(int[] terminalNode, int[] terminalPlace, boolean[] terminalFull, int terminals) {
+        exactStart = new int[nodes + 1];
+        for (int i = 0; i < terminals; i++) {
+            if (terminalFull[i]) {
+                exactStart[terminalNode[i] + 1]++;
+            }
+        }
+        for (int node = 0; node < nodes; node++) {
+            exactStart[node + 1] += exactStart[node];
+        }
+        // Los pares van por índice de sitio creciente, así que cada nodo queda ordenado por población
+        int[] fill = Arrays.copyOf(exactStart, nodes);
+        int[] placed = new int[exactStart[nodes]];
+        for (int i = 0; i < terminals; i++) {
+            int node = terminalNode[i];
+            if (terminalFull[i] && (fill[node] == exactStart[node] || placed[fill[node] - 1] != terminalPlace[i])) {
+                placed[fill[node]++] = terminalPlace[i];
+            }
+        }
+        // Compacta los huecos que dejan los repetidos
+        exact = new int[placed.length];
+        int used = 0;
+        for (int node = 0; node < nodes; node++) {
+            int start = used;
+            for (int i = exactStart[node]; i < fill[node]; i++) {
+                exact[used++] = placed[i];
+            }
+            exactStart[node] = start;
+        }
+        exactStart[nodes] = used;
+        exact = Arrays.copyOf(exact, used);
+    }
+
+    /**
+     * Une dos listas de índices de sitio, sin repetidos, y se queda con los {@value #TOP_K}
+     * menores (los más poblados)
+     */
+    private static int[] mergeTop(int[] a, int[] b) {
+        int[] all = Arrays.copyOf(a, a.length + b.length);
+        System.arraycopy(b, 0, all, a.length, b.length);
+        Arrays.sort(all);
+        int[] result = new int[Math.min(TOP_K, all.length)];
+        int n = 0;
+        for (int i = 0; i < all.length && n < result.length; i++) {
+            if (n == 0 || result[n - 1] != all[i]) {
+                result[n++] = all[i];
+            }
+        }
+        return n == result.length ? result : Arrays.copyOf(result, n);
+    }
+
+}
@@ -0,0 +1,200 @@
+package org.example;
+
+import org.example.WeatherService.ForecastItem;
+
+import javax.swing.AbstractListModel;
+import javax.swing.DefaultListSelectionModel;
+import javax.swing.JComponent;
+import javax.swing.JList;
+import javax.swing.ListCellRenderer;
+import javax.swing.ListSelectionModel;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.util.List;
+
+/**
+ * Vista por horas del pronóstico como lista virtualizada.
+ *
+ * Las filas se formatean una sola vez por pronóstico ({@link #buildRows}); cambiar de día
+ * solo cambia el rango visible del modelo, y el renderer pinta directamente texto e icono
+ * de las filas visibles, sin HTML ni componentes hijos.
+ */
+public class HourlyForecastList extends JList<HourlyForecastList.Row> {
+
+    private static final int ROW_HEIGHT = 66;
+    private static final int ICON_SIZE = 50;
+    // Dato que falta en un tramo
+    private static final String MISSING = "--";
+
+    private static final Color COLOR_TITULO = new Color(0, 86, 179);
+    private static final Color COLOR_DETALLE = new Color(85, 85, 85);
+    private static final Color COLOR_SEPARADOR = new Color(238, 238, 238);
+
+    private final RowModel model = new RowModel();
+
+    public HourlyForecastList(WeatherIconCache iconCache) {
+        setModel(model);
+        setCellRenderer(new RowRenderer(iconCache));
+        // Altura fija: la lista no mide cada fila y solo pinta las visibles
+        setFixedCellHeight(ROW_HEIGHT);
+        setSelectionModel(new NoSelectionModel());
+        setFocusable(false);
+        setBackground(Color.WHITE);
+    }
+
+    /**
+     * Preformatea todas las filas de un pronóstico (textos ya listos para pintar)
+     */
+    public static Row[] buildRows(List<ForecastItem> items, int utcOffsetSeconds) {
+        Row[] rows = new Row[items.size()];
+        for (int i = 0; i < rows.length; i++) {
+            ForecastItem item = items.get(i);
+            String hour = DailyForecastAggregator.format(item.dt, utcOffsetSeconds, DailyForecastAggregator.HOUR_LABEL);
+            String icon = item.weather != null && !item.weather.isEmpty() ? item.weather.get(0).icon : null;
+            String description = item.weather != null && !item.weather.isEmpty() ? item.weather.get(0).description : "";
+            // Un tramo sin bloque main o wind se muestra con "--" en vez de romper el pintado
+            WeatherService.Main main = item.main;
+            String temp = main != null ? String.format("%.0f°C", main.temp) : MISSING;
+            String feelsLike = main != null ? String.format("%.0f°C", main.feels_like) : MISSING;
+            String humidity = main != null ? main.humidity + "%" : MISSING;
+            String wind = item.wind != null ? String.format("%.1f km/h", item.wind.speed * 3.6) : MISSING;
+            String title = String.format("[%s] - %s (%s)", hour, description, temp);
+            String detail = "Sensación: " + feelsLike + " | Humedad: " + humidity + " | Viento: " + wind;
+            rows[i] = new Row(icon, title, detail);
+        }
+        return rows;
+    }
+
+    /**
+     * Muestra las filas [from, to) del array ya formateado
+     */
+    public void showRange(Row[] rows, int from, int to) {
+        model.setRange(rows, from, to);
+        if (to > from) {
+            ensureIndexIsVisible(0);
+        }
+    }
+
+    public void clear() {
+        model.setRange(new Row[0], 0, 0);
+    }
+
+    /**
+     * Una fila de 3 horas ya formateada
+     */
+    public static final class Row {
+        public final String iconCode;
+        public final String title;
+        public final String detail;
+
+        public Row(String iconCode, String title, String detail) {
+            this.iconCode = iconCode;
+            this.title = title;
+            this.detail = detail;
+        }
+    }
+
+    private static final class RowModel extends AbstractListModel<Row> {
+        private Row[] rows = new Row[0];
+        private int from;
+        private int to;
+
+        void setRange(Row[] rows, int from, int to) {
+            int oldSize = getSize();
+            this.rows = rows;
+            this.from = from;
+            this.to = to;
+            int newSize = getSize();
+            if (oldSize > newSize) {
+                fireIntervalRemoved(this, newSize, oldSize - 1);
+            } else if (newSize > oldSize) {
+                fireIntervalAdded(this, oldSize, newSize - 1);
+            }
+            if (Math.min(oldSize, newSize) > 0) {
+                fireContentsChanged(this, 0, Math.min(oldSize, newSize) - 1);
+            }
+        }
+
+        @Override
+        public int getSize() {
+            return to - from;
+        }
+
+        @Override
+        public Row getElementAt(int index) {
+            return rows[from + index];
+        }
+    }
+
+    /**
+     * Renderer que pinta la fila directamente con Graphics2D
+     */
+    private static final class RowRenderer extends JComponent implements ListCellRenderer<Row> {
+        private final WeatherIconCache iconCache;
+        private final Font titleFont = new Font("Arial", Font.BOLD, 14);
+        private final Font detailFont = new Font("Arial", Font.PLAIN, 13);
+        private Row row;
+
+        RowRenderer(WeatherIconCache iconCache) {
+            this.iconCache = iconCache;
+        }
+
+        @Override
+        public Component getListCellRendererComponent(JList<? extends Row> list, Row value, int index,
+                                                      boolean isSelected, boolean cellHasFocus) {
+            this.row = value;
+            return this;
+        }
+
+        @Override
+        protected void paintComponent(Graphics g) {
+            if (row == null) return;
+            Graphics2D g2 = (Graphics2D) g;
+            g2.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+            g2.setColor(Color.WHITE);
+            g2.fillRect(0, 0, getWidth(), getHeight());
+
+            int iconY = (getHeight() - ICON_SIZE) / 2;
+            Image icon = iconCache.image(row.iconCode, ICON_SIZE);
+            if (icon != null) {
+                g2.drawImage(icon, 15, iconY, null);
+            }
+
+            int textX = 15 + ICON_SIZE + 15;
+            g2.setFont(titleFont);
+            FontMetrics titleMetrics = g2.getFontMetrics();
+            g2.setColor(COLOR_TITULO);
+            int titleBaseline = getHeight() / 2 - 4;
+            g2.drawString(row.title, textX, titleBaseline);
+
+            g2.setFont(detailFont);
+            g2.setColor(COLOR_DETALLE);
+            g2.drawString(row.detail, textX, titleBaseline + titleMetrics.getDescent() + g2.getFontMetrics().getAscent() + 2);
+
+            g2.setColor(COLOR_SEPARADOR);
+            g2.drawLine(10, getHeight() - 1, getWidth() - 10, getHeight() - 1);
+        }
+    }
+
+    private static final class NoSelectionModel extends DefaultListSelectionModel {
+        NoSelectionModel() {
+            setSelectionMode(ListSelectionModel.SINGLE_SELECTION);
+        }
+
+        @Override
+        public void setSelectionInterval(int index0, int index1) {
+            // La vista por horas es solo de lectura
+        }
+
+        @Override
+        public void addSelectionInterval(int index0, int index1) {
+        }
+    }
+}
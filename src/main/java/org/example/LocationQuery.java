@@ -0,0 +1,86 @@
+package org.example;
+
+import java.util.Locale;
+import java.util.Objects;
+
+/**
+ * Ubicación a consultar: por nombre de ciudad o por coordenadas
+ */
+public final class LocationQuery {
+    private final String city;
+    private final double lat;
+    private final double lon;
+
+    private LocationQuery(String city, double lat, double lon) {
+        this.city = city;
+        this.lat = lat;
+        this.lon = lon;
+    }
+
+    public static LocationQuery city(String city) {
+        if (city == null || city.trim().isEmpty()) {
+            throw new IllegalArgumentException("La ciudad no puede estar vacía");
+        }
+        return new LocationQuery(city.trim(), Double.NaN, Double.NaN);
+    }
+
+    public static LocationQuery coords(double lat, double lon) {
+        if (lat < -90 || lat > 90 || lon < -180 || lon > 180) {
+            throw new IllegalArgumentException("Coordenadas fuera de rango: " + lat + ", " + lon);
+        }
+        return new LocationQuery(null, lat, lon);
+    }
+
+    /**
+     * Interpreta una línea de texto: "lat,lon" (o "lat lon") son coordenadas; cualquier otra
+     * cosa se toma como nombre de ciudad
+     */
+    public static LocationQuery parse(String text) {
+        String trimmed = text.trim();
+        String[] parts = trimmed.split("\\s*[,;\\s]\\s*");
+        if (parts.length == 2) {
+            try {
+                return coords(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]));
+            } catch (NumberFormatException e) {
+                // No son números: es un nombre de ciudad con coma, p. ej. "Paris, FR"
+            }
+        }
+        return city(trimmed);
+    }
+
+    public boolean isCity() {
+        return city != null;
+    }
+
+    public String getCity() {
+        return city;
+    }
+
+    public double getLat() {
+        return lat;
+    }
+
+    public double getLon() {
+        return lon;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) return true;
+        if (!(o instanceof LocationQuery)) return false;
+        LocationQuery other = (LocationQuery) o;
+        return Objects.equals(city, other.city)
+                && Double.compare(lat, other.lat) == 0
+                && Double.compare(lon, other.lon) == 0;
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hash(city, lat, lon);
+    }
+
+    @Override
+    public String toString() {
+        return isCity() ? city : String.format(Locale.ROOT, "%.4f,%.4f", lat, lon);
+    }
+}
@@ -1,17 +1,128 @@
 package org.example;
 
 import javax.swing.SwingUtilities;
+import javax.swing.UIManager;
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
 
-//TIP To <b>Run</b> code, press <shortcut actionId="Run"/> or
-// click the <icon src="AllIcons.Actions.Execute"/> icon in the gutter.
 public class Main {
+
+    private static final String USAGE = String.join("\n",
+            "Uso:",
+            "  java org.example.Main                       Abre la aplicación de escritorio",
+            "  java org.example.Main --batch [opciones]    Exportación masiva sin interfaz",
+            "  java org.example.Main --cds-training        Recorre el arranque sin ventana (genera el archivo CDS)",
+            "",
+            "Opciones del modo --batch:",
+            "  --input <fichero|->        Ubicaciones, una por línea: ciudad o \"lat,lon\" (por defecto stdin)",
+            "  --output <fichero|->       Destino de los resultados (por defecto stdout)",
+            "  --format <csv|ndjson>      Formato de salida (por defecto csv)",
+            "  --concurrency <n>          Peticiones simultáneas (por defecto " + WeatherService.DEFAULT_BATCH_CONCURRENCY + ")");
+
     public static void main(String[] args) {
-        //TIP Press <shortcut actionId="ShowIntentionActions"/> with your caret at the highlighted text
-        // to see how IntelliJ IDEA suggests fixing it.
+        if (args.length > 0) {
+            System.exit(runCommandLine(args));
+        }
+        launchGui();
+    }
+
+    /**
+     * La interfaz se lanza en su propio método para que el modo batch nunca cargue clases de AWT/Swing
+     */
+    private static void launchGui() {
+        StartupTimer.mark("main");
+        // La sesión anterior y los servicios se cargan en paralelo mientras aquí se carga el
+        // look & feel; el EDT pinta la ventana con el último pronóstico en cuanto está
+        AppServices.Startup startup = AppServices.start();
+        try {
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
         SwingUtilities.invokeLater(new Runnable() {
             public void run() {
-                new WeatherAppUI();
+                new WeatherAppUI(startup);
             }
         });
     }
+
+    private static int runCommandLine(String[] args) {
+        if ("--cds-training".equals(args[0])) {
+            return StartupTraining.run();
+        }
+        if (!"--batch".equals(args[0])) {
+            System.err.println(USAGE);
+            return "--help".equals(args[0]) || "-h".equals(args[0]) ? 0 : 2;
+        }
+        System.setProperty("java.awt.headless", "true");
+
+        String input = "-";
+        String output = "-";
+        BatchExporter.Format format = BatchExporter.Format.CSV;
+        int concurrency = WeatherService.DEFAULT_BATCH_CONCURRENCY;
+        try {
+            for (int i = 1; i < args.length; i++) {
+                switch (args[i]) {
+                    case "--input" -> input = args[++i];
+                    case "--output" -> output = args[++i];
+                    case "--format" -> format = BatchExporter.Format.valueOf(args[++i].toUpperCase(Locale.ROOT));
+                    case "--concurrency" -> concurrency = Integer.parseInt(args[++i]);
+                    default -> throw new IllegalArgumentException("Opción desconocida: " + args[i]);
+                }
+            }
+            if (concurrency <= 0) {
+                throw new IllegalArgumentException("--concurrency debe ser positivo");
+            }
+        } catch (ArrayIndexOutOfBoundsException | IllegalArgumentException e) {
+            System.err.println(e instanceof ArrayIndexOutOfBoundsException ? "Falta el valor de una opción" : e.getMessage());
+            System.err.println(USAGE);
+            return 2;
+        }
+
+        long start = System.nanoTime();
+        BatchExporter exporter = new BatchExporter(new WeatherService(), format, concurrency);
+        try (BufferedReader reader = openInput(input);
+             Writer writer = openOutput(output)) {
+            exporter.run(reader, writer);
+        } catch (IOException e) {
+            System.err.println("Error de entrada/salida: " + e.getMessage());
+            return 1;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Exportación interrumpida");
+            return 1;
+        }
+
+        System.err.println(String.format(Locale.ROOT, "%d correctas, %d con error, %d líneas ignoradas en %.1f s",
+                exporter.getSucceeded(), exporter.getFailed(), exporter.getSkipped(), (System.nanoTime() - start) / 1e9));
+        return exporter.getFailed() > 0 ? 1 : 0;
+    }
+
+    private static BufferedReader openInput(String input) throws IOException {
+        if ("-".equals(input)) {
+            return new BufferedReader(new InputStreamReader(System.in, StandardCharsets.UTF_8));
+        }
+        return Files.newBufferedReader(Path.of(input), StandardCharsets.UTF_8);
+    }
+
+    private static Writer openOutput(String output) throws IOException {
+        if ("-".equals(output)) {
+            // No se cierra System.out al terminar: solo se vacía
+            return new BufferedWriter(new OutputStreamWriter(System.out, StandardCharsets.UTF_8)) {
+                @Override
+                public void close() throws IOException {
+                    flush();
+                }
+            };
+        }
+        return Files.newBufferedWriter(Path.of(output), StandardCharsets.UTF_8);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,187 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Mantiene al día en segundo plano los pronósticos de las ubicaciones fijadas.
+ *
+ * Cada ubicación se refresca un poco antes de que caduque en la caché, con un adelanto
+ * aleatorio distinto para cada una, y nunca hay más de un refresco en vuelo: así una docena
+ * de ubicaciones no generan una ráfaga de peticiones. Se pausa si el usuario lleva un rato
+ * sin usar la aplicación, si el cortocircuito de la API está abierto o si la cuota de
+ * peticiones está saturada (las búsquedas del usuario van primero). Las entradas fijadas
+ * no se desalojan de la caché, de modo que consultarlas no toca la red.
+ */
+public class PinnedLocationsScheduler implements AutoCloseable {
+
+    public static final long DEFAULT_LEAD_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    public static final long DEFAULT_SPREAD_MILLIS = TimeUnit.MINUTES.toMillis(10);
+    public static final long DEFAULT_IDLE_MILLIS = TimeUnit.MINUTES.toMillis(30);
+
+    private static final long TICK_MILLIS = 1_000;
+    // Separación mínima entre dos refrescos seguidos
+    private static final long MIN_SPACING_MILLIS = 2_000;
+    private static final long FAILURE_RETRY_MILLIS = TimeUnit.MINUTES.toMillis(2);
+
+    private final WeatherService weatherService;
+    private final ForecastCache cache;
+    private final long leadMillis;
+    private final long spreadMillis;
+    private final long idleMillis;
+
+    // Ubicación fijada -> instante (epoch ms) del próximo refresco, en orden de fijado
+    private final Map<LocationQuery, Long> nextRefresh = new LinkedHashMap<>();
+    private CompletableFuture<?> refreshInFlight;
+    private long lastRefreshAt;
+    private volatile long lastActivityAt = System.currentTimeMillis();
+
+    private final AtomicLong refreshes = new AtomicLong();
+    private final AtomicLong failures = new AtomicLong();
+
+    private ScheduledExecutorService executor;
+
+    public PinnedLocationsScheduler(WeatherService weatherService) {
+        this(weatherService, DEFAULT_LEAD_MILLIS, DEFAULT_SPREAD_MILLIS, DEFAULT_IDLE_MILLIS);
+    }
+
+    public PinnedLocationsScheduler(WeatherService weatherService, long leadMillis, long spreadMillis, long idleMillis) {
+        if (leadMillis < 0 || spreadMillis < 0 || idleMillis <= 0) {
+            throw new IllegalArgumentException("Parámetros de planificación no válidos");
+        }
+        this.weatherService = weatherService;
+        this.cache = weatherService.getCache();
+        this.leadMillis = leadMillis;
+        this.spreadMillis = spreadMillis;
+        this.idleMillis = idleMillis;
+    }
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        executor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "pinned-locations-refresh");
+            t.setDaemon(true);
+            return t;
+        });
+        executor.scheduleWithFixedDelay(this::tick, TICK_MILLIS, TICK_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized void close() {
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+    }
+
+    /**
+     * Fija una ubicación. Si no está en la caché se descarga en el siguiente turno libre.
+     */
+    public synchronized void pin(LocationQuery location) {
+        if (nextRefresh.containsKey(location)) {
+            return;
+        }
+        String key = weatherService.cacheKey(location);
+        cache.pin(key);
+        long expiresIn = cache.expiresInMillis(key);
+        long now = System.currentTimeMillis();
+        nextRefresh.put(location, expiresIn > 0 ? now + Math.max(0, expiresIn - leadMillis - jitter()) : now);
+    }
+
+    public synchronized void unpin(LocationQuery location) {
+        if (nextRefresh.remove(location) != null) {
+            cache.unpin(weatherService.cacheKey(location));
+        }
+    }
+
+    public synchronized boolean isPinned(LocationQuery location) {
+        return nextRefresh.containsKey(location);
+    }
+
+    public synchronized List<LocationQuery> getPinned() {
+        return new ArrayList<>(nextRefresh.keySet());
+    }
+
+    /**
+     * Registra actividad del usuario; sin ella durante {@code idleMillis} la precarga se pausa
+     */
+    public void markActivity() {
+        lastActivityAt = System.currentTimeMillis();
+    }
+
+    public boolean isPaused() {
+        return System.currentTimeMillis() - lastActivityAt > idleMillis || weatherService.getCircuitBreaker().isOpen()
+                || weatherService.getRateLimiter().isSaturated();
+    }
+
+    public long getRefreshes() {
+        return refreshes.get();
+    }
+
+    public long getFailures() {
+        return failures.get();
+    }
+
+    private synchronized void tick() {
+        long now = System.currentTimeMillis();
+        if (refreshInFlight != null || now - lastRefreshAt < MIN_SPACING_MILLIS || isPaused()) {
+            return;
+        }
+
+        LocationQuery due = null;
+        long dueAt = Long.MAX_VALUE;
+        for (Map.Entry<LocationQuery, Long> entry : nextRefresh.entrySet()) {
+            if (entry.getValue() < dueAt) {
+                due = entry.getKey();
+                dueAt = entry.getValue();
+            }
+        }
+        if (due == null || dueAt > now) {
+            return;
+        }
+
+        LocationQuery location = due;
+        lastRefreshAt = now;
+        CompletableFuture<WeatherService.ForecastResponse> refresh = weatherService.refreshAsync(location);
+        // Se asigna antes de encadenar: si ya estaba completado, onRefreshed corre aquí mismo
+        refreshInFlight = refresh;
+        refresh.whenComplete((response, error) -> onRefreshed(location, error == null));
+    }
+
+    private synchronized void onRefreshed(LocationQuery location, boolean success) {
+        refreshInFlight = null;
+        if (!nextRefresh.containsKey(location)) {
+            return;
+        }
+        long now = System.currentTimeMillis();
+        if (success) {
+            refreshes.incrementAndGet();
+            long ttl = cache.getTtlMillis();
+            nextRefresh.put(location, now + Math.max(MIN_SPACING_MILLIS, ttl - leadMillis - jitter()));
+        } else {
+            failures.incrementAndGet();
+            nextRefresh.put(location, now + FAILURE_RETRY_MILLIS + jitter() / 10);
+        }
+    }
+
+    private long jitter() {
+        return spreadMillis == 0 ? 0 : ThreadLocalRandom.current().nextLong(spreadMillis + 1);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format(Locale.ROOT, "PinnedLocationsScheduler[%d fijadas, refrescos=%d, fallos=%d%s]",
+                nextRefresh.size(), refreshes.get(), failures.get(), isPaused() ? ", en pausa" : "");
+    }
+}
@@ -0,0 +1,465 @@
+package org.example;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Limitador de las peticiones a la API: cubo de fichas con carriles de prioridad.
+ *
+ * Todas las peticiones comparten la clave de la API y su cuota por minuto. El cubo se rellena
+ * al ritmo de la cuota y admite ráfagas de hasta {@code burst} peticiones. Cada petición pide
+ * una ficha en su carril ({@link Priority}): las interactivas pasan delante de todo y la
+ * precarga y los lotes solo toman fichas si en el cubo queda una reserva para las
+ * interactivas. Sin fichas se espera en cola por orden de carril; si la espera prevista supera
+ * la máxima del carril la petición se rechaza al momento. Un 429 de la API vacía el cubo y lo
+ * bloquea durante el Retry-After.
+ */
+public class RequestRateLimiter {
+
+    // Peticiones por minuto del plan de la API; 0 desactiva el límite
+    public static final String QUOTA_PROPERTY = "meteomap.api.quota";
+    // Plan gratuito de OpenWeatherMap
+    public static final int DEFAULT_REQUESTS_PER_MINUTE = 60;
+    public static final String OBJECT_NAME = "org.example:type=RequestRateLimiter";
+
+    // Bloqueo tras un 429 sin Retry-After
+    private static final long DEFAULT_THROTTLE_MILLIS = TimeUnit.SECONDS.toMillis(10);
+
+    private static final RequestRateLimiter GLOBAL = createGlobal();
+
+    /**
+     * Carriles, de más a menos prioritario. {@code reserve} es la fracción del cubo que el
+     * carril deja libre para los anteriores; {@code maxWaitMillis}, la espera máxima en cola.
+     */
+    public enum Priority {
+        // Búsquedas que el usuario está esperando
+        INTERACTIVE(0.0, TimeUnit.SECONDS.toMillis(15)),
+        // Refrescos en segundo plano: si no hay ficha al momento se aplazan
+        PREFETCH(0.25, 0),
+        // Exportaciones por lotes: esperan lo que haga falta
+        BATCH(0.5, Long.MAX_VALUE);
+
+        final double reserve;
+        final long maxWaitMillis;
+
+        Priority(double reserve, long maxWaitMillis) {
+            this.reserve = reserve;
+            this.maxWaitMillis = maxWaitMillis;
+        }
+    }
+
+    /**
+     * Estado y métricas visibles en jconsole (por carril)
+     */
+    public interface QuotaMXBean {
+        int getRequestsPerMinute();
+
+        double getAvailableTokens();
+
+        Map<String, Integer> getQueueDepth();
+
+        Map<String, Long> getGranted();
+
+        Map<String, Long> getRejected();
+
+        Map<String, Double> getMeanWaitMillis();
+
+        Map<String, Double> getP99WaitMillis();
+
+        long getThrottled();
+
+        String getSummary();
+    }
+
+    private static final class Waiter {
+        final CompletableFuture<Void> future = new CompletableFuture<>();
+        final long enqueuedAt = System.nanoTime();
+        final Lane lane;
+
+        Waiter(Lane lane) {
+            this.lane = lane;
+        }
+    }
+
+    private static final class Lane {
+        final ArrayDeque<Waiter> queue = new ArrayDeque<>();
+        final LatencyHistogram waits = new LatencyHistogram();
+        final LongAdder granted = new LongAdder();
+        final LongAdder rejected = new LongAdder();
+    }
+
+    private final int requestsPerMinute;
+    private final double burst;
+    private final double tokensPerNano;
+    private final Map<Priority, Lane> lanes = new EnumMap<>(Priority.class);
+    private final LongAdder throttled = new LongAdder();
+
+    private double tokens;
+    private long refilledAt = System.nanoTime();
+    private long blockedUntil = refilledAt;
+    private boolean drainScheduled;
+    private ScheduledExecutorService scheduler;
+
+    /**
+     * @param requestsPerMinute cuota; 0 o menos, sin límite
+     * @param burst             peticiones seguidas que se admiten con el cubo lleno
+     */
+    public RequestRateLimiter(int requestsPerMinute, int burst) {
+        if (requestsPerMinute > 0 && burst <= 0) {
+            throw new IllegalArgumentException("La ráfaga debe ser positiva");
+        }
+        this.requestsPerMinute = Math.max(0, requestsPerMinute);
+        this.burst = burst;
+        this.tokensPerNano = requestsPerMinute / (double) TimeUnit.MINUTES.toNanos(1);
+        this.tokens = burst;
+        for (Priority priority : Priority.values()) {
+            lanes.put(priority, new Lane());
+        }
+    }
+
+    /**
+     * Cuota por minuto con ráfagas de hasta 10 s de cuota
+     */
+    public RequestRateLimiter(int requestsPerMinute) {
+        this(requestsPerMinute, Math.max(1, requestsPerMinute / 6));
+    }
+
+    public static RequestRateLimiter unlimited() {
+        return new RequestRateLimiter(0);
+    }
+
+    /**
+     * Limitador compartido por toda la aplicación (una clave, una cuota), con la cuota de
+     * {@value #QUOTA_PROPERTY}
+     */
+    public static RequestRateLimiter global() {
+        return GLOBAL;
+    }
+
+    private static RequestRateLimiter createGlobal() {
+        int quota = DEFAULT_REQUESTS_PER_MINUTE;
+        String value = System.getProperty(QUOTA_PROPERTY);
+        if (value != null && !value.isBlank()) {
+            try {
+                quota = Integer.parseInt(value.trim());
+            } catch (NumberFormatException e) {
+                System.err.println("Valor no válido para " + QUOTA_PROPERTY + ": " + value);
+            }
+        }
+        RequestRateLimiter limiter = new RequestRateLimiter(quota);
+        try {
+            ManagementFactory.getPlatformMBeanServer().registerMBean(limiter.new Quota(), new ObjectName(OBJECT_NAME));
+        } catch (JMException | SecurityException e) {
+            System.err.println("No se pudieron registrar las métricas de la cuota: " + e.getMessage());
+        }
+        return limiter;
+    }
+
+    public boolean isUnlimited() {
+        return requestsPerMinute == 0;
+    }
+
+    public int getRequestsPerMinute() {
+        return requestsPerMinute;
+    }
+
+    /**
+     * Pide una ficha. El futuro se completa cuando se puede lanzar la petición, o falla con
+     * una {@link WeatherException} si la espera prevista supera la máxima del carril.
+     * Cancelarlo mientras espera deja libre su puesto en la cola sin gastar ficha.
+     */
+    public CompletableFuture<Void> acquire(Priority priority) {
+        Lane lane = lanes.get(priority);
+        if (isUnlimited()) {
+            lane.granted.increment();
+            lane.waits.recordNanos(0);
+            return CompletableFuture.completedFuture(null);
+        }
+        long waitNanos;
+        synchronized (this) {
+            long now = System.nanoTime();
+            refill(now);
+            // Delante van los que ya esperan en este carril y en los más prioritarios
+            int ahead = 0;
+            for (Priority p : Priority.values()) {
+                if (p.ordinal() <= priority.ordinal()) {
+                    ahead += lanes.get(p).queue.size();
+                }
+            }
+            if (ahead == 0 && now - blockedUntil >= 0 && tokens >= needed(priority)) {
+                tokens -= 1;
+                lane.granted.increment();
+                lane.waits.recordNanos(0);
+                return CompletableFuture.completedFuture(null);
+            }
+            waitNanos = Math.max(blockedUntil - now, (long) Math.ceil((ahead + needed(priority) - tokens) / tokensPerNano));
+            if (waitNanos <= TimeUnit.MILLISECONDS.toNanos(priority.maxWaitMillis)) {
+                Waiter waiter = new Waiter(lane);
+                lane.queue.add(waiter);
+                waiter.future.whenComplete((ignored, error) -> {
+                    if (waiter.future.isCancelled()) {
+                        withdraw(waiter);
+                    }
+                });
+                scheduleDrain(now);
+                return waiter.future;
+            }
+        }
+        lane.rejected.increment();
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos));
+        return CompletableFuture.failedFuture(new WeatherException(
+                "Error: Cuota de la API agotada; inténtalo de nuevo en " + seconds + " s."));
+    }
+
+    /**
+     * La API ha respondido 429: se vacía el cubo y nadie pasa hasta que acabe el Retry-After
+     */
+    public void onThrottled(long retryAfterMillis) {
+        if (isUnlimited()) {
+            return;
+        }
+        throttled.increment();
+        synchronized (this) {
+            long now = System.nanoTime();
+            refill(now);
+            tokens = 0;
+            long until = now + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis > 0 ? retryAfterMillis : DEFAULT_THROTTLE_MILLIS);
+            if (until - blockedUntil > 0) {
+                blockedUntil = until;
+            }
+        }
+    }
+
+    /**
+     * Sin fichas libres o con peticiones en cola: el trabajo en segundo plano debe esperar
+     */
+    public synchronized boolean isSaturated() {
+        if (isUnlimited()) {
+            return false;
+        }
+        long now = System.nanoTime();
+        refill(now);
+        return now - blockedUntil < 0 || tokens < needed(Priority.PREFETCH) || queued() > 0;
+    }
+
+    public synchronized double getAvailableTokens() {
+        if (isUnlimited()) {
+            return Double.POSITIVE_INFINITY;
+        }
+        refill(System.nanoTime());
+        return tokens;
+    }
+
+    public synchronized int getQueueDepth(Priority priority) {
+        return lanes.get(priority).queue.size();
+    }
+
+    public long getGranted(Priority priority) {
+        return lanes.get(priority).granted.sum();
+    }
+
+    public long getRejected(Priority priority) {
+        return lanes.get(priority).rejected.sum();
+    }
+
+    /**
+     * Tiempo que esperan las peticiones del carril hasta tener ficha (0 si pasan directamente)
+     */
+    public LatencyHistogram waitHistogram(Priority priority) {
+        return lanes.get(priority).waits;
+    }
+
+    public long getThrottled() {
+        return throttled.sum();
+    }
+
+    /**
+     * Fichas que necesita el carril en el cubo para tomar una (la suya más la reserva)
+     */
+    private double needed(Priority priority) {
+        return Math.min(burst, 1 + priority.reserve * burst);
+    }
+
+    private void refill(long now) {
+        tokens = Math.min(burst, tokens + (now - refilledAt) * tokensPerNano);
+        refilledAt = now;
+    }
+
+    private int queued() {
+        int total = 0;
+        for (Lane lane : lanes.values()) {
+            total += lane.queue.size();
+        }
+        return total;
+    }
+
+    /**
+     * Una espera cancelada sale de la cola: ya no cuenta para las esperas previstas de los demás
+     */
+    private synchronized void withdraw(Waiter waiter) {
+        waiter.lane.queue.remove(waiter);
+    }
+
+    /**
+     * La ficha se concedió a una espera cancelada justo antes de completarla: vuelve al cubo
+     */
+    private synchronized void refund(Waiter waiter) {
+        refill(System.nanoTime());
+        tokens = Math.min(burst, tokens + 1);
+        waiter.lane.granted.decrement();
+    }
+
+    /**
+     * Programa el reparto para cuando el primer carril con cola tenga ficha
+     */
+    private void scheduleDrain(long now) {
+        if (drainScheduled) {
+            return;
+        }
+        for (Priority priority : Priority.values()) {
+            if (!lanes.get(priority).queue.isEmpty()) {
+                long delay = Math.max(blockedUntil - now, (long) Math.ceil((needed(priority) - tokens) / tokensPerNano));
+                if (scheduler == null) {
+                    scheduler = Executors.newSingleThreadScheduledExecutor(r -> {
+                        Thread t = new Thread(r, "api-rate-limiter");
+                        t.setDaemon(true);
+                        return t;
+                    });
+                }
+                drainScheduled = true;
+                scheduler.schedule(this::drain, Math.max(TimeUnit.MILLISECONDS.toNanos(1), delay), TimeUnit.NANOSECONDS);
+                return;
+            }
+        }
+    }
+
+    /**
+     * Reparte las fichas disponibles por orden de carril; un carril con cola bloquea a los siguientes
+     */
+    private void drain() {
+        List<Waiter> ready = new ArrayList<>();
+        synchronized (this) {
+            drainScheduled = false;
+            long now = System.nanoTime();
+            refill(now);
+            if (now - blockedUntil >= 0) {
+                lanes:
+                for (Priority priority : Priority.values()) {
+                    Lane lane = lanes.get(priority);
+                    while (!lane.queue.isEmpty()) {
+                        Waiter waiter = lane.queue.peek();
+                        if (waiter.future.isDone()) {
+                            // Cancelada mientras esperaba
+                            lane.queue.poll();
+                            continue;
+                        }
+                        if (tokens < needed(priority)) {
+                            break lanes;
+                        }
+                        lane.queue.poll();
+                        tokens -= 1;
+                        lane.granted.increment();
+                        lane.waits.recordNanos(now - waiter.enqueuedAt);
+                        ready.add(waiter);
+                    }
+                }
+            }
+            scheduleDrain(now);
+        }
+        // Fuera del cerrojo: completar lanza ya la petición HTTP de cada una
+        for (Waiter waiter : ready) {
+            if (!waiter.future.complete(null)) {
+                refund(waiter);
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        if (isUnlimited()) {
+            return "RequestRateLimiter[sin límite]";
+        }
+        refill(System.nanoTime());
+        StringBuilder sb = new StringBuilder(String.format(Locale.ROOT,
+                "RequestRateLimiter[%d/min, fichas=%.1f/%.0f, 429=%d", requestsPerMinute, tokens, burst, throttled.sum()));
+        for (Priority priority : Priority.values()) {
+            Lane lane = lanes.get(priority);
+            sb.append(String.format(Locale.ROOT, ", %s: cola=%d concedidas=%d rechazadas=%d espera_p99=%.0f ms",
+                    priority.name().toLowerCase(Locale.ROOT), lane.queue.size(), lane.granted.sum(),
+                    lane.rejected.sum(), lane.waits.percentileMillis(0.99)));
+        }
+        return sb.append(']').toString();
+    }
+
+    private final class Quota implements QuotaMXBean {
+        @Override
+        public int getRequestsPerMinute() {
+            return requestsPerMinute;
+        }
+
+        @Override
+        public double getAvailableTokens() {
+            return RequestRateLimiter.this.getAvailableTokens();
+        }
+
+        @Override
+        public Map<String, Integer> getQueueDepth() {
+            Map<String, Integer> depth = new LinkedHashMap<>();
+            for (Priority priority : Priority.values()) {
+                depth.put(priority.name(), RequestRateLimiter.this.getQueueDepth(priority));
+            }
+            return depth;
+        }
+
+        @Override
+        public Map<String, Long> getGranted() {
+            Map<String, Long> granted = new LinkedHashMap<>();
+            lanes.forEach((priority, lane) -> granted.put(priority.name(), lane.granted.sum()));
+            return granted;
+        }
+
+        @Override
+        public Map<String, Long> getRejected() {
+            Map<String, Long> rejected = new LinkedHashMap<>();
+            lanes.forEach((priority, lane) -> rejected.put(priority.name(), lane.rejected.sum()));
+            return rejected;
+        }
+
+        @Override
+        public Map<String, Double> getMeanWaitMillis() {
+            Map<String, Double> waits = new LinkedHashMap<>();
+            lanes.forEach((priority, lane) -> waits.put(priority.name(), lane.waits.getMeanMillis()));
+            return waits;
+        }
+
+        @Override
+        public Map<String, Double> getP99WaitMillis() {
+            Map<String, Double> waits = new LinkedHashMap<>();
+            lanes.forEach((priority, lane) -> waits.put(priority.name(), lane.waits.percentileMillis(0.99)));
+            return waits;
+        }
+
+        @Override
+        public long getThrottled() {
+            return throttled.sum();
+        }
+
+        @Override
+        public String getSummary() {
+            return RequestRateLimiter.this.toString();
+        }
+    }
+}
@@ -0,0 +1,407 @@
+package org.example;
+
+import org.example.WeatherService.ForecastResponse;
+import org.example.WeatherService.Weather;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Estado de la sesión que se guarda al salir y se restaura al arrancar: posición y zoom del
+ * mapa, ubicación consultada, ubicaciones fijadas y los últimos pronósticos vistos.
+ *
+ * Formato binario propio. Cada pronóstico se guarda en columnas como {@link ForecastSeries}
+ * (una instantánea típica ocupa unas decenas de KB), así que leerlo son unas pocas copias de
+ * arrays primitivos desde el buffer, sin análisis de JSON. Al cargar solo se interpreta la
+ * cabecera; cada pronóstico se decodifica la primera vez que se pide ({@link #forecast}), o
+ * todos de una vez con {@link #decodeAll} (en el arranque, fuera del EDT).
+ */
+public class SessionSnapshot {
+
+    private static final int MAGIC = 0x4D4D5331; // "MMS1"
+    // 2: clave de caché del pronóstico mostrado tras la ubicación consultada
+    private static final int VERSION = 2;
+
+    private static final byte QUERY_NONE = 0;
+    private static final byte QUERY_CITY = 1;
+    private static final byte QUERY_COORDS = 2;
+
+    // Bytes por tramo en el fichero: dt, seis columnas float, tres short y la humedad
+    private static final int BYTES_PER_ITEM = 8 + 6 * 4 + 3 * 2 + 1;
+
+    public long savedAt;
+    public double mapLat = Double.NaN;
+    public double mapLon = Double.NaN;
+    public int zoom = -1;
+    public LocationQuery current;
+    // Clave de caché del pronóstico de current, para mostrarlo antes de que exista la caché
+    public String currentKey;
+    public final List<PinnedSite> pinned = new ArrayList<>();
+
+    // Pronósticos por clave de caché: los añadidos o ya decodificados...
+    private final Map<String, ForecastResponse> forecasts = new LinkedHashMap<>();
+    // ...y los que siguen codificados en el fichero (posición absoluta en data)
+    private final Map<String, Integer> encoded = new LinkedHashMap<>();
+    private ByteBuffer data;
+    private Weather[] fileConditions;
+    private short[] conditionCodes;
+
+    public static class PinnedSite {
+        public final LocationQuery location;
+        public final String label;
+
+        public PinnedSite(LocationQuery location, String label) {
+            this.location = location;
+            this.label = label;
+        }
+    }
+
+    public static Path defaultPath() {
+        return AppPaths.cacheDir("session").resolve("session.bin");
+    }
+
+    public synchronized void putForecast(String key, ForecastResponse response) {
+        if (response != null && response.list != null) {
+            encoded.remove(key);
+            forecasts.put(key, response);
+        }
+    }
+
+    public synchronized Set<String> forecastKeys() {
+        Set<String> keys = new LinkedHashSet<>(forecasts.keySet());
+        keys.addAll(encoded.keySet());
+        return keys;
+    }
+
+    /**
+     * Pronóstico guardado con esa clave (decodificándolo si hace falta), con su instante de
+     * descarga original; null si no está o si está dañado en el fichero
+     */
+    public synchronized ForecastResponse forecast(String key) {
+        ForecastResponse response = forecasts.get(key);
+        if (response != null) {
+            return response;
+        }
+        Integer position = encoded.remove(key);
+        if (position == null) {
+            return null;
+        }
+        try {
+            response = decodeForecast(data.duplicate().position(position));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            // La cabecera era válida pero el cuerpo no: se pierde solo este pronóstico
+            System.err.println("Pronóstico dañado en la instantánea de sesión (" + key + "): " + e);
+            return null;
+        }
+        forecasts.put(key, response);
+        return response;
+    }
+
+    /**
+     * Decodifica todos los pronósticos pendientes; los dañados se descartan
+     */
+    public synchronized void decodeAll() {
+        for (String key : new ArrayList<>(encoded.keySet())) {
+            forecast(key);
+        }
+    }
+
+    // --- Lectura ---
+
+    /**
+     * Lee la cabecera de una instantánea; null si el fichero no existe
+     */
+    public static SessionSnapshot load(Path path) throws IOException {
+        byte[] bytes;
+        try {
+            bytes = Files.readAllBytes(path);
+        } catch (NoSuchFileException e) {
+            return null;
+        }
+        try {
+            return parse(ByteBuffer.wrap(bytes));
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | IllegalArgumentException e) {
+            throw new IOException("Instantánea de sesión dañada: " + path, e);
+        }
+    }
+
+    private static SessionSnapshot parse(ByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+            throw new IOException("Instantánea de sesión de otra versión");
+        }
+        SessionSnapshot snapshot = new SessionSnapshot();
+        snapshot.savedAt = buffer.getLong();
+        snapshot.mapLat = buffer.getDouble();
+        snapshot.mapLon = buffer.getDouble();
+        snapshot.zoom = buffer.getInt();
+        snapshot.current = readQuery(buffer);
+        snapshot.currentKey = readString(buffer);
+
+        int pinnedCount = readCount(buffer);
+        for (int i = 0; i < pinnedCount; i++) {
+            LocationQuery location = readQuery(buffer);
+            String label = readString(buffer);
+            if (location != null) {
+                snapshot.pinned.add(new PinnedSite(location, label));
+            }
+        }
+
+        int conditionCount = readCount(buffer);
+        snapshot.fileConditions = new Weather[conditionCount];
+        for (int i = 0; i < conditionCount; i++) {
+            Weather weather = new Weather();
+            weather.main = readString(buffer);
+            weather.description = readString(buffer);
+            weather.icon = readString(buffer);
+            snapshot.fileConditions[i] = weather;
+        }
+
+        int forecastCount = readCount(buffer);
+        String[] keys = new String[forecastCount];
+        int[] offsets = new int[forecastCount];
+        for (int i = 0; i < forecastCount; i++) {
+            keys[i] = readString(buffer);
+            offsets[i] = buffer.getInt();
+        }
+        int bodyStart = buffer.position();
+        for (int i = 0; i < forecastCount; i++) {
+            if (offsets[i] < 0 || bodyStart + offsets[i] >= buffer.limit()) {
+                throw new IOException("Desplazamiento de pronóstico no válido");
+            }
+            snapshot.encoded.put(keys[i], bodyStart + offsets[i]);
+        }
+        snapshot.data = buffer;
+        return snapshot;
+    }
+
+    private ForecastResponse decodeForecast(ByteBuffer buffer) {
+        long fetchedAt = buffer.getLong();
+        String name = readString(buffer);
+        String country = readString(buffer);
+        double lat = buffer.getDouble();
+        double lon = buffer.getDouble();
+        int utcOffset = buffer.getInt();
+        int size = buffer.getInt();
+        if (size < 0 || (long) size * BYTES_PER_ITEM > buffer.remaining()) {
+            throw new IllegalArgumentException("Tamaño de pronóstico no válido: " + size);
+        }
+
+        ForecastSeries series = ForecastSeries.allocate(name, country, lat, lon, utcOffset, size);
+        // Columnas de mayor a menor ancho; cada una es una copia en bloque
+        buffer.asLongBuffer().get(series.dt);
+        buffer.position(buffer.position() + 8 * size);
+        for (float[] column : new float[][]{series.temp, series.feelsLike, series.tempMin, series.tempMax, series.windSpeed, series.pop}) {
+            buffer.asFloatBuffer().get(column);
+            buffer.position(buffer.position() + 4 * size);
+        }
+        for (short[] column : new short[][]{series.pressure, series.windDeg, series.conditionCode}) {
+            buffer.asShortBuffer().get(column);
+            buffer.position(buffer.position() + 2 * size);
+        }
+        buffer.get(series.humidity);
+
+        // Los códigos del fichero se traducen a los del diccionario de este proceso
+        short[] codes = conditionCodes();
+        for (int i = 0; i < size; i++) {
+            short code = series.conditionCode[i];
+            series.conditionCode[i] = code >= 0 && code < codes.length ? codes[code] : -1;
+        }
+
+        ForecastResponse response = series.toResponse();
+        response.fetchedAt = fetchedAt;
+        return response;
+    }
+
+    private short[] conditionCodes() {
+        if (conditionCodes == null) {
+            conditionCodes = new short[fileConditions.length];
+            for (int i = 0; i < fileConditions.length; i++) {
+                conditionCodes[i] = ForecastSeries.conditionCode(fileConditions[i]);
+            }
+        }
+        return conditionCodes;
+    }
+
+    private static LocationQuery readQuery(ByteBuffer buffer) {
+        byte kind = buffer.get();
+        if (kind == QUERY_CITY) {
+            return LocationQuery.city(readString(buffer));
+        }
+        if (kind == QUERY_COORDS) {
+            double lat = buffer.getDouble();
+            double lon = buffer.getDouble();
+            return LocationQuery.coords(lat, lon);
+        }
+        return null;
+    }
+
+    /**
+     * Número de elementos que siguen; cada uno ocupa al menos un byte
+     */
+    private static int readCount(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0 || count > buffer.remaining()) {
+            throw new IllegalArgumentException("Número de elementos no válido: " + count);
+        }
+        return count;
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        if (length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        String value = new String(buffer.array(), buffer.arrayOffset() + buffer.position(), length, StandardCharsets.UTF_8);
+        buffer.position(buffer.position() + length);
+        return value;
+    }
+
+    // --- Escritura ---
+
+    /**
+     * Escribe la instantánea (en un temporal que luego sustituye al fichero)
+     */
+    public synchronized void save(Path path) throws IOException {
+        // Antes de escribir se decodifica lo que siga pendiente del fichero anterior
+        decodeAll();
+
+        Map<Short, Integer> conditionIndex = new HashMap<>();
+        List<Weather> conditions = new ArrayList<>();
+        ByteArrayOutputStream bodyBytes = new ByteArrayOutputStream(forecasts.size() * 2048);
+        DataOutputStream body = new DataOutputStream(bodyBytes);
+        int[] offsets = new int[forecasts.size()];
+        int index = 0;
+        for (ForecastResponse response : forecasts.values()) {
+            offsets[index++] = body.size();
+            writeForecast(body, response, conditionIndex, conditions);
+        }
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(bodyBytes.size() + 4096);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(System.currentTimeMillis());
+        out.writeDouble(mapLat);
+        out.writeDouble(mapLon);
+        out.writeInt(zoom);
+        writeQuery(out, current);
+        writeString(out, currentKey);
+        out.writeInt(pinned.size());
+        for (PinnedSite site : pinned) {
+            writeQuery(out, site.location);
+            writeString(out, site.label);
+        }
+        out.writeInt(conditions.size());
+        for (Weather weather : conditions) {
+            writeString(out, weather.main);
+            writeString(out, weather.description);
+            writeString(out, weather.icon);
+        }
+        out.writeInt(forecasts.size());
+        index = 0;
+        for (String key : forecasts.keySet()) {
+            writeString(out, key);
+            out.writeInt(offsets[index++]);
+        }
+        bodyBytes.writeTo(out);
+        out.flush();
+
+        Files.createDirectories(path.toAbsolutePath().getParent());
+        Path tmp = path.resolveSibling(path.getFileName() + ".tmp");
+        Files.write(tmp, bytes.toByteArray());
+        try {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    private static void writeForecast(DataOutputStream out, ForecastResponse response,
+                                      Map<Short, Integer> conditionIndex, List<Weather> conditions) throws IOException {
+        ForecastSeries series = ForecastSeries.from(response);
+        int size = series.size();
+        out.writeLong(response.fetchedAt);
+        writeString(out, series.cityName);
+        writeString(out, series.country);
+        out.writeDouble(series.lat);
+        out.writeDouble(series.lon);
+        out.writeInt(series.utcOffsetSeconds);
+        out.writeInt(size);
+        for (long value : series.dt) {
+            out.writeLong(value);
+        }
+        for (float[] column : new float[][]{series.temp, series.feelsLike, series.tempMin, series.tempMax, series.windSpeed, series.pop}) {
+            for (float value : column) {
+                out.writeFloat(value);
+            }
+        }
+        for (short[] column : new short[][]{series.pressure, series.windDeg}) {
+            for (short value : column) {
+                out.writeShort(value);
+            }
+        }
+        // En el fichero, los estados del cielo se numeran según su propia tabla
+        for (short code : series.conditionCode) {
+            if (code < 0) {
+                out.writeShort(-1);
+                continue;
+            }
+            Integer fileCode = conditionIndex.get(code);
+            if (fileCode == null) {
+                fileCode = conditions.size();
+                conditionIndex.put(code, fileCode);
+                conditions.add(ForecastSeries.condition(code));
+            }
+            out.writeShort(fileCode);
+        }
+        out.write(series.humidity);
+    }
+
+    private static void writeQuery(DataOutputStream out, LocationQuery query) throws IOException {
+        if (query == null) {
+            out.writeByte(QUERY_NONE);
+        } else if (query.isCity()) {
+            out.writeByte(QUERY_CITY);
+            writeString(out, query.getCity());
+        } else {
+            out.writeByte(QUERY_COORDS);
+            out.writeDouble(query.getLat());
+            out.writeDouble(query.getLon());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String value) throws IOException {
+        if (value == null) {
+            out.writeInt(-1);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "SessionSnapshot[" + (encoded.size() + forecasts.size()) + " pronósticos, "
+                + pinned.size() + " fijadas, actual=" + current + "]";
+    }
+}
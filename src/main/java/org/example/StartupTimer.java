@@ -0,0 +1,86 @@
+package org.example;
+
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Tiempos de arranque medidos desde que se lanzó el proceso: primer fotograma (la ventana ya
+ * pinta algo) e interactiva (mapa y búsqueda disponibles). Al llegar a interactiva se escribe
+ * un resumen en stderr y un aviso si se supera el presupuesto ({@value #BUDGET_PROPERTY}).
+ */
+public final class StartupTimer {
+
+    public static final String BUDGET_PROPERTY = "meteomap.startup.budget.ms";
+    public static final long DEFAULT_BUDGET_MILLIS = 1500;
+
+    // Si el sistema no informa del inicio del proceso se toma la carga de esta clase
+    private static final long PROCESS_START = ProcessHandle.current().info().startInstant()
+            .map(Instant::toEpochMilli)
+            .orElseGet(System::currentTimeMillis);
+
+    private static final Map<String, Long> marks = new LinkedHashMap<>();
+    private static long firstFrameMillis = -1;
+    private static long interactiveMillis = -1;
+
+    private StartupTimer() {
+    }
+
+    public static long sinceProcessStartMillis() {
+        return System.currentTimeMillis() - PROCESS_START;
+    }
+
+    /**
+     * Anota una fase intermedia del arranque
+     */
+    public static synchronized void mark(String phase) {
+        marks.putIfAbsent(phase, sinceProcessStartMillis());
+    }
+
+    /**
+     * La ventana ha pintado por primera vez; solo cuenta la primera llamada
+     */
+    public static synchronized void firstFrame() {
+        if (firstFrameMillis < 0) {
+            firstFrameMillis = sinceProcessStartMillis();
+        }
+    }
+
+    /**
+     * La aplicación ya responde; solo cuenta la primera llamada
+     */
+    public static void interactive() {
+        String summary;
+        long budget = Long.getLong(BUDGET_PROPERTY, DEFAULT_BUDGET_MILLIS);
+        synchronized (StartupTimer.class) {
+            if (interactiveMillis >= 0) {
+                return;
+            }
+            interactiveMillis = sinceProcessStartMillis();
+            summary = summary();
+        }
+        System.err.println(summary);
+        if (interactiveMillis > budget) {
+            System.err.printf(Locale.ROOT, "AVISO: el arranque (%d ms) supera el presupuesto de %d ms%n", interactiveMillis, budget);
+        }
+    }
+
+    public static synchronized long getFirstFrameMillis() {
+        return firstFrameMillis;
+    }
+
+    public static synchronized long getInteractiveMillis() {
+        return interactiveMillis;
+    }
+
+    private static String summary() {
+        StringBuilder sb = new StringBuilder("Arranque:");
+        for (Map.Entry<String, Long> mark : marks.entrySet()) {
+            sb.append(' ').append(mark.getKey()).append('=').append(mark.getValue()).append(" ms,");
+        }
+        sb.append(" primer fotograma=").append(firstFrameMillis).append(" ms,");
+        sb.append(" interactiva=").append(interactiveMillis).append(" ms");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,64 @@
+package org.example;
+
+import org.example.DailyForecastAggregator.DailySummary;
+import org.example.WeatherService.ForecastResponse;
+import org.jxmapviewer.JXMapKit;
+
+import javax.swing.JTextField;
+import javax.swing.UIManager;
+import java.io.StringReader;
+import java.util.List;
+
+/**
+ * Ejecución de entrenamiento para el archivo CDS (perfil Maven {@code cds}).
+ *
+ * Recorre el arranque sin ventana ni red: crea los servicios, decodifica y agrega un
+ * pronóstico y monta los componentes ligeros (el mapa y la lista por horas se pueden crear
+ * sin pantalla). El JVM, lanzado con {@code -XX:ArchiveClassesAtExit}, guarda al salir las
+ * clases cargadas, que en los arranques siguientes se mapean ya verificadas.
+ */
+final class StartupTraining {
+
+    // Un tramo de pronóstico basta para recorrer el JSON, la agregación y el formateo
+    private static final String SAMPLE = "{\"list\":[{\"dt\":1760767200,"
+            + "\"main\":{\"temp\":7.4,\"feels_like\":7.2,\"temp_min\":6.9,\"temp_max\":7.7,\"pressure\":1014,\"humidity\":51},"
+            + "\"weather\":[{\"main\":\"Clear\",\"description\":\"cielo claro\",\"icon\":\"01n\"}],"
+            + "\"wind\":{\"speed\":7.4,\"deg\":157},\"pop\":0.0}],"
+            + "\"city\":{\"name\":\"Madrid\",\"country\":\"ES\",\"coord\":{\"lat\":40.4167,\"lon\":-3.7032},\"timezone\":7200}}";
+
+    private StartupTraining() {
+    }
+
+    static int run() {
+        System.setProperty("java.awt.headless", "true");
+        try {
+            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
+            AppServices services = AppServices.start().services.join();
+
+            ForecastResponse sample = ForecastJson.read(new StringReader(SAMPLE));
+            services.weatherService.getCache().put(services.weatherService.cacheKey(LocationQuery.city("Madrid")), sample);
+            List<DailySummary> days = DailyForecastAggregator.aggregate(sample);
+            HourlyForecastList.buildRows(sample.list, sample.city.timezone);
+            ForecastSeries.from(sample).toResponse();
+
+            JXMapKit map = new JXMapKit();
+            map.getMainMap().setTileFactory(services.tileFactory);
+            map.getMainMap().setOverlayPainter(new ForecastMarkersPainter(null));
+            WeatherIconCache iconCache = new WeatherIconCache();
+            new HourlyForecastList(iconCache);
+            new DayCard(iconCache, true, day -> { }).update(days.get(0));
+            new CityAutocomplete(new JTextField(), place -> { });
+            if (services.gazetteer != null) {
+                services.gazetteer.suggest("Mad", CityAutocomplete.MAX_SUGGESTIONS);
+            }
+            AppServices.preload("org.example.WeatherAppUI", "org.example.SessionSnapshot",
+                    "org.example.PinnedLocationsScheduler", "org.example.ForecastRequestScheduler");
+
+            System.err.println("Entrenamiento del arranque completado en " + StartupTimer.sinceProcessStartMillis() + " ms");
+            return 0;
+        } catch (Exception e) {
+            System.err.println("Falló el entrenamiento del arranque: " + e);
+            return 1;
+        }
+    }
+}
@@ -1,39 +1,71 @@
 package org.example;
 
 import org.example.WeatherService.*;
+import org.example.DailyForecastAggregator.DailySummary;
 
 import org.jxmapviewer.JXMapKit;
-import org.jxmapviewer.OSMTileFactoryInfo;
 import org.jxmapviewer.viewer.DefaultTileFactory;
 import org.jxmapviewer.viewer.GeoPosition;
-import org.jxmapviewer.viewer.TileFactoryInfo;
 
 import javax.swing.*;
 import javax.swing.border.Border;
-import javax.swing.border.LineBorder;
 import javax.swing.border.TitledBorder;
 import java.awt.*;
+import java.awt.event.AWTEventListener;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
-import java.text.SimpleDateFormat;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.concurrent.CompletableFuture;
 import java.util.List;
 import java.util.Map;
-import java.util.ArrayList;
-import java.util.LinkedHashMap;
-import java.util.Date;
-import java.util.TimeZone;
 
 public class WeatherAppUI extends JFrame {
 
     // --- CAMPOS DE LA UI ---
-    private final WeatherService weatherService;
-    private JEditorPane hourlyResultArea;
+    private final ForecastRequestScheduler requestScheduler;
+    private final WeatherIconCache iconCache;
+    private final ForecastMarkersPainter markersPainter;
+    // Servicios creados en segundo plano durante el arranque: null hasta completeStartup()
+    private WeatherService weatherService;
+    private ForecastHistoryStore historyStore;
+    private PinnedLocationsScheduler pinnedScheduler;
+    private DiskTileCache tileCache;
+    // Pronósticos de la caché (además del mostrado y los fijados) que se guardan al salir
+    private static final int SESSION_RECENT_FORECASTS = 32;
+    private HourlyForecastList hourlyList;
+    private JLabel hourlyMessageLabel;
+    private JLabel hourlyDayHeader;
+    private JScrollPane hourlyScrollPane;
     private JPanel dailyForecastPanel;
+    // Tarjetas de los días: se crean una vez y cada pronóstico solo actualiza su contenido
+    private static final int DAY_CARDS = 5;
+    private final DayCard[] dayCards = new DayCard[DAY_CARDS];
     private JTextField cityField;
+    private CityAutocomplete cityAutocomplete;
+    // null hasta completeStartup() o si no se pudo cargar
+    private Gazetteer gazetteer;
     private JButton searchButton;
+    private JToggleButton pinButton;
+    private JComboBox<LocationQuery> pinnedCombo;
+    private JCheckBox offlineCheck;
+    private JLabel logoLabel;
+    private JPanel leftPanel;
     private JXMapKit mapKit;
 
     private ForecastResponse currentForecast;
+    // Ubicación de la última búsqueda (la que se fija con el botón)
+    private LocationQuery currentQuery;
+    // Nombre que se muestra para cada ubicación fijada
+    private final Map<LocationQuery, String> pinnedLabels = new HashMap<>();
+    // El combo selecciona solo el primer elemento que se añade: ese evento no es del usuario
+    private boolean updatingPinnedCombo;
+    private DailySummary currentDay;
+    private HourlyForecastList.Row[] currentHourlyRows;
+    // La primera etapa de la sesión anterior ya se mostró (o no había nada que mostrar)
+    private boolean sessionShown;
 
     // --- Colores ---
     private static final Color COLOR_PRIMARIO = new Color(0, 123, 255);
@@ -42,15 +74,23 @@ public class WeatherAppUI extends JFrame {
     private static final Color COLOR_FONDO_PANEL = Color.WHITE;
     private static final Color COLOR_BORDE = new Color(220, 220, 220);
 
-    public WeatherAppUI() {
+    /**
+     * Arranque por etapas: el constructor monta y muestra el armazón de la ventana (cabecera
+     * y paneles del pronóstico) con el último pronóstico de la sesión anterior, que se lee en
+     * paralelo con los servicios ({@link #showSession}). El mapa y todo lo que depende de los
+     * servicios se añaden en {@link #completeStartup} cuando terminan de crearse en segundo
+     * plano.
+     */
+    public WeatherAppUI(AppServices.Startup startup) {
         super("Weather App");
-        this.weatherService = new WeatherService();
-
-        try {
-            UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
+        this.requestScheduler = new ForecastRequestScheduler();
+        this.iconCache = new WeatherIconCache();
+        // Cuando llega un icono nuevo se repintan los paneles que lo estaban esperando
+        this.iconCache.addLoadListener(() -> SwingUtilities.invokeLater(this::onIconLoaded));
+        // Los iconos se cargan en los hilos de la propia caché
+        this.iconCache.preloadAll();
+        // Marcadores del mapa: uno por pronóstico en la caché, agrupados por zoom
+        this.markersPainter = new ForecastMarkersPainter(iconCache);
 
         // --- 1. Configuración de la ventana: MAXIMIZADA ---
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
@@ -74,7 +114,210 @@ public class WeatherAppUI extends JFrame {
         // --- 5. Añadir el splitPane al centro de la ventana ---
         add(splitPane, BorderLayout.CENTER);
 
+        // --- 6. La sesión se guarda al salir (si el arranque llegó a completarse) ---
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                saveSession();
+            }
+        });
+
+        // Si la sesión ya está decodificada sale en el primer fotograma; si no, en cuanto llegue
+        if (startup.session.isDone()) {
+            showSession(startup.session.join());
+        } else {
+            startup.session.thenAccept(session -> SwingUtilities.invokeLater(() -> showSession(session)));
+        }
+
         setVisible(true);
+        StartupTimer.mark("ventana");
+
+        CompletableFuture.allOf(startup.session, startup.services).whenComplete((ignored, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                handleForecastError(error);
+            } else {
+                completeStartup(startup.services.join(), startup.session.join());
+            }
+        }));
+    }
+
+    /**
+     * Segunda etapa del arranque (en el EDT): conecta los servicios, crea el mapa, termina de
+     * restaurar la sesión anterior y habilita la búsqueda
+     */
+    private void completeStartup(AppServices services, SessionSnapshot session) {
+        this.weatherService = services.weatherService;
+        this.historyStore = services.historyStore;
+        this.tileCache = services.tileCache;
+        this.gazetteer = services.gazetteer;
+        cityAutocomplete.setGazetteer(gazetteer);
+        // Un pronóstico servido caducado se sustituye en cuanto llega el refresco
+        weatherService.addRevalidationListener(fresh -> SwingUtilities.invokeLater(() -> onForecastRevalidated(fresh)));
+        // Cada descarga queda en el historial en disco (si no se pudo abrir, se sigue sin él)
+        if (historyStore != null) {
+            weatherService.addFetchListener(historyStore::append);
+        }
+        weatherService.getCache().addListener(markersPainter);
+        this.pinnedScheduler = new PinnedLocationsScheduler(weatherService);
+        pinnedScheduler.start();
+        // Cualquier clic o tecla cuenta como actividad; sin ella la precarga se pausa
+        AWTEventListener activityListener = e -> pinnedScheduler.markActivity();
+        Toolkit.getDefaultToolkit().addAWTEventListener(activityListener, AWTEvent.MOUSE_EVENT_MASK | AWTEvent.KEY_EVENT_MASK);
+
+        if (services.logo != null) {
+            logoLabel.setIcon(new ImageIcon(services.logo));
+        } else {
+            logoLabel.setText("<html><b style='font-size: 1.5em; color: " + getRgbString(COLOR_PRIMARIO) + ";'>☀️ MeteoMap (Logo no encontrado)</b></html>");
+        }
+
+        leftPanel.removeAll();
+        leftPanel.add(createMap(services.tileFactory), BorderLayout.CENTER);
+        leftPanel.revalidate();
+        leftPanel.repaint();
+
+        // El último pronóstico ya está pintado (salvo que su aviso aún esté en cola): falta
+        // devolver la sesión a la caché y al mapa
+        showSession(session);
+        if (session != null) {
+            restoreSession(session);
+        }
+
+        searchButton.setEnabled(true);
+        pinnedCombo.setEnabled(true);
+        // Sin caché de teselas no hay nada que mostrar sin conexión
+        offlineCheck.setEnabled(tileCache != null);
+        StartupTimer.mark("servicios");
+        // Va detrás de la maquetación y el pintado que acabamos de encolar
+        SwingUtilities.invokeLater(StartupTimer::interactive);
+    }
+
+    /**
+     * Primera etapa de la sesión anterior (en el EDT, sin servicios): la ubicación consultada
+     * y su último pronóstico, marcado como antiguo si ya caducó. Aún no hay caché, así que la
+     * vigencia se juzga con el TTL por defecto, que es el de la caché de la aplicación.
+     */
+    private void showSession(SessionSnapshot session) {
+        if (sessionShown) {
+            return;
+        }
+        sessionShown = true;
+        if (session == null || session.current == null) {
+            return;
+        }
+        try {
+            // El botón de fijar se actualiza en completeStartup, cuando existe el planificador
+            currentQuery = session.current;
+            if (session.current.isCity()) {
+                cityField.setText(session.current.getCity());
+            }
+            ForecastResponse forecast = session.currentKey != null ? session.forecast(session.currentKey) : null;
+            if (forecast != null && forecast.ageMillis() < ForecastCache.DEFAULT_MAX_STALE_MILLIS) {
+                boolean expired = forecast.ageMillis() >= ForecastCache.DEFAULT_TTL_MILLIS;
+                currentForecast = expired ? forecast.asStale() : forecast;
+                updateHourlyPanelTitle(hourlyTitleFor(currentForecast));
+                updateUIWithForecast();
+            }
+        } catch (RuntimeException e) {
+            System.err.println("No se pudo mostrar la sesión anterior: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Segunda etapa de la sesión anterior, con los servicios ya creados: mapa, ubicaciones
+     * fijadas, refresco del pronóstico mostrado si ya caducó y el resto de pronósticos de
+     * vuelta a la caché en segundo plano. Un fallo no impide habilitar la interfaz.
+     */
+    private void restoreSession(SessionSnapshot session) {
+        try {
+            restoreServices(session);
+        } catch (RuntimeException e) {
+            System.err.println("No se pudo restaurar la sesión anterior: " + e.getMessage());
+        }
+    }
+
+    private void restoreServices(SessionSnapshot session) {
+        ForecastCache cache = weatherService.getCache();
+
+        if (!Double.isNaN(session.mapLat) && !Double.isNaN(session.mapLon)) {
+            mapKit.setAddressLocation(new GeoPosition(session.mapLat, session.mapLon));
+        }
+        if (session.zoom >= 0) {
+            mapKit.setZoom(session.zoom);
+        }
+
+        // Las fijadas se restauran con su pronóstico en caché para no refrescarlas todas a la vez
+        updatingPinnedCombo = true;
+        try {
+            for (SessionSnapshot.PinnedSite site : session.pinned) {
+                restoreForecast(session, weatherService.cacheKey(site.location), cache);
+                pinnedScheduler.pin(site.location);
+                pinnedLabels.put(site.location, site.label != null ? site.label : site.location.toString());
+                pinnedCombo.addItem(site.location);
+            }
+            pinnedCombo.setSelectedItem(null);
+        } finally {
+            updatingPinnedCombo = false;
+        }
+
+        if (session.current != null && session.current.equals(currentQuery)) {
+            setCurrentQuery(currentQuery);
+            ForecastResponse forecast = restoreForecast(session, weatherService.cacheKey(session.current), cache);
+            if (forecast != null && currentForecast != null && currentForecast.stale) {
+                // Llega por onForecastRevalidated; es lo que el usuario está mirando
+                weatherService.refreshAsync(session.current, RequestRateLimiter.Priority.INTERACTIVE);
+            }
+        }
+
+        Thread.startVirtualThread(() -> {
+            for (String key : session.forecastKeys()) {
+                restoreForecast(session, key, cache);
+            }
+        });
+    }
+
+    private static ForecastResponse restoreForecast(SessionSnapshot session, String key, ForecastCache cache) {
+        ForecastResponse forecast = session.forecast(key);
+        if (forecast != null) {
+            cache.restore(key, forecast);
+        }
+        return forecast;
+    }
+
+    /**
+     * Guarda la sesión al cerrar la ventana: el pronóstico mostrado, los de las ubicaciones
+     * fijadas y los {@value #SESSION_RECENT_FORECASTS} más recientes de la caché
+     */
+    private void saveSession() {
+        if (weatherService == null) {
+            // Se cerró antes de terminar el arranque: se conserva la sesión anterior
+            return;
+        }
+        SessionSnapshot session = new SessionSnapshot();
+        GeoPosition center = mapKit.getMainMap().getCenterPosition();
+        session.mapLat = center.getLatitude();
+        session.mapLon = center.getLongitude();
+        session.zoom = mapKit.getMainMap().getZoom();
+        session.current = currentQuery;
+        ForecastCache cache = weatherService.getCache();
+        if (currentQuery != null && currentForecast != null) {
+            session.currentKey = weatherService.cacheKey(currentQuery);
+            session.putForecast(session.currentKey, currentForecast);
+        }
+        for (LocationQuery location : pinnedScheduler.getPinned()) {
+            session.pinned.add(new SessionSnapshot.PinnedSite(location, pinnedLabels.get(location)));
+            String key = weatherService.cacheKey(location);
+            session.putForecast(key, cache.getStale(key));
+        }
+        cache.recent(SESSION_RECENT_FORECASTS).forEach((key, forecast) -> {
+            if (!session.forecastKeys().contains(key)) {
+                session.putForecast(key, forecast);
+            }
+        });
+        try {
+            session.save(SessionSnapshot.defaultPath());
+        } catch (IOException | RuntimeException e) {
+            System.err.println("No se pudo guardar la sesión: " + e.getMessage());
+        }
     }
 
     /**
@@ -97,34 +340,11 @@ public class WeatherAppUI extends JFrame {
         JPanel logoPanel = new JPanel(new FlowLayout(FlowLayout.LEFT, 20, 10));
         logoPanel.setBackground(COLOR_FONDO_PANEL);
 
-        // --- Carga y escalado del logo horizontal ---
-        try {
-            // Se asume que 'MeteoMapLogoHorizontal.png' está en la carpeta de recursos
-            java.net.URL imageUrl = WeatherAppUI.class.getResource("/MeteoMapLogo.png");
-
-            if (imageUrl != null) {
-                ImageIcon originalIcon = new ImageIcon(imageUrl);
-
-                // ESCALADO MODIFICADO: Aumentado a 60px de alto
-                Image image = originalIcon.getImage();
-                Image scaledImage = image.getScaledInstance(330, 80, Image.SCALE_SMOOTH);
-                JLabel logoImageLabel = new JLabel(new ImageIcon(scaledImage));
-                logoPanel.add(logoImageLabel);
-            } else {
-                // Fallback si la imagen no se encuentra
-                JLabel iconLabel = new JLabel("☀️");
-                iconLabel.setFont(new Font("Arial", Font.BOLD, 24));
-                JLabel fallbackLabel = new JLabel("<html><b style='font-size: 1.5em; color: " + getRgbString(COLOR_PRIMARIO) + ";'>MeteoMap (Logo no encontrado)</b></html>");
-                fallbackLabel.setFont(new Font("Arial", Font.BOLD, 20));
-                logoPanel.add(iconLabel);
-                logoPanel.add(fallbackLabel);
-            }
-        } catch (Exception e) {
-            // Fallback en caso de error de carga
-            JLabel fallbackLabel = new JLabel("<html><b style='font-size: 1.5em; color: " + getRgbString(COLOR_PRIMARIO) + ";'>MeteoMap (Error)</b></html>");
-            fallbackLabel.setFont(new Font("Arial", Font.BOLD, 20));
-            logoPanel.add(fallbackLabel);
-        }
+        // --- Logo horizontal: se escala en segundo plano y se pone al completar el arranque ---
+        this.logoLabel = new JLabel();
+        logoLabel.setFont(new Font("Arial", Font.BOLD, 20));
+        logoLabel.setPreferredSize(new Dimension(AppServices.LOGO_WIDTH, AppServices.LOGO_HEIGHT));
+        logoPanel.add(logoLabel);
         // --- Fin de carga del logo ---
 
         topBarPanel.add(logoPanel, BorderLayout.WEST);
@@ -137,8 +357,12 @@ public class WeatherAppUI extends JFrame {
 
         this.cityField = new JTextField(20);
         this.cityField.setFont(new Font("Arial", Font.PLAIN, 14));
+        // Sugerencias del nomenclátor sin conexión: elegir una busca por coordenadas
+        this.cityAutocomplete = new CityAutocomplete(cityField, this::onSearchPlace);
         this.searchButton = new JButton("Buscar");
         styleButton(searchButton, COLOR_PRIMARIO, 14);
+        // Hasta que el servicio del tiempo esté listo
+        searchButton.setEnabled(false);
 
         JLabel cityLabel = new JLabel("Introduce un lugar:");
         cityLabel.setFont(new Font("Arial", Font.BOLD, 14));
@@ -147,6 +371,56 @@ public class WeatherAppUI extends JFrame {
         searchWrapperPanel.add(cityField);
         searchWrapperPanel.add(this.searchButton);
 
+        // Ubicaciones fijadas: se mantienen al día en segundo plano
+        this.pinButton = new JToggleButton("☆ Fijar");
+        pinButton.setFont(new Font("Arial", Font.PLAIN, 12));
+        pinButton.setFocusPainted(false);
+        pinButton.setEnabled(false);
+        pinButton.setToolTipText("Mantener este pronóstico actualizado en segundo plano");
+        pinButton.addActionListener(e -> togglePinned());
+        searchWrapperPanel.add(pinButton);
+
+        this.pinnedCombo = new JComboBox<>();
+        pinnedCombo.setFont(new Font("Arial", Font.PLAIN, 12));
+        pinnedCombo.setPrototypeDisplayValue(LocationQuery.city("Ubicaciones fijadas"));
+        pinnedCombo.setRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                String text = value == null ? "Fijadas (" + pinnedCombo.getItemCount() + ")"
+                        : pinnedLabels.getOrDefault(value, value.toString());
+                return super.getListCellRendererComponent(list, text, index, isSelected, cellHasFocus);
+            }
+        });
+        pinnedCombo.setSelectedItem(null);
+        pinnedCombo.setEnabled(false);
+        pinnedCombo.addActionListener(e -> {
+            LocationQuery selected = (LocationQuery) pinnedCombo.getSelectedItem();
+            if (selected != null && !updatingPinnedCombo) {
+                onSearchPinned(selected);
+                pinnedCombo.setSelectedItem(null);
+            }
+        });
+        searchWrapperPanel.add(pinnedCombo);
+
+        // Modo sin conexión: el mapa solo pinta las teselas guardadas en disco
+        this.offlineCheck = new JCheckBox("Mapa sin conexión") {
+            @Override
+            public String getToolTipText() {
+                if (tileCache != null) {
+                    return tileCache.toString();
+                }
+                // Los servicios ya están y la caché no se pudo abrir
+                return weatherService != null ? "Caché de teselas no disponible" : null;
+            }
+        };
+        offlineCheck.setToolTipText("");
+        offlineCheck.setEnabled(false);
+        offlineCheck.setBackground(COLOR_FONDO_PANEL);
+        offlineCheck.setFont(new Font("Arial", Font.PLAIN, 12));
+        offlineCheck.addActionListener(e -> setMapOffline(offlineCheck.isSelected()));
+        searchWrapperPanel.add(offlineCheck);
+
         JPanel centerContainer = new JPanel(new FlowLayout(FlowLayout.CENTER));
         centerContainer.setBackground(COLOR_FONDO_PANEL);
         centerContainer.add(searchWrapperPanel);
@@ -162,26 +436,33 @@ public class WeatherAppUI extends JFrame {
 
 
     /**
-     * Crea el panel de la IZQUIERDA (SOLO Mapa)
+     * Crea el panel de la IZQUIERDA (SOLO Mapa). Hasta que el mapa está listo muestra un
+     * aviso; su primer pintado marca el primer fotograma del arranque.
      */
     private JPanel createLeftPanel() {
-        JPanel leftPanel = new JPanel(new BorderLayout());
+        leftPanel = new JPanel(new BorderLayout()) {
+            @Override
+            protected void paintComponent(Graphics g) {
+                super.paintComponent(g);
+                StartupTimer.firstFrame();
+            }
+        };
         leftPanel.setBackground(COLOR_FONDO_PANEL);
+        JLabel loadingLabel = new JLabel("Cargando mapa...", SwingConstants.CENTER);
+        loadingLabel.setFont(new Font("Arial", Font.PLAIN, 14));
+        loadingLabel.setForeground(COLOR_SECUNDARIO);
+        leftPanel.add(loadingLabel, BorderLayout.CENTER);
+        return leftPanel;
+    }
 
+    /**
+     * Crea el mapa con el TileFactory ya preparado en segundo plano
+     */
+    private JXMapKit createMap(DefaultTileFactory tileFactory) {
         // --- 1. El mapa (en el centro) ---
         mapKit = new JXMapKit();
 
-        // 1a. Configuración del TileFactory (HTTPS + UserAgent)
-        // MODIFICACIÓN para limitar el zoom máximo a 16
-        TileFactoryInfo info = new OSMTileFactoryInfo("OpenStreetMap", "https://tile.openstreetmap.org") {
-            @Override
-            public int getMaximumZoomLevel() {
-                return 16;
-            }
-        };
-
-        DefaultTileFactory tileFactory = new DefaultTileFactory(info);
-        tileFactory.setUserAgent("Mozilla/5.0 (Windows NT 10.0; Win64; x64) AppleWebKit/537.36 (KHTML, like Gecko) Chrome/58.0.3029.110 Safari/537.36");
+        // 1a. Configuración del TileFactory (HTTPS + UserAgent + caché en disco)
         mapKit.getMainMap().setTileFactory(tileFactory);
 
         // 1b. Posición inicial (España) y controles
@@ -202,7 +483,11 @@ public class WeatherAppUI extends JFrame {
         zoomOutButton.setFont(buttonFont);
         zoomOutButton.setMargin(buttonMargin);
 
-        // 1c. Listener de clic en el mapa
+        // 1c. Capa de marcadores con el tiempo de todas las ubicaciones consultadas
+        mapKit.getMainMap().setOverlayPainter(markersPainter);
+        markersPainter.setChangeListener(() -> SwingUtilities.invokeLater(mapKit.getMainMap()::repaint));
+
+        // 1d. Listener de clic en el mapa
         mapKit.getMainMap().addMouseListener(new MouseAdapter() {
             @Override
             public void mouseClicked(MouseEvent e) {
@@ -212,9 +497,20 @@ public class WeatherAppUI extends JFrame {
             }
         });
 
-        leftPanel.add(mapKit, BorderLayout.CENTER);
+        return mapKit;
+    }
 
-        return leftPanel;
+    /**
+     * Activa o desactiva el modo sin conexión del mapa. Se crea un TileFactory nuevo para
+     * descartar las teselas que ya estaban en memoria (reales o de relleno).
+     */
+    private void setMapOffline(boolean offline) {
+        tileCache.setOffline(offline);
+        GeoPosition center = mapKit.getMainMap().getCenterPosition();
+        int zoom = mapKit.getMainMap().getZoom();
+        mapKit.getMainMap().setTileFactory(AppServices.createTileFactory(tileCache));
+        mapKit.getMainMap().setZoom(zoom);
+        mapKit.getMainMap().setCenterPosition(center);
     }
 
     /**
@@ -226,17 +522,49 @@ public class WeatherAppUI extends JFrame {
         rightPanel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10)); // Padding
 
         // --- 1. Panel de 5 días (Arriba) ---
-        this.dailyForecastPanel = new JPanel(new BorderLayout());
+        // Contenedor principal (grande + pequeños); oculto hasta el primer pronóstico
+        this.dailyForecastPanel = new JPanel(new BorderLayout(10, 0));
         this.dailyForecastPanel.setBackground(COLOR_FONDO_PRINCIPAL);
+        this.dailyForecastPanel.setVisible(false);
+        // Panel para los 4 días pequeños (apilados verticalmente)
+        JPanel smallDaysPanel = new JPanel(new GridLayout(DAY_CARDS - 1, 1, 0, 10)); // 4 filas, 1 columna, 10px vertical gap
+        smallDaysPanel.setBackground(COLOR_FONDO_PRINCIPAL);
+        for (int i = 0; i < DAY_CARDS; i++) {
+            // PRIMER DÍA: GRANDE; DÍAS SIGUIENTES: PEQUEÑOS
+            dayCards[i] = new DayCard(iconCache, i == 0, this::displayDayForecast);
+            if (i > 0) {
+                smallDaysPanel.add(dayCards[i]);
+            }
+        }
+        dailyForecastPanel.add(dayCards[0], BorderLayout.WEST);
+        dailyForecastPanel.add(smallDaysPanel, BorderLayout.CENTER);
         rightPanel.add(dailyForecastPanel, BorderLayout.NORTH);
 
         // --- 2. Panel de horas (Resto del espacio) ---
-        this.hourlyResultArea = new JEditorPane();
-        this.hourlyResultArea.setEditable(false);
-        this.hourlyResultArea.setContentType("text/html");
-        this.hourlyResultArea.setBackground(COLOR_FONDO_PANEL);
-
-        JScrollPane scrollPane = new JScrollPane(hourlyResultArea);
+        // Lista virtualizada: solo se pintan las filas visibles
+        this.hourlyList = new HourlyForecastList(iconCache);
+
+        this.hourlyMessageLabel = new JLabel();
+        this.hourlyMessageLabel.setVerticalAlignment(SwingConstants.TOP);
+        this.hourlyMessageLabel.setBorder(BorderFactory.createEmptyBorder(10, 10, 10, 10));
+        this.hourlyMessageLabel.setOpaque(true);
+        this.hourlyMessageLabel.setBackground(COLOR_FONDO_PANEL);
+
+        this.hourlyDayHeader = new JLabel();
+        this.hourlyDayHeader.setFont(new Font("Arial", Font.BOLD, 16));
+        this.hourlyDayHeader.setForeground(new Color(51, 51, 51));
+        this.hourlyDayHeader.setOpaque(true);
+        this.hourlyDayHeader.setBackground(COLOR_FONDO_PANEL);
+        this.hourlyDayHeader.setBorder(BorderFactory.createCompoundBorder(
+                BorderFactory.createEmptyBorder(10, 10, 0, 10),
+                BorderFactory.createCompoundBorder(
+                        BorderFactory.createMatteBorder(0, 0, 1, 0, new Color(204, 204, 204)),
+                        BorderFactory.createEmptyBorder(0, 0, 8, 0))));
+
+        JScrollPane scrollPane = new JScrollPane(hourlyMessageLabel);
+        scrollPane.getViewport().setBackground(COLOR_FONDO_PANEL);
+        scrollPane.getVerticalScrollBar().setUnitIncrement(16);
+        this.hourlyScrollPane = scrollPane;
         Border etchedBorder = BorderFactory.createEtchedBorder(COLOR_BORDE, Color.lightGray);
         scrollPane.setBorder(BorderFactory.createTitledBorder(
                 etchedBorder,
@@ -257,67 +585,161 @@ public class WeatherAppUI extends JFrame {
      * Se llama al pulsar "Buscar"
      */
     private void onSearchByCity() {
+        if (weatherService == null) {
+            // Intro en el campo antes de que termine el arranque
+            return;
+        }
         String city = cityField.getText();
         if (city == null || city.trim().isEmpty()) {
-            hourlyResultArea.setText("Por favor, introduce una ciudad.");
+            requestScheduler.cancel();
+            showHourlyMessage("Por favor, introduce una ciudad.");
+            return;
+        }
+        // Si el nombre está en el nomenclátor y no es ambiguo se busca por coordenadas, sin
+        // depender de cómo interprete la API el nombre; si no, la API resuelve el texto
+        List<Gazetteer.Place> matches = gazetteer != null ? gazetteer.exactMatches(city) : List.of();
+        if (matches.size() == 1) {
+            onSearchPlace(matches.get(0));
             return;
         }
         clearUIForSearch("Buscando pronóstico para " + city + "...");
+        setCurrentQuery(LocationQuery.city(city));
 
-        new SwingWorker<ForecastResponse, Void>() {
-            @Override
-            protected ForecastResponse doInBackground() throws WeatherException {
-                return weatherService.getWeather(city);
-            }
-            @Override
-            protected void done() {
-                handleForecastResponse(this);
-            }
-        }.execute();
+        requestScheduler.submitNow(
+                () -> weatherService.getWeatherAsync(city),
+                this::handleForecastResponse,
+                this::handleForecastError);
+    }
+
+    /**
+     * Se llama al elegir una ciudad del nomenclátor: ya se conocen sus coordenadas
+     */
+    private void onSearchPlace(Gazetteer.Place place) {
+        if (weatherService == null) {
+            return;
+        }
+        clearUIForSearch("Buscando pronóstico para " + place.label() + "...");
+        setCurrentQuery(LocationQuery.coords(place.lat, place.lon));
+
+        requestScheduler.submitNow(
+                () -> weatherService.getWeatherByCoordsAsync(place.lat, place.lon),
+                this::handleForecastResponse,
+                this::handleForecastError);
     }
 
     /**
      * Se llama al hacer clic en el mapa
      */
     private void onSearchByCoords(GeoPosition geo) {
+        // Si ya hay un pronóstico vigente muy cerca se responde al momento, sin debounce ni red
+        ForecastResponse nearby = weatherService.getNearbyForecast(geo.getLatitude(), geo.getLongitude());
+        if (nearby != null) {
+            requestScheduler.cancel();
+            clearUIForSearch("");
+            setCurrentQuery(LocationQuery.coords(nearby.city.coord.lat, nearby.city.coord.lon));
+            handleForecastResponse(nearby);
+            return;
+        }
+
         String status = String.format("Buscando en Lat: %.4f, Lon: %.4f...", geo.getLatitude(), geo.getLongitude());
         clearUIForSearch(status);
+        try {
+            setCurrentQuery(LocationQuery.coords(geo.getLatitude(), geo.getLongitude()));
+        } catch (IllegalArgumentException e) {
+            // Clic fuera del rango válido (mapa desplazado más allá de ±180°)
+            setCurrentQuery(null);
+        }
 
-        new SwingWorker<ForecastResponse, Void>() {
-            @Override
-            protected ForecastResponse doInBackground() throws WeatherException {
-                return weatherService.getWeatherByCoords(geo.getLatitude(), geo.getLongitude());
-            }
-            @Override
-            protected void done() {
-                handleForecastResponse(this);
+        // Con debounce: una ráfaga de clics en el mapa produce una sola petición
+        requestScheduler.submit(
+                () -> weatherService.getWeatherByCoordsAsync(geo.getLatitude(), geo.getLongitude()),
+                this::handleForecastResponse,
+                this::handleForecastError);
+    }
+
+    /**
+     * Se llama al elegir una ubicación fijada: se sirve de la caché sin esperar a la red
+     */
+    private void onSearchPinned(LocationQuery location) {
+        clearUIForSearch("Cargando " + pinnedLabels.getOrDefault(location, location.toString()) + "...");
+        setCurrentQuery(location);
+        requestScheduler.submitNow(
+                () -> weatherService.getWeatherAsync(location),
+                this::handleForecastResponse,
+                this::handleForecastError);
+    }
+
+    private void setCurrentQuery(LocationQuery query) {
+        currentQuery = query;
+        boolean pinned = query != null && pinnedScheduler.isPinned(query);
+        pinButton.setEnabled(query != null);
+        pinButton.setSelected(pinned);
+        pinButton.setText(pinned ? "★ Fijada" : "☆ Fijar");
+    }
+
+    private void togglePinned() {
+        if (currentQuery == null) {
+            return;
+        }
+        updatingPinnedCombo = true;
+        try {
+            if (pinnedScheduler.isPinned(currentQuery)) {
+                pinnedScheduler.unpin(currentQuery);
+                pinnedLabels.remove(currentQuery);
+                pinnedCombo.removeItem(currentQuery);
+            } else {
+                pinnedScheduler.pin(currentQuery);
+                String label = currentForecast != null && currentForecast.city != null && currentForecast.city.name != null
+                        && !currentForecast.city.name.isEmpty() ? currentForecast.city.name : currentQuery.toString();
+                pinnedLabels.put(currentQuery, label);
+                pinnedCombo.addItem(currentQuery);
             }
-        }.execute();
+            pinnedCombo.setSelectedItem(null);
+        } finally {
+            updatingPinnedCombo = false;
+        }
+        setCurrentQuery(currentQuery);
     }
 
     /**
-     * Helper para limpiar la UI antes de una búsqueda
+     * Helper para preparar la UI antes de una búsqueda. Las tarjetas de los días siguen
+     * mostrando el pronóstico anterior hasta que llega el nuevo, atenuadas y sin responder a
+     * los clics: no se desmonta nada.
      */
     private void clearUIForSearch(String message) {
-        if (hourlyResultArea != null) {
-            hourlyResultArea.setText("<html><body style='padding: 10px;'>" + message + "</body></html>");
-        }
-        if (dailyForecastPanel != null) {
-            dailyForecastPanel.removeAll();
-            dailyForecastPanel.revalidate();
-            dailyForecastPanel.repaint();
+        if (hourlyScrollPane != null) {
+            showHourlyMessage("<html>" + message + "</html>");
         }
         currentForecast = null;
+        currentDay = null;
+        setDayCardsEnabled(false);
+    }
+
+    private void setDayCardsEnabled(boolean enabled) {
+        for (DayCard card : dayCards) {
+            if (card != null) {
+                card.setEnabled(enabled);
+            }
+        }
     }
 
     /**
-     * Helper refactorizado que maneja la respuesta del SwingWorker
+     * Sustituye la lista por horas por un mensaje (estado o error)
      */
-    private void handleForecastResponse(SwingWorker<ForecastResponse, Void> worker) {
+    private void showHourlyMessage(String message) {
+        hourlyMessageLabel.setText(message);
+        hourlyList.clear();
+        hourlyScrollPane.setColumnHeaderView(null);
+        hourlyScrollPane.setViewportView(hourlyMessageLabel);
+    }
+
+    /**
+     * Helper refactorizado que maneja la respuesta de la petición (siempre en el EDT)
+     */
+    private void handleForecastResponse(ForecastResponse response) {
         try {
-            currentForecast = worker.get();
-            String cityName = (currentForecast.city != null) ? currentForecast.city.name : "Ubicación seleccionada";
-            updateHourlyPanelTitle("Pronóstico por Horas para: " + cityName);
+            currentForecast = response;
+            updateHourlyPanelTitle(hourlyTitleFor(currentForecast));
 
             // Zoom al mapa si tenemos coordenadas
             if (currentForecast.city != null && currentForecast.city.coord != null) {
@@ -331,88 +753,125 @@ public class WeatherAppUI extends JFrame {
 
             updateUIWithForecast();
         } catch (Exception ex) {
-            String errorMsg = ex.getCause() != null ? ex.getCause().getMessage() : ex.getMessage();
-            hourlyResultArea.setText("<html><body><b style='color: red; padding: 10px;'>Error:</b> " + errorMsg + "</body></html>");
+            handleForecastError(ex);
         }
     }
 
     /**
-     * Helper para cambiar el título del JScrollPane
+     * Llega el refresco en segundo plano de un pronóstico caducado: si es el que se está
+     * mostrando, se repinta sin mover el mapa
      */
-    private void updateHourlyPanelTitle(String newTitle) {
-        if (hourlyResultArea.getParent().getParent() instanceof JScrollPane) {
-            JScrollPane scrollPane = (JScrollPane) hourlyResultArea.getParent().getParent();
-            if (scrollPane.getBorder() instanceof TitledBorder) {
-                TitledBorder border = (TitledBorder) scrollPane.getBorder();
-                border.setTitle(newTitle);
-                scrollPane.repaint();
-            }
+    private void onForecastRevalidated(ForecastResponse fresh) {
+        if (currentForecast == null || !currentForecast.stale || !sameLocation(currentForecast.city, fresh.city)) {
+            return;
         }
+        currentForecast = fresh;
+        updateHourlyPanelTitle(hourlyTitleFor(fresh));
+        updateUIWithForecast();
     }
 
+    private static boolean sameLocation(City a, City b) {
+        if (a == null || b == null || a.coord == null || b.coord == null) {
+            return false;
+        }
+        return a.coord.lat == b.coord.lat && a.coord.lon == b.coord.lon;
+    }
 
-    /**
-     * Actualiza la UI con los 5 paneles de días (MODIFICADO para layout grande/pequeño)
-     */
-    private void updateUIWithForecast() {
-        if (currentForecast == null) return;
-
-        dailyForecastPanel.removeAll();
-        Map<String, List<ForecastItem>> forecastsByDay = new LinkedHashMap<>();
-        for (ForecastItem item : currentForecast.list) {
-            String dayString = formatDate(item.dt, "yyyy-MM-dd");
-            forecastsByDay.computeIfAbsent(dayString, k -> new ArrayList<>()).add(item);
+    private static String hourlyTitleFor(ForecastResponse response) {
+        String cityName = (response.city != null) ? response.city.name : "Ubicación seleccionada";
+        String title = "Pronóstico por Horas para: " + cityName;
+        if (response.stale) {
+            title += " (datos de hace " + formatAge(response.ageMillis()) + ", actualizando...)";
         }
+        return title;
+    }
 
-        // --- Contenedor principal (Grande + Pequeños) ---
-        JPanel newDailyContainer = new JPanel(new BorderLayout(10, 0));
-        newDailyContainer.setBackground(COLOR_FONDO_PRINCIPAL);
+    private static String formatAge(long millis) {
+        long minutes = Math.max(1, millis / 60_000);
+        if (minutes < 60) {
+            return minutes + " min";
+        }
+        return (minutes / 60) + " h " + (minutes % 60) + " min";
+    }
 
-        // Panel para los 4 días pequeños (apilados verticalmente)
-        JPanel smallDaysPanel = new JPanel(new GridLayout(4, 1, 0, 10)); // 4 filas, 1 columna, 10px vertical gap
-        smallDaysPanel.setBackground(COLOR_FONDO_PRINCIPAL);
+    /**
+     * Muestra el error de una petición fallida
+     */
+    private void handleForecastError(Throwable error) {
+        String errorMsg = error instanceof WeatherException || error.getCause() == null
+                ? error.getMessage()
+                : error.getCause().getMessage();
+        showHourlyMessage("<html><b style='color: red;'>Error:</b> " + errorMsg + "</html>");
+        // Las tarjetas serían de la ubicación anterior: se ocultan junto con sus filas
+        currentForecast = null;
+        currentDay = null;
+        currentHourlyRows = null;
+        if (dailyForecastPanel != null) {
+            dailyForecastPanel.setVisible(false);
+        }
+    }
 
-        int dayCount = 0;
-        for (String day : forecastsByDay.keySet()) {
-            if (dayCount >= 5) break;
+    /**
+     * Un icono terminó de cargarse: basta con repintar, los paneles lo leen de la caché
+     */
+    private void onIconLoaded() {
+        markersPainter.clearGlyphs();
+        if (mapKit != null) {
+            mapKit.getMainMap().repaint();
+        }
+        dailyForecastPanel.repaint();
+        hourlyList.repaint();
+    }
 
-            List<ForecastItem> dayItems = forecastsByDay.get(day);
+    /**
+     * Helper para cambiar el título del JScrollPane
+     */
+    private void updateHourlyPanelTitle(String newTitle) {
+        if (hourlyScrollPane.getBorder() instanceof TitledBorder) {
+            TitledBorder border = (TitledBorder) hourlyScrollPane.getBorder();
+            border.setTitle(newTitle);
+            hourlyScrollPane.repaint();
+        }
+    }
 
-            double minTemp = 1000;
-            double maxTemp = -1000;
-            for (ForecastItem item : dayItems) {
-                if (item.main.temp < minTemp) minTemp = item.main.temp;
-                if (item.main.temp > maxTemp) maxTemp = item.main.temp;
-            }
 
-            String iconCode = dayItems.get(dayItems.size() / 2).weather.get(0).icon;
-            // EEEE para el nombre completo del día de la semana
-            String dateLabel = formatDate(dayItems.get(0).dt, "EEEE, d MMM");
+    /**
+     * Actualiza las 5 tarjetas de días con el pronóstico actual (la primera grande). Las
+     * tarjetas son siempre las mismas: solo cambian las etiquetas que difieren, así que solo
+     * se maqueta lo que ha cambiado de tamaño.
+     */
+    private void updateUIWithForecast() {
+        if (currentForecast == null) return;
 
-            if (dayCount == 0) {
-                // PRIMER DÍA: GRANDE
-                JPanel largePanel = createLargeDayPanel(dateLabel, iconCode, minTemp, maxTemp, dayItems);
-                newDailyContainer.add(largePanel, BorderLayout.WEST);
-            } else {
-                // DÍAS SIGUIENTES: PEQUEÑOS
-                JPanel smallPanel = createSmallDayPanel(dateLabel, iconCode, minTemp, maxTemp, dayItems);
-                smallDaysPanel.add(smallPanel);
+        ForecastMetrics metrics = ForecastMetrics.global();
+        long aggregationStart = System.nanoTime();
+        // Agrupación por días en una sola pasada, en la zona horaria de la ubicación
+        List<DailySummary> days = DailyForecastAggregator.aggregate(currentForecast);
+        // Las filas por horas se formatean una sola vez por pronóstico
+        int utcOffset = currentForecast.city != null ? currentForecast.city.timezone : 0;
+        currentHourlyRows = HourlyForecastList.buildRows(currentForecast.list, utcOffset);
+        metrics.record(ForecastMetrics.Stage.AGGREGATION, aggregationStart);
+
+        long buildStart = System.nanoTime();
+        for (int i = 0; i < DAY_CARDS; i++) {
+            if (i < days.size()) {
+                dayCards[i].update(days.get(i));
             }
-            dayCount++;
+            // setVisible solo revalida si cambia (pronósticos de menos de 5 días)
+            dayCards[i].setVisible(i < days.size());
+            dayCards[i].setEnabled(true);
         }
+        dailyForecastPanel.setVisible(!days.isEmpty());
 
-        // Añadir los días pequeños al contenedor principal
-        newDailyContainer.add(smallDaysPanel, BorderLayout.CENTER);
-
-        // Añadir el contenedor principal al dailyForecastPanel
-        dailyForecastPanel.add(newDailyContainer, BorderLayout.CENTER);
-
-        if (!forecastsByDay.isEmpty()) {
-            displayDayForecast(forecastsByDay.values().iterator().next());
+        if (!days.isEmpty()) {
+            displayDayForecast(days.get(0));
         }
+        metrics.record(ForecastMetrics.Stage.UI_BUILD, buildStart);
 
-        dailyForecastPanel.revalidate();
-        dailyForecastPanel.repaint();
+        // revalidate()/repaint() encolan la maquetación y el pintado en el EDT; este evento va
+        // detrás de ellos, así que mide hasta que la pantalla está actualizada
+        long layoutStart = System.nanoTime();
+        SwingUtilities.invokeLater(() -> metrics.record(ForecastMetrics.Stage.UI_LAYOUT, layoutStart));
     }
 
 
@@ -437,183 +896,22 @@ public class WeatherAppUI extends JFrame {
         });
     }
 
-    /**
-     * Crea el panel GRANDE para el día actual
-     */
-    private JPanel createLargeDayPanel(String date, String iconCode, double minTemp, double maxTemp, List<ForecastItem> dayItems) {
-        JPanel panel = new JPanel();
-        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
-
-        panel.setBorder(BorderFactory.createCompoundBorder(
-                new LineBorder(COLOR_BORDE, 1),
-                // Usando el padding del usuario: (60, 110, 20, 110)
-                BorderFactory.createEmptyBorder(60, 110, 20, 110)
-        ));
-        panel.setBackground(COLOR_FONDO_PANEL);
-
-        JLabel dateLabel = new JLabel(date, SwingConstants.CENTER);
-        dateLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        dateLabel.setFont(new Font("Arial", Font.BOLD, 22)); // Más grande
-        dateLabel.setForeground(COLOR_PRIMARIO);
-
-        String iconUrl = "http://openweathermap.org/img/wn/" + iconCode + "@2x.png";
-        JLabel iconLabel = new JLabel("<html><img src='" + iconUrl + "' width='80' height='80'></html>", SwingConstants.CENTER); // Icono más grande
-        iconLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-
-        String tempString = String.format("<html><center>" +
-                "<span style='font-size: 2em; color: #d9534f;'>%.0f°C</span><br>" +
-                "<span style='font-size: 1.5em; color: #5bc0de;'>%.0f°C</span>" +
-                "</center></html>", maxTemp, minTemp);
-        JLabel tempLabel = new JLabel(tempString, SwingConstants.CENTER);
-        tempLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        tempLabel.setFont(new Font("Arial", Font.PLAIN, 18));
-
-        // Añadir componentes
-        panel.add(dateLabel);
-        panel.add(Box.createRigidArea(new Dimension(0, 15)));
-        panel.add(iconLabel);
-        panel.add(Box.createRigidArea(new Dimension(0, 15)));
-        panel.add(tempLabel);
-
-        // Funcionalidad de clic
-        panel.setCursor(new Cursor(Cursor.HAND_CURSOR));
-
-        panel.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                displayDayForecast(dayItems);
-            }
-            @Override
-            public void mouseEntered(MouseEvent e) {
-                panel.setBackground(COLOR_BORDE);
-            }
-            @Override
-            public void mouseExited(MouseEvent e) {
-                panel.setBackground(COLOR_FONDO_PANEL);
-            }
-        });
-
-        return panel;
-    }
-
-    /**
-     * Crea el panel PEQUEÑO para los días siguientes (4 en total)
-     */
-    private JPanel createSmallDayPanel(String date, String iconCode, double minTemp, double maxTemp, List<ForecastItem> dayItems) {
-        JPanel panel = new JPanel();
-        panel.setLayout(new BoxLayout(panel, BoxLayout.Y_AXIS));
-
-        panel.setBorder(BorderFactory.createCompoundBorder(
-                new LineBorder(COLOR_BORDE, 1),
-                BorderFactory.createEmptyBorder(5, 5, 5, 5) // Menos padding
-        ));
-        panel.setBackground(COLOR_FONDO_PANEL);
-
-        JLabel dateLabel = new JLabel(date, SwingConstants.CENTER);
-        dateLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-        dateLabel.setFont(new Font("Arial", Font.BOLD, 12)); // Pequeño
-        dateLabel.setForeground(new Color(50, 50, 50));
-
-        String iconUrl = "http://openweathermap.org/img/wn/" + iconCode + ".png"; // Usar el icono 1x (32x32)
-        JLabel iconLabel = new JLabel("<html><img src='" + iconUrl + "' width='32' height='32'></html>", SwingConstants.CENTER); // Icono más pequeño
-        iconLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-
-        String tempString = String.format("<html><center>" +
-                "<span style='font-size: 0.9em; color: #d9534f;'>%.0f°C</span><br>" +
-                "<span style='font-size: 0.8em; color: #5bc0de;'>%.0f°C</span>" +
-                "</center></html>", maxTemp, minTemp);
-        JLabel tempLabel = new JLabel(tempString, SwingConstants.CENTER);
-        tempLabel.setAlignmentX(Component.CENTER_ALIGNMENT);
-
-        // Añadir componentes
-        panel.add(dateLabel);
-        panel.add(Box.createRigidArea(new Dimension(0, 3)));
-        panel.add(iconLabel);
-        panel.add(Box.createRigidArea(new Dimension(0, 3)));
-        panel.add(tempLabel);
-
-        // Funcionalidad de clic
-        panel.setCursor(new Cursor(Cursor.HAND_CURSOR));
-
-        panel.addMouseListener(new MouseAdapter() {
-            @Override
-            public void mouseClicked(MouseEvent e) {
-                displayDayForecast(dayItems);
-            }
-            @Override
-            public void mouseEntered(MouseEvent e) {
-                panel.setBackground(COLOR_BORDE);
-            }
-            @Override
-            public void mouseExited(MouseEvent e) {
-                panel.setBackground(COLOR_FONDO_PANEL);
-            }
-        });
-
-        return panel;
-    }
-
     /**
      * Muestra el pronóstico detallado por horas
      */
-    private void displayDayForecast(List<ForecastItem> items) {
-        StringBuilder sb = new StringBuilder();
-
-        sb.append(String.format(
-                "<html><body style='font-family: Arial, sans-serif; font-size: 11pt; padding: 10px; background-color: %s;'>",
-                "#ffffff"
-        ));
-
-        sb.append(String.format(
-                "<h3 style='margin: 0 0 10px 0; color: #333;'>Día: %s</h3>" +
-                        "<hr style='border: 0; border-top: 1px solid #ccc;'>",
-                formatDate(items.get(0).dt, "EEEE, d 'de' MMMM")
-        ));
-
-        for (ForecastItem item : items) {
-            sb.append(formatForecastItem(item));
+    private void displayDayForecast(DailySummary day) {
+        // Sin pronóstico actual (búsqueda en curso o error) las filas serían de otra ubicación
+        if (currentForecast == null || currentHourlyRows == null) {
+            return;
         }
-
-        sb.append("</body></html>");
-        hourlyResultArea.setText(sb.toString());
-        hourlyResultArea.setCaretPosition(0);
-    }
-
-    /**
-     * Formatea un solo item de 3 horas
-     */
-    private String formatForecastItem(ForecastItem item) {
-        String iconCode = item.weather.get(0).icon;
-        String iconUrl = "http://openweathermap.org/img/wn/" + iconCode + "@2x.png";
-
-        return String.format(
-                "<div style='display: flex; align-items: center; border-bottom: 1px solid #eee; padding: 8px 0;'>" +
-                        "  <div style='flex-shrink: 0; width: 60px; text-align: center;'>" +
-                        "    <img src='%s' width='50' height='50'>" +
-                        "  </div>" +
-                        "  <div style='flex-grow: 1; padding-left: 10px;'>" +
-                        "    <strong style='font-size: 1.1em; color: #0056b3;'>[%s] - %s (%.0f°C)</strong><br>" +
-                        "    <span style='color: #555;'>Sensación: %.0f°C | Humedad: %d%% | Viento: %.1f km/h</span>" +
-                        "  </div>" +
-                        "</div>",
-
-                iconUrl,
-                formatDate(item.dt, "HH:mm"),
-                item.weather.get(0).description,
-                item.main.temp,
-                item.main.feels_like,
-                item.main.humidity,
-                item.wind.speed * 3.6
-        );
-    }
-
-    /**
-     * Helper de fecha
-     */
-    private String formatDate(long timestamp, String format) {
-        Date date = new Date(timestamp * 1000L);
-        SimpleDateFormat sdf = new SimpleDateFormat(format);
-        sdf.setTimeZone(TimeZone.getDefault());
-        return sdf.format(date);
+        currentDay = day;
+        hourlyDayHeader.setText("Día: " + day.label(DailyForecastAggregator.LONG_DAY_LABEL));
+        // Cambiar de día solo cambia el rango visible: no se formatea ni se maquetan documentos
+        hourlyList.showRange(currentHourlyRows, day.firstIndex, day.firstIndex + day.items.size());
+        if (hourlyScrollPane.getViewport().getView() != hourlyList) {
+            hourlyScrollPane.setViewportView(hourlyList);
+            hourlyScrollPane.setColumnHeaderView(hourlyDayHeader);
+        }
+        hourlyScrollPane.getViewport().setViewPosition(new Point(0, 0));
     }
 }
\ No newline at end of file
@@ -4,4 +4,8 @@ public class WeatherException extends Exception {
     public WeatherException(String message) {
         super(message);
     }
+
+    public WeatherException(String message, Throwable cause) {
+        super(message, cause);
+    }
 }
\ No newline at end of file
@@ -0,0 +1,199 @@
+package org.example;
+
+import javax.imageio.ImageIO;
+import javax.swing.Icon;
+import java.awt.Component;
+import java.awt.Graphics;
+import java.awt.Graphics2D;
+import java.awt.Image;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Caché de iconos del tiempo de OpenWeatherMap, en memoria y en disco.
+ *
+ * Cada código (p. ej. "10d") se descarga una sola vez en tamaño @2x, se guarda en el
+ * directorio de caché y se reescala en memoria al tamaño pedido. Una vez en disco, los
+ * paneles funcionan sin red.
+ */
+public class WeatherIconCache {
+
+    private static final String ICON_URL = "https://openweathermap.org/img/wn/%s@2x.png";
+    // Tras un fallo (p. ej. sin red) no se reintenta la descarga hasta pasado este tiempo
+    private static final long RETRY_AFTER_FAILURE_MILLIS = 60_000;
+
+    // Todos los códigos que usa la API (día y noche)
+    private static final List<String> KNOWN_CODES = List.of(
+            "01d", "01n", "02d", "02n", "03d", "03n", "04d", "04n", "09d", "09n",
+            "10d", "10n", "11d", "11n", "13d", "13n", "50d", "50n");
+
+    private final Path directory;
+    private final Map<String, BufferedImage> originals = new ConcurrentHashMap<>();
+    private final Map<String, BufferedImage> scaled = new ConcurrentHashMap<>();
+    private final Set<String> loading = ConcurrentHashMap.newKeySet();
+    private final Map<String, Long> failedAt = new ConcurrentHashMap<>();
+    private final List<Runnable> loadListeners = new CopyOnWriteArrayList<>();
+
+    private final ExecutorService loader = Executors.newFixedThreadPool(2, r -> {
+        Thread thread = new Thread(r, "weather-icon-loader");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    public WeatherIconCache() {
+        this(AppPaths.cacheDir("icons"));
+    }
+
+    public WeatherIconCache(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Carga en segundo plano todos los iconos conocidos (de disco o de la red)
+     */
+    public void preloadAll() {
+        for (String code : KNOWN_CODES) {
+            requestLoad(code);
+        }
+    }
+
+    /**
+     * Notificación (desde un hilo de carga) cada vez que un icono nuevo queda disponible
+     */
+    public void addLoadListener(Runnable listener) {
+        loadListeners.add(listener);
+    }
+
+    /**
+     * Icono ligero que se pinta desde la caché; mientras no esté cargado no pinta nada
+     */
+    public Icon icon(String code, int size) {
+        return new CachedIcon(code, size);
+    }
+
+    /**
+     * Imagen escalada al tamaño pedido, o null si aún no está cargada (y se pide su carga)
+     */
+    public Image image(String code, int size) {
+        if (code == null) {
+            return null;
+        }
+        String key = code + "@" + size;
+        BufferedImage image = scaled.get(key);
+        if (image != null) {
+            return image;
+        }
+        BufferedImage original = originals.get(code);
+        if (original == null) {
+            requestLoad(code);
+            return null;
+        }
+        return scaled.computeIfAbsent(key, k -> scale(original, size));
+    }
+
+    private void requestLoad(String code) {
+        Long lastFailure = failedAt.get(code);
+        if (lastFailure != null && System.currentTimeMillis() - lastFailure < RETRY_AFTER_FAILURE_MILLIS) {
+            return;
+        }
+        if (originals.containsKey(code) || !loading.add(code)) {
+            return;
+        }
+        loader.execute(() -> {
+            try {
+                BufferedImage image = loadFromDisk(code);
+                if (image == null) {
+                    image = download(code);
+                }
+                if (image != null) {
+                    originals.put(code, image);
+                    failedAt.remove(code);
+                    loadListeners.forEach(Runnable::run);
+                } else {
+                    failedAt.put(code, System.currentTimeMillis());
+                }
+            } catch (Exception e) {
+                failedAt.put(code, System.currentTimeMillis());
+                System.err.println("No se pudo cargar el icono " + code + ": " + e.getMessage());
+            } finally {
+                loading.remove(code);
+            }
+        });
+    }
+
+    private BufferedImage loadFromDisk(String code) throws IOException {
+        Path file = directory.resolve(code + "@2x.png");
+        return Files.isRegularFile(file) ? ImageIO.read(file.toFile()) : null;
+    }
+
+    private BufferedImage download(String code) throws IOException, InterruptedException {
+        HttpRequest request = HttpRequest.newBuilder(URI.create(String.format(ICON_URL, code)))
+                .timeout(Duration.ofSeconds(10))
+                .GET()
+                .build();
+        HttpResponse<byte[]> response = WeatherService.httpClient().send(request, HttpResponse.BodyHandlers.ofByteArray());
+        if (response.statusCode() != 200) {
+            return null;
+        }
+
+        // Escritura atómica para no dejar ficheros a medias en la caché
+        Path file = directory.resolve(code + "@2x.png");
+        Path tmp = Files.createTempFile(directory, code, ".tmp");
+        Files.write(tmp, response.body());
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return ImageIO.read(file.toFile());
+    }
+
+    private static BufferedImage scale(BufferedImage source, int size) {
+        BufferedImage target = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g = target.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+        g.setRenderingHint(RenderingHints.KEY_RENDERING, RenderingHints.VALUE_RENDER_QUALITY);
+        g.drawImage(source, 0, 0, size, size, null);
+        g.dispose();
+        return target;
+    }
+
+    private final class CachedIcon implements Icon {
+        private final String code;
+        private final int size;
+
+        CachedIcon(String code, int size) {
+            this.code = code;
+            this.size = size;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            Image image = image(code, size);
+            if (image != null) {
+                g.drawImage(image, x, y, null);
+            }
+        }
+
+        @Override
+        public int getIconWidth() {
+            return size;
+        }
+
+        @Override
+        public int getIconHeight() {
+            return size;
+        }
+    }
+}
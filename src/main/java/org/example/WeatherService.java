@@ -1,82 +1,774 @@
 package org.example;
 
-import com.google.gson.Gson;
-import java.io.BufferedReader;
-import java.io.InputStreamReader;
-import java.net.HttpURLConnection;
-import java.net.URL;
+import org.example.RequestRateLimiter.Priority;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.URI;
+import java.net.URLEncoder;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.Collection;
 import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.zip.GZIPInputStream;
 
 public class WeatherService {
     private static final String API_KEY = "84984066d6a7fe9f5c500ba06a758eae";
 
-    // URL para buscar por nombre de ciudad
-    private static final String API_URL_CITY = "http://api.openweathermap.org/data/2.5/forecast?q=%s&appid=%s&units=metric&lang=es";
+    // URL base de la API; se puede redirigir (servidor local de pruebas, proxy...) con esta propiedad
+    public static final String BASE_URL_PROPERTY = "meteomap.api.url";
+    public static final String DEFAULT_BASE_URL = "https://api.openweathermap.org/data/2.5";
+
+    // Ruta para buscar por nombre de ciudad
+    private static final String API_PATH_CITY = "/forecast?q=%s&appid=%s&units=metric&lang=es";
+
+    // NUEVA ruta para buscar por coordenadas
+    private static final String API_PATH_COORDS = "/forecast?lat=%f&lon=%f&appid=%s&units=metric&lang=es";
+
+    private static final Duration CONNECT_TIMEOUT = Duration.ofSeconds(5);
+    // Hasta recibir las cabeceras
+    private static final Duration REQUEST_TIMEOUT = Duration.ofSeconds(10);
+    // Petición completa, cuerpo incluido
+    private static final Duration RESPONSE_TIMEOUT = Duration.ofSeconds(20);
+
+    // Reintentos ante errores de red, 429 y 5xx: espera exponencial con variación aleatoria
+    private static final int MAX_RETRIES = 2;
+    private static final long BASE_BACKOFF_MILLIS = 250;
+    private static final long MAX_BACKOFF_MILLIS = 4_000;
+    // No se reintenta si con la espera se superaría este tiempo total desde el primer intento
+    private static final long RETRY_BUDGET_MILLIS = 15_000;
+
+    // Un clic en el mapa a menos de esta distancia de un pronóstico vigente se responde sin red
+    public static final double DEFAULT_NEARBY_RADIUS_KM = 2.0;
+    public static final String NEARBY_RADIUS_PROPERTY = "meteomap.nearby.km";
+
+    // Peticiones simultáneas por defecto en las consultas por lotes
+    public static final int DEFAULT_BATCH_CONCURRENCY = 16;
+
+    // Cliente HTTP compartido: reutiliza conexiones (keep-alive) y negocia HTTP/2 si el servidor lo admite
+    private static final HttpClient HTTP_CLIENT = HttpClient.newBuilder()
+            .version(HttpClient.Version.HTTP_2)
+            .connectTimeout(CONNECT_TIMEOUT)
+            .followRedirects(HttpClient.Redirect.NORMAL)
+            .build();
+
+    // Decodificación de los cuerpos: cada una bloquea en read() mientras llega la respuesta, así
+    // que va en su propio hilo virtual y no ocupa los hilos del cliente HTTP
+    private static final ExecutorService DECODE_EXECUTOR = Executors.newThreadPerTaskExecutor(
+            Thread.ofVirtual().name("forecast-decode-", 0).factory());
+
+    private final ForecastCache cache;
+    private final CircuitBreaker circuitBreaker;
+    private final RequestRateLimiter rateLimiter;
+    private final ForecastSpatialIndex spatialIndex = new ForecastSpatialIndex();
+    private volatile double nearbyRadiusKm = Double.parseDouble(
+            System.getProperty(NEARBY_RADIUS_PROPERTY, String.valueOf(DEFAULT_NEARBY_RADIUS_KM)));
+    private final ForecastMetrics metrics = ForecastMetrics.global();
+    private final String apiUrlCity;
+    private final String apiUrlCoords;
+    private final Map<String, Flight> inFlight = new ConcurrentHashMap<>();
+    private final List<Consumer<ForecastResponse>> revalidationListeners = new CopyOnWriteArrayList<>();
+    private final List<BiConsumer<String, ForecastResponse>> fetchListeners = new CopyOnWriteArrayList<>();
+
+    public WeatherService() {
+        this(new ForecastCache());
+    }
+
+    public WeatherService(ForecastCache cache) {
+        this(cache, System.getProperty(BASE_URL_PROPERTY, DEFAULT_BASE_URL));
+    }
+
+    /**
+     * @param baseUrl URL hasta la versión de la API, p. ej. {@code http://localhost:8089/data/2.5}
+     */
+    public WeatherService(ForecastCache cache, String baseUrl) {
+        this(cache, baseUrl, new CircuitBreaker());
+    }
+
+    public WeatherService(ForecastCache cache, String baseUrl, CircuitBreaker circuitBreaker) {
+        this(cache, baseUrl, circuitBreaker, RequestRateLimiter.global());
+    }
+
+    /**
+     * @param rateLimiter cuota de peticiones; {@link RequestRateLimiter#unlimited()} para
+     *                    servidores de pruebas
+     */
+    public WeatherService(ForecastCache cache, String baseUrl, CircuitBreaker circuitBreaker, RequestRateLimiter rateLimiter) {
+        if (baseUrl == null || baseUrl.isBlank()) {
+            throw new IllegalArgumentException("La URL base no puede estar vacía");
+        }
+        String base = baseUrl.endsWith("/") ? baseUrl.substring(0, baseUrl.length() - 1) : baseUrl;
+        this.cache = cache;
+        this.circuitBreaker = circuitBreaker;
+        this.rateLimiter = rateLimiter;
+        cache.addListener(spatialIndex);
+        // Las rutas llevan "%" de String.format: la base se escapa para no interpretarla
+        this.apiUrlCity = base.replace("%", "%%") + API_PATH_CITY;
+        this.apiUrlCoords = base.replace("%", "%%") + API_PATH_COORDS;
+    }
+
+    public ForecastCache getCache() {
+        return cache;
+    }
+
+    public CircuitBreaker getCircuitBreaker() {
+        return circuitBreaker;
+    }
+
+    public RequestRateLimiter getRateLimiter() {
+        return rateLimiter;
+    }
+
+    public double getNearbyRadiusKm() {
+        return nearbyRadiusKm;
+    }
+
+    /**
+     * Radio (km) en el que un pronóstico vigente de la caché responde a un clic en el mapa
+     * ({@link #getNearbyForecast}); 0 desactiva la búsqueda por cercanía
+     */
+    public void setNearbyRadiusKm(double nearbyRadiusKm) {
+        if (nearbyRadiusKm < 0) {
+            throw new IllegalArgumentException("El radio no puede ser negativo");
+        }
+        this.nearbyRadiusKm = nearbyRadiusKm;
+    }
+
+    /**
+     * Avisa (desde un hilo del cliente HTTP) cuando termina el refresco en segundo plano de un
+     * pronóstico que se sirvió caducado
+     */
+    public void addRevalidationListener(Consumer<ForecastResponse> listener) {
+        revalidationListeners.add(listener);
+    }
 
-    // NUEVA URL para buscar por coordenadas
-    private static final String API_URL_COORDS = "http://api.openweathermap.org/data/2.5/forecast?lat=%f&lon=%f&appid=%s&units=metric&lang=es";
+    /**
+     * Avisa (desde un hilo del cliente HTTP) de cada pronóstico descargado de la API, con su
+     * clave de caché. Un fallo del listener no afecta a la petición.
+     */
+    public void addFetchListener(BiConsumer<String, ForecastResponse> listener) {
+        fetchListeners.add(listener);
+    }
 
+    /**
+     * Cliente HTTP compartido, para que otras descargas (iconos, etc.) reutilicen sus conexiones
+     */
+    static HttpClient httpClient() {
+        return HTTP_CLIENT;
+    }
 
     /**
      * Obtiene el tiempo por nombre de ciudad
      */
     public ForecastResponse getWeather(String city) throws WeatherException {
-        String urlString = String.format(API_URL_CITY, city.replace(" ", "+"), API_KEY);
-        return getForecastFromApi(urlString);
+        return fetch(cache.cityKey(city), cityUrl(city), Priority.INTERACTIVE);
     }
 
     /**
      * NUEVO: Obtiene el tiempo por coordenadas geográficas
      */
     public ForecastResponse getWeatherByCoords(double lat, double lon) throws WeatherException {
-        String urlString = String.format(API_URL_COORDS, lat, lon, API_KEY);
-        return getForecastFromApi(urlString);
+        return fetch(cache.coordKey(lat, lon), coordsUrl(lat, lon), Priority.INTERACTIVE);
+    }
+
+    /**
+     * Versión asíncrona de {@link #getWeather(String)}. Los errores llegan como {@link WeatherException}
+     * envuelta en una {@link CompletionException}.
+     */
+    public CompletableFuture<ForecastResponse> getWeatherAsync(String city) {
+        return fetchAsync(cache.cityKey(city), cityUrl(city), Priority.INTERACTIVE);
     }
 
     /**
-     * NUEVO: Método privado refactorizado para manejar la lógica de la API
+     * Versión asíncrona de {@link #getWeatherByCoords(double, double)}
      */
-    private ForecastResponse getForecastFromApi(String urlString) throws WeatherException {
+    public CompletableFuture<ForecastResponse> getWeatherByCoordsAsync(double lat, double lon) {
+        return getWeatherByCoordsAsync(lat, lon, Priority.INTERACTIVE);
+    }
+
+    private CompletableFuture<ForecastResponse> getWeatherByCoordsAsync(double lat, double lon, Priority priority) {
+        return fetchAsync(cache.coordKey(lat, lon), coordsUrl(lat, lon), priority);
+    }
+
+    /**
+     * Pronóstico vigente más cercano en memoria dentro del radio configurado; null si no hay.
+     * Solo para clics en el mapa: las búsquedas por coordenadas (y los lotes) piden siempre
+     * el punto exacto.
+     */
+    public ForecastResponse getNearbyForecast(double lat, double lon) {
+        ForecastResponse nearby = spatialIndex.nearestFresh(lat, lon, nearbyRadiusKm);
+        if (nearby != null) {
+            metrics.nearbyHit();
+        }
+        return nearby;
+    }
+
+    /**
+     * Versión asíncrona de {@link #getWeather(LocationQuery)}
+     */
+    public CompletableFuture<ForecastResponse> getWeatherAsync(LocationQuery location) {
+        return getWeatherAsync(location, Priority.INTERACTIVE);
+    }
+
+    /**
+     * Como {@link #getWeatherAsync(LocationQuery)}, pero si hay que ir a la red la petición
+     * entra en el carril {@code priority} de la cuota
+     */
+    public CompletableFuture<ForecastResponse> getWeatherAsync(LocationQuery location, Priority priority) {
+        return location.isCity()
+                ? fetchAsync(cache.cityKey(location.getCity()), cityUrl(location.getCity()), priority)
+                : getWeatherByCoordsAsync(location.getLat(), location.getLon(), priority);
+    }
+
+    /**
+     * Descarga el pronóstico aunque esté en la caché y la actualiza (precarga en segundo plano:
+     * si la cuota está saturada falla al momento y se aplaza)
+     */
+    public CompletableFuture<ForecastResponse> refreshAsync(LocationQuery location) {
+        return refreshAsync(location, Priority.PREFETCH);
+    }
+
+    public CompletableFuture<ForecastResponse> refreshAsync(LocationQuery location, Priority priority) {
+        return sharedFetch(cacheKey(location), urlFor(location), true, priority).copy();
+    }
+
+    /**
+     * Clave de caché de una ubicación
+     */
+    public String cacheKey(LocationQuery location) {
+        return location.isCity()
+                ? cache.cityKey(location.getCity())
+                : cache.coordKey(location.getLat(), location.getLon());
+    }
+
+    private String urlFor(LocationQuery location) {
+        return location.isCity()
+                ? cityUrl(location.getCity())
+                : coordsUrl(location.getLat(), location.getLon());
+    }
+
+    /**
+     * Obtiene el tiempo para una ubicación genérica (ciudad o coordenadas)
+     */
+    public ForecastResponse getWeather(LocationQuery location) throws WeatherException {
+        return location.isCity()
+                ? getWeather(location.getCity())
+                : getWeatherByCoords(location.getLat(), location.getLon());
+    }
+
+    /**
+     * Consulta por lotes con la concurrencia por defecto. Los errores de cada ubicación
+     * se devuelven en su {@link BatchResult} sin abortar el resto.
+     */
+    public Map<LocationQuery, BatchResult> getWeatherBatch(Collection<LocationQuery> locations) throws InterruptedException {
+        Map<LocationQuery, BatchResult> results = new ConcurrentHashMap<>();
+        getWeatherBatch(locations, DEFAULT_BATCH_CONCURRENCY, result -> results.put(result.getLocation(), result));
+        return results;
+    }
+
+    /**
+     * Consulta por lotes en hilos virtuales, con como máximo {@code maxConcurrency} peticiones
+     * en vuelo y en el carril {@link Priority#BATCH} de la cuota (cede el paso a la interfaz). {@code onResult} se invoca (desde varios hilos) a medida que termina cada
+     * ubicación. Las ubicaciones se leen del Iterable de forma perezosa, así que la memoria
+     * usada no depende del tamaño del lote. Vuelve cuando todas han terminado.
+     */
+    public void getWeatherBatch(Iterable<LocationQuery> locations, int maxConcurrency, Consumer<BatchResult> onResult) throws InterruptedException {
+        if (maxConcurrency <= 0) {
+            throw new IllegalArgumentException("maxConcurrency debe ser positivo");
+        }
+        Semaphore permits = new Semaphore(maxConcurrency);
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (LocationQuery location : locations) {
+                permits.acquire();
+                executor.execute(() -> {
+                    try {
+                        onResult.accept(fetchForBatch(location));
+                    } finally {
+                        permits.release();
+                    }
+                });
+            }
+        }
+    }
+
+    private BatchResult fetchForBatch(LocationQuery location) {
+        long start = System.nanoTime();
         try {
-            URL url = new URL(urlString);
-            HttpURLConnection conn = (HttpURLConnection) url.openConnection();
-            conn.setRequestMethod("GET");
+            ForecastResponse response = await(getWeatherAsync(location, Priority.BATCH));
+            return new BatchResult(location, response, null, System.nanoTime() - start);
+        } catch (WeatherException e) {
+            return new BatchResult(location, null, e, System.nanoTime() - start);
+        } catch (RuntimeException e) {
+            WeatherException error = new WeatherException("Error inesperado: " + describe(e), e);
+            return new BatchResult(location, null, error, System.nanoTime() - start);
+        }
+    }
 
-            int responseCode = conn.getResponseCode();
-            if (responseCode != 200) {
-                if (responseCode == 404) {
-                    throw new WeatherException("Error: Datos no encontrados para la ubicación.");
+    private String cityUrl(String city) {
+        return String.format(apiUrlCity, URLEncoder.encode(city.trim(), StandardCharsets.UTF_8), API_KEY);
+    }
+
+    private String coordsUrl(double lat, double lon) {
+        // Locale.ROOT para que el separador decimal sea siempre '.'
+        return String.format(Locale.ROOT, apiUrlCoords, lat, lon, API_KEY);
+    }
+
+    private ForecastResponse fetch(String key, String urlString, Priority priority) throws WeatherException {
+        return await(fetchAsync(key, urlString, priority));
+    }
+
+    /**
+     * Consulta la caché y, si no está, lanza la petición. Si solo hay un dato caducado se
+     * devuelve al momento, marcado como {@link ForecastResponse#stale}, y se refresca en
+     * segundo plano (stale-while-revalidate). Cada llamante recibe su propia copia, así que
+     * cancelarla no afecta a los demás; cuando la cancelan todos, la petición se abandona.
+     */
+    private CompletableFuture<ForecastResponse> fetchAsync(String key, String urlString, Priority priority) {
+        ForecastResponse cached = cache.get(key);
+        if (cached != null) {
+            metrics.cacheHit();
+            return CompletableFuture.completedFuture(cached);
+        }
+        metrics.cacheMiss();
+
+        ForecastResponse stale = cache.getStale(key);
+        if (stale != null) {
+            metrics.staleServed();
+            sharedFetch(key, urlString, true, priority);
+            return CompletableFuture.completedFuture(stale.asStale());
+        }
+        return sharedFetch(key, urlString, false, priority);
+    }
+
+    /**
+     * Lanza la petición o, si ya hay una idéntica en vuelo, se une a ella (single-flight).
+     * Una revalidación recibe la petición compartida y la mantiene viva aunque los demás la
+     * cancelen; el resto recibe una copia propia.
+     */
+    private CompletableFuture<ForecastResponse> sharedFetch(String key, String urlString, boolean revalidation, Priority priority) {
+        Flight flight = new Flight(key);
+        while (true) {
+            Flight existing = inFlight.putIfAbsent(key, flight);
+            if (existing == null) {
+                break;
+            }
+            CompletableFuture<ForecastResponse> joined = existing.join(revalidation);
+            if (joined != null) {
+                metrics.coalesced();
+                return joined;
+            }
+            // La abandonaron justo ahora: se lanza otra
+            inFlight.remove(key, existing);
+        }
+        CompletableFuture<ForecastResponse> joined = flight.join(revalidation);
+
+        CompletableFuture<ForecastResponse> promise = flight.promise;
+        attempt(urlString, 0, System.currentTimeMillis(), priority, promise).whenComplete((response, error) -> {
+            if (response != null) {
+                cache.put(key, response);
+                for (BiConsumer<String, ForecastResponse> listener : fetchListeners) {
+                    try {
+                        listener.accept(key, response);
+                    } catch (RuntimeException e) {
+                        System.err.println("Error en un listener de descargas: " + e.getMessage());
+                    }
+                }
+            }
+            inFlight.remove(key, flight);
+            if (error != null) {
+                promise.completeExceptionally(error);
+            } else {
+                promise.complete(response);
+                if (revalidation) {
+                    revalidationListeners.forEach(listener -> listener.accept(response));
+                }
+            }
+        });
+        return joined;
+    }
+
+    /**
+     * Petición compartida por todos los que piden la misma clave a la vez
+     */
+    private final class Flight {
+        final String key;
+        final CompletableFuture<ForecastResponse> promise = new CompletableFuture<>();
+        // Copias entregadas sin cancelar; una revalidación no se abandona nunca
+        private int waiting;
+        private boolean background;
+        private boolean abandoned;
+
+        Flight(String key) {
+            this.key = key;
+        }
+
+        /**
+         * null si ya se ha abandonado
+         */
+        synchronized CompletableFuture<ForecastResponse> join(boolean revalidation) {
+            if (abandoned) {
+                return null;
+            }
+            if (revalidation) {
+                background = true;
+                return promise;
+            }
+            waiting++;
+            CompletableFuture<ForecastResponse> copy = promise.copy();
+            copy.whenComplete((response, error) -> {
+                if (copy.isCancelled()) {
+                    leave();
+                }
+            });
+            return copy;
+        }
+
+        /**
+         * Se canceló una copia: si era la última, se cancela la petición, que deja libre su
+         * puesto en la cola de la cuota
+         */
+        private void leave() {
+            synchronized (this) {
+                if (--waiting > 0 || background || promise.isDone()) {
+                    return;
                 }
-                throw new WeatherException("Error: (" + responseCode + ") al conectar con la API.");
+                abandoned = true;
+            }
+            inFlight.remove(key, this);
+            promise.cancel(true);
+        }
+    }
+
+    /**
+     * Espera el resultado de una petición asíncrona desenvolviendo la {@link WeatherException}
+     */
+    private static ForecastResponse await(CompletableFuture<ForecastResponse> future) throws WeatherException {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            future.cancel(true);
+            Thread.currentThread().interrupt();
+            throw new WeatherException("Petición interrumpida.", e);
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof WeatherException) {
+                throw (WeatherException) cause;
+            }
+            throw new WeatherException("Error al conectar o parsear: " + describe(cause), cause);
+        }
+    }
+
+    /**
+     * NUEVO: Método privado refactorizado para manejar la lógica de la API. Reintenta los
+     * errores transitorios y falla al momento mientras el cortocircuito esté abierto. Cada
+     * intento (también los reintentos) consume una ficha de la cuota en su carril; si se
+     * cancela {@code caller} mientras espera la ficha, la espera se retira de la cola.
+     */
+    private CompletableFuture<ForecastResponse> attempt(String urlString, int retry, long firstAttemptAt, Priority priority,
+                                                        CompletableFuture<ForecastResponse> caller) {
+        // Si la cuota rechaza la petición no llega a la API: no cuenta para el cortocircuito
+        CompletableFuture<Void> permit = rateLimiter.acquire(priority);
+        caller.whenComplete((response, error) -> {
+            if (caller.isCancelled()) {
+                permit.cancel(true);
+            }
+        });
+        return permit.thenCompose(ignored -> send(urlString, retry, firstAttemptAt, priority, caller));
+    }
+
+    private CompletableFuture<ForecastResponse> send(String urlString, int retry, long firstAttemptAt, Priority priority,
+                                                     CompletableFuture<ForecastResponse> caller) {
+        if (!circuitBreaker.tryAcquire()) {
+            metrics.circuitRejected();
+            long seconds = Math.max(1, TimeUnit.MILLISECONDS.toSeconds(circuitBreaker.getRetryInMillis()));
+            return CompletableFuture.failedFuture(new WeatherException(
+                    "Error: El servicio del tiempo no responde; se reintentará en " + seconds + " s."));
+        }
+
+        return sendRequest(urlString).handle((response, error) -> {
+            if (error == null) {
+                circuitBreaker.onSuccess();
+                return CompletableFuture.completedFuture(response);
+            }
+            Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+            if (!(cause instanceof TransientException)) {
+                // Un 404 o un JSON incorrecto no indican que la API esté caída
+                circuitBreaker.onSuccess();
+                return CompletableFuture.<ForecastResponse>failedFuture(cause);
             }
+            circuitBreaker.onFailure();
+            TransientException transientError = (TransientException) cause;
+            if (transientError.throttled) {
+                // La API avisa de que nos pasamos de cuota: frena a todos los carriles
+                rateLimiter.onThrottled(transientError.retryAfterMillis);
+            }
+
+            long delay = backoffMillis(retry, transientError.retryAfterMillis);
+            boolean withinBudget = System.currentTimeMillis() + delay - firstAttemptAt <= RETRY_BUDGET_MILLIS;
+            if (retry >= MAX_RETRIES || delay > MAX_BACKOFF_MILLIS || !withinBudget) {
+                return CompletableFuture.<ForecastResponse>failedFuture(cause);
+            }
+            metrics.retry();
+            return CompletableFuture.runAsync(() -> { }, CompletableFuture.delayedExecutor(delay, TimeUnit.MILLISECONDS))
+                    .thenCompose(ignored -> attempt(urlString, retry + 1, firstAttemptAt, priority, caller));
+        }).thenCompose(Function.identity());
+    }
+
+    /**
+     * Espera exponencial con variación aleatoria ("equal jitter"), o la que pida Retry-After
+     */
+    private static long backoffMillis(int retry, long retryAfterMillis) {
+        if (retryAfterMillis > 0) {
+            return retryAfterMillis;
+        }
+        long ceiling = Math.min(MAX_BACKOFF_MILLIS, BASE_BACKOFF_MILLIS << retry);
+        return ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+    }
 
-            BufferedReader in = new BufferedReader(new InputStreamReader(conn.getInputStream()));
-            String inputLine;
-            StringBuilder content = new StringBuilder();
-            while ((inputLine = in.readLine()) != null) {
-                content.append(inputLine);
+    /**
+     * Una sola petición HTTP. El cuerpo se decodifica en streaming según llega, en un hilo
+     * virtual de {@link #DECODE_EXECUTOR} (no en los del cliente HTTP); la petición completa
+     * (cabeceras y cuerpo) tiene como mucho {@link #RESPONSE_TIMEOUT} y al vencer se aborta.
+     */
+    private CompletableFuture<ForecastResponse> sendRequest(String urlString) {
+        metrics.httpRequest();
+        long start = System.nanoTime();
+        CompletableFuture<HttpResponse<InputStream>> exchange = HTTP_CLIENT.sendAsync(buildRequest(urlString), streamedBody(start));
+        // Cuerpo que se está leyendo: al vencer el plazo se cierra, lo que corta la descarga y
+        // desbloquea el read() del hilo que decodifica
+        AtomicReference<InputStream> body = new AtomicReference<>();
+        AtomicBoolean timedOut = new AtomicBoolean();
+        CompletableFuture<ForecastResponse> decoded = exchange.thenApplyAsync(response -> {
+            body.set(response.body());
+            if (timedOut.get()) {
+                closeQuietly(response.body());
+            }
+            try {
+                return readResponse(response);
+            } catch (WeatherException e) {
+                throw new CompletionException(e);
             }
+        }, DECODE_EXECUTOR);
+        // REQUEST_TIMEOUT solo cubre hasta las cabeceras: un servidor que se queda a medias
+        // en el cuerpo no debe retener la petición para siempre
+        CompletableFuture<ForecastResponse> guarded = decoded.copy()
+                .orTimeout(RESPONSE_TIMEOUT.toMillis(), TimeUnit.MILLISECONDS);
+        guarded.whenComplete((response, error) -> {
+            if (error instanceof TimeoutException) {
+                timedOut.set(true);
+                exchange.cancel(true);
+                closeQuietly(body.get());
+            }
+        });
+        return guarded.handle((response, error) -> {
+            try {
+                if (error != null) {
+                    Throwable cause = error instanceof CompletionException && error.getCause() != null ? error.getCause() : error;
+                    if (cause instanceof WeatherException) {
+                        throw (WeatherException) cause;
+                    }
+                    metrics.networkError();
+                    String message = cause instanceof TimeoutException
+                            ? "Error: La API no respondió en " + RESPONSE_TIMEOUT.toSeconds() + " s."
+                            : "Error al conectar o parsear: " + describe(cause);
+                    throw new TransientException(message, cause, 0, false);
+                }
+                return response;
+            } catch (WeatherException e) {
+                throw new CompletionException(e);
+            } finally {
+                metrics.record(ForecastMetrics.Stage.REQUEST, start);
+            }
+        });
+    }
+
+    /**
+     * Cuerpo como InputStream sobre los búferes que va recibiendo el cliente HTTP, sin copiarlo
+     * entero. Mide la espera hasta las cabeceras.
+     */
+    private HttpResponse.BodyHandler<InputStream> streamedBody(long start) {
+        return responseInfo -> {
+            metrics.record(ForecastMetrics.Stage.HTTP_HEADERS, start);
+            return HttpResponse.BodySubscribers.ofInputStream();
+        };
+    }
+
+    private static void closeQuietly(InputStream in) {
+        if (in == null) {
+            return;
+        }
+        try {
             in.close();
-            conn.disconnect();
+        } catch (IOException e) {
+            // Se está abortando la petición: no hay nada más que hacer
+        }
+    }
+
+    private HttpRequest buildRequest(String urlString) {
+        return HttpRequest.newBuilder(URI.create(urlString))
+                .timeout(REQUEST_TIMEOUT)
+                .header("Accept", "application/json")
+                .header("Accept-Encoding", "gzip")
+                .GET()
+                .build();
+    }
+
+    /**
+     * Comprueba el código HTTP y decodifica el cuerpo según llega (descomprimiendo gzip al vuelo)
+     */
+    private ForecastResponse readResponse(HttpResponse<InputStream> httpResponse) throws WeatherException {
+        int responseCode = httpResponse.statusCode();
+        metrics.responseStatus(responseCode);
+        MeteredInputStream raw = new MeteredInputStream(httpResponse.body());
+        try (InputStream body = decodedBody(httpResponse, raw)) {
+            if (responseCode != 200) {
+                if (responseCode == 404) {
+                    throw new WeatherException("Error: Datos no encontrados para la ubicación.");
+                }
+                String message = "Error: (" + responseCode + ") al conectar con la API.";
+                if (responseCode == 429 || responseCode >= 500) {
+                    throw new TransientException(message, null, retryAfterMillis(httpResponse), responseCode == 429);
+                }
+                throw new WeatherException(message);
+            }
 
-            Gson gson = new Gson();
-            ForecastResponse response = gson.fromJson(content.toString(), ForecastResponse.class);
+            // La descarga y el análisis se solapan: el tiempo bloqueado en read() cuenta como descarga
+            long decodeStart = System.nanoTime();
+            ForecastResponse response = ForecastJson.read(body);
+            long decodeNanos = System.nanoTime() - decodeStart;
+            metrics.recordNanos(ForecastMetrics.Stage.DOWNLOAD, raw.readNanos);
+            metrics.recordNanos(ForecastMetrics.Stage.PARSE, decodeNanos - raw.readNanos);
 
             if (response == null || response.list == null || response.list.isEmpty()) {
                 throw new WeatherException("No se pudieron obtener datos del pronóstico.");
             }
+            response.fetchedAt = System.currentTimeMillis();
             return response;
-
+        } catch (WeatherException e) {
+            throw e;
         } catch (Exception e) {
-            throw new WeatherException("Error al conectar o parsear: " + e.getMessage());
+            throw new WeatherException("Error al conectar o parsear: " + describe(e), e);
+        } finally {
+            metrics.bytesReceived(raw.bytes);
         }
     }
 
+    /**
+     * Cabecera Retry-After en segundos (la variante con fecha no la usa OpenWeatherMap)
+     */
+    private static long retryAfterMillis(HttpResponse<?> httpResponse) {
+        try {
+            return httpResponse.headers().firstValue("Retry-After")
+                    .map(value -> TimeUnit.SECONDS.toMillis(Long.parseLong(value.trim())))
+                    .orElse(0L);
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Error que puede desaparecer al reintentar: fallo de red, 429 o 5xx
+     */
+    private static final class TransientException extends WeatherException {
+        final long retryAfterMillis;
+        // 429: se ha superado la cuota de la API
+        final boolean throttled;
+
+        TransientException(String message, Throwable cause, long retryAfterMillis, boolean throttled) {
+            super(message, cause);
+            this.retryAfterMillis = retryAfterMillis;
+            this.throttled = throttled;
+        }
+    }
+
+    private static String describe(Throwable error) {
+        return error.getMessage() != null ? error.getMessage() : error.getClass().getSimpleName();
+    }
+
+    private static InputStream decodedBody(HttpResponse<InputStream> httpResponse, InputStream raw) throws IOException {
+        String encoding = httpResponse.headers().firstValue("Content-Encoding").orElse("");
+        if ("gzip".equalsIgnoreCase(encoding)) {
+            return new GZIPInputStream(raw, 8192);
+        }
+        return raw;
+    }
+
+    /**
+     * Cuenta los bytes recibidos (comprimidos) y el tiempo bloqueado esperando a la red
+     */
+    private static final class MeteredInputStream extends FilterInputStream {
+        long bytes;
+        long readNanos;
+
+        MeteredInputStream(InputStream in) {
+            super(in);
+        }
+
+        @Override
+        public int read() throws IOException {
+            long start = System.nanoTime();
+            int b = super.read();
+            readNanos += System.nanoTime() - start;
+            if (b >= 0) bytes++;
+            return b;
+        }
+
+        @Override
+        public int read(byte[] buffer, int offset, int length) throws IOException {
+            long start = System.nanoTime();
+            int n = super.read(buffer, offset, length);
+            readNanos += System.nanoTime() - start;
+            if (n > 0) bytes += n;
+            return n;
+        }
+    }
 
     // --- Clases internas (sin cambios) ---
     public static class ForecastResponse {
         public List<ForecastItem> list;
         public City city;
+        // Momento de la descarga (epoch ms); no forma parte del JSON
+        public transient long fetchedAt;
+        // true si es un dato caducado de la caché servido mientras se refresca
+        public transient boolean stale;
+
+        public long ageMillis() {
+            return fetchedAt == 0 ? 0 : System.currentTimeMillis() - fetchedAt;
+        }
+
+        /**
+         * Copia superficial marcada como caducada (la de la caché no se modifica)
+         */
+        ForecastResponse asStale() {
+            ForecastResponse copy = new ForecastResponse();
+            copy.list = list;
+            copy.city = city;
+            copy.fetchedAt = fetchedAt;
+            copy.stale = true;
+            return copy;
+        }
     }
 
     public static class ForecastItem {
@@ -117,5 +809,6 @@ public class WeatherService {
         public String name;
         public String country;
         public Coord coord; // NUEVO: Coordenadas
+        public int timezone; // Desfase respecto a UTC en segundos
     }
 }
\ No newline at end of file
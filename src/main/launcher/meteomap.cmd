@@ -0,0 +1,4 @@
+@echo off
+rem Lanzador con el archivo CDS generado por "mvn -Pcds package". Si el archivo no sirve para
+rem este JDK, el JVM arranca sin el y lo vuelve a generar al salir.
+java -XX:SharedArchiveFile="%~dp0meteomap.jsa" -XX:+AutoCreateSharedArchive -jar "%~dp0${project.build.finalName}.jar" %*
@@ -0,0 +1,66 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CircuitBreakerTest {
+
+    @Test
+    void opensAfterConsecutiveFailures() {
+        CircuitBreaker breaker = new CircuitBreaker(3, 60_000);
+        breaker.onFailure();
+        breaker.onFailure();
+        breaker.onSuccess();
+        breaker.onFailure();
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+        assertFalse(breaker.tryAcquire());
+        assertEquals(2, breaker.getRejected());
+        assertTrue(breaker.getRetryInMillis() > 0);
+    }
+
+    @Test
+    void halfOpenLetsOneTrialThrough() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(1, 20);
+        breaker.onFailure();
+        assertFalse(breaker.tryAcquire());
+        Thread.sleep(40);
+
+        assertTrue(breaker.tryAcquire());
+        assertEquals(CircuitBreaker.State.HALF_OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+
+        breaker.onSuccess();
+        assertEquals(CircuitBreaker.State.CLOSED, breaker.getState());
+        assertTrue(breaker.tryAcquire());
+    }
+
+    @Test
+    void failedTrialReopens() throws InterruptedException {
+        CircuitBreaker breaker = new CircuitBreaker(5, 20);
+        for (int i = 0; i < 5; i++) {
+            breaker.onFailure();
+        }
+        Thread.sleep(40);
+        assertTrue(breaker.tryAcquire());
+
+        // En semiabierto basta un fallo
+        breaker.onFailure();
+        assertEquals(CircuitBreaker.State.OPEN, breaker.getState());
+        assertFalse(breaker.tryAcquire());
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker(0, 1000));
+        assertThrows(IllegalArgumentException.class, () -> new CircuitBreaker(3, 0));
+    }
+}
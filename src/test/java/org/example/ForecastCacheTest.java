@@ -0,0 +1,113 @@
+package org.example;
+
+import org.example.WeatherService.ForecastResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForecastCacheTest {
+
+    private static ForecastResponse response(long fetchedAt) {
+        ForecastResponse response = new ForecastResponse();
+        response.list = new ArrayList<>();
+        response.fetchedAt = fetchedAt;
+        return response;
+    }
+
+    @Test
+    void keysAreNormalized() {
+        ForecastCache cache = new ForecastCache();
+        assertEquals(cache.cityKey("malaga"), cache.cityKey("  Málaga "));
+        assertEquals(cache.cityKey("la coruna"), cache.cityKey("La   Coruña"));
+        assertEquals(cache.coordKey(40.4168, -3.7038), cache.coordKey(40.4171, -3.7041));
+        assertNotEquals(cache.coordKey(40.41, -3.70), cache.coordKey(40.43, -3.70));
+    }
+
+    @Test
+    void expiredEntriesAreServedOnlyAsStale() throws InterruptedException {
+        ForecastCache cache = new ForecastCache(20, 10, 0.01, 60_000);
+        ForecastResponse madrid = response(System.currentTimeMillis());
+        cache.put("q:madrid", madrid);
+        assertSame(madrid, cache.get("q:madrid"));
+
+        Thread.sleep(40);
+        assertNull(cache.get("q:madrid"));
+        assertSame(madrid, cache.getStale("q:madrid"));
+        assertTrue(cache.expiresInMillis("q:madrid") < 0);
+        assertEquals(1, cache.getHits());
+        assertEquals(1, cache.getMisses());
+        assertEquals(1, cache.getStaleHits());
+    }
+
+    @Test
+    void entriesPastTheMaxStaleAgeAreDropped() throws InterruptedException {
+        ForecastCache cache = new ForecastCache(10, 10, 0.01, 20);
+        cache.put("q:madrid", response(System.currentTimeMillis()));
+        Thread.sleep(40);
+        assertNull(cache.getStale("q:madrid"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void leastRecentlyUsedIsEvictedButPinnedStays() {
+        ForecastCache cache = new ForecastCache(60_000, 2, 0.01);
+        List<String> removed = new ArrayList<>();
+        cache.addListener(new ForecastCache.Listener() {
+            @Override
+            public void onPut(String key, ForecastResponse response, long expiresAt) {
+            }
+
+            @Override
+            public void onRemove(String key) {
+                removed.add(key);
+            }
+
+            @Override
+            public void onClear() {
+            }
+        });
+        cache.put("a", response(System.currentTimeMillis()));
+        cache.pin("a");
+        cache.put("b", response(System.currentTimeMillis()));
+        cache.put("c", response(System.currentTimeMillis()));
+
+        assertEquals(List.of("b"), removed);
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.getEvictions());
+
+        // Con "a" sin fijar y "c" recién usada, sale "a"
+        cache.get("c");
+        cache.unpin("a");
+        cache.put("d", response(System.currentTimeMillis()));
+        assertEquals(List.of("b", "a"), removed);
+    }
+
+    @Test
+    void restoreKeepsTheRealAgeAndNeverReplaces() {
+        ForecastCache cache = new ForecastCache(60_000, 10, 0.01, 120_000);
+        long now = System.currentTimeMillis();
+        ForecastResponse old = response(now - 90_000);
+        assertTrue(cache.restore("q:madrid", old));
+        assertNull(cache.get("q:madrid"));
+        assertSame(old, cache.getStale("q:madrid"));
+
+        assertFalse(cache.restore("q:madrid", response(now)));
+        assertFalse(cache.restore("q:sevilla", response(now - 200_000)));
+        assertFalse(cache.restore("q:bilbao", response(0)));
+    }
+
+    @Test
+    void rejectsInvalidConfiguration() {
+        assertThrows(IllegalArgumentException.class, () -> new ForecastCache(0, 10, 0.01));
+        assertThrows(IllegalArgumentException.class, () -> new ForecastCache(1000, 10, 0.01, 500));
+    }
+}
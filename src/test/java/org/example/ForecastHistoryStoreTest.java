@@ -0,0 +1,128 @@
+package org.example;
+
+import org.example.WeatherService.City;
+import org.example.WeatherService.ForecastItem;
+import org.example.WeatherService.ForecastResponse;
+import org.example.WeatherService.Weather;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ForecastHistoryStoreTest {
+
+    private static final long SLOT_SECONDS = TimeUnit.HOURS.toSeconds(3);
+
+    @TempDir
+    Path directory;
+
+    /**
+     * {@code slots} tramos de 3 h desde {@code firstDt}, con temperatura 10, 11, 12...
+     */
+    private static ForecastResponse response(String cityName, long fetchedAt, long firstDt, int slots) {
+        ForecastResponse response = new ForecastResponse();
+        response.city = new City();
+        response.city.name = cityName;
+        response.fetchedAt = fetchedAt;
+        response.list = new ArrayList<>();
+        for (int i = 0; i < slots; i++) {
+            ForecastItem item = new ForecastItem();
+            item.dt = firstDt + i * SLOT_SECONDS;
+            item.main = new WeatherService.Main();
+            item.main.temp = 10 + i;
+            item.main.humidity = 50;
+            Weather weather = new Weather();
+            weather.main = "Clear";
+            weather.description = "cielo claro";
+            weather.icon = "01d";
+            item.weather = List.of(weather);
+            item.pop = 0.25;
+            response.list.add(item);
+        }
+        return response;
+    }
+
+    @Test
+    void appendReopenAndQueryByTimeRange() {
+        long now = System.currentTimeMillis();
+        long firstDt = TimeUnit.MILLISECONDS.toSeconds(now);
+        try (ForecastHistoryStore store = new ForecastHistoryStore(directory, 30)) {
+            store.append("q:madrid", response("Madrid", now, firstDt, 40));
+            store.append("q:sevilla", response("Sevilla", now, firstDt, 40));
+        }
+
+        try (ForecastHistoryStore store = new ForecastHistoryStore(directory, 30)) {
+            assertEquals(80, store.getRowCount());
+            assertEquals("Madrid", store.locationName("q:madrid"));
+
+            // Tramos 4 a 7 (ambos extremos incluidos)
+            List<Float> temps = new ArrayList<>();
+            long visited = store.query("q:madrid", firstDt + 4 * SLOT_SECONDS, firstDt + 7 * SLOT_SECONDS, row -> {
+                temps.add(row.temp());
+                assertEquals(now, row.fetchedAt());
+                assertEquals(50, row.humidity());
+                assertEquals(0.25, row.pop(), 1e-9);
+                assertEquals("01d", row.icon());
+                assertEquals("cielo claro", row.description());
+            });
+            assertEquals(4, visited);
+            assertEquals(List.of(14f, 15f, 16f, 17f), temps);
+
+            assertEquals(0, store.query("q:madrid", firstDt + 100 * SLOT_SECONDS, Long.MAX_VALUE, row -> { }));
+            assertEquals(0, store.query("q:bilbao", 0, Long.MAX_VALUE, row -> { }));
+        }
+    }
+
+    @Test
+    void lateFetchFromAnEarlierDayGoesToTheCurrentSegment() {
+        long now = System.currentTimeMillis();
+        long yesterday = now - TimeUnit.DAYS.toMillis(1);
+        long firstDt = TimeUnit.MILLISECONDS.toSeconds(now);
+        try (ForecastHistoryStore store = new ForecastHistoryStore(directory, 30)) {
+            store.append("q:madrid", response("Madrid", now, firstDt, 40));
+        }
+
+        // Al reabrir, una descarga con fecha del día anterior no debe recrear ni vaciar el segmento
+        try (ForecastHistoryStore store = new ForecastHistoryStore(directory, 30)) {
+            store.append("q:madrid", response("Madrid", yesterday, firstDt - 8 * SLOT_SECONDS, 40));
+            assertEquals(1, store.getSegmentCount());
+            assertEquals(80, store.getRowCount());
+        }
+
+        try (ForecastHistoryStore store = new ForecastHistoryStore(directory, 30)) {
+            assertEquals(1, store.getSegmentCount());
+            assertEquals(80, store.getRowCount());
+            assertEquals(80, store.query("q:madrid", 0, Long.MAX_VALUE, row -> { }));
+        }
+    }
+
+    @Test
+    void newDayOpensANewSegment() {
+        long now = System.currentTimeMillis();
+        long firstDt = TimeUnit.MILLISECONDS.toSeconds(now);
+        try (ForecastHistoryStore store = new ForecastHistoryStore(directory, 30)) {
+            store.append("q:madrid", response("Madrid", now - TimeUnit.DAYS.toMillis(1), firstDt, 40));
+            store.append("q:madrid", response("Madrid", now, firstDt, 40));
+            assertEquals(2, store.getSegmentCount());
+            assertEquals(80, store.getRowCount());
+        }
+    }
+
+    @Test
+    void secondStoreOnTheSameDirectoryIsRefused() {
+        try (ForecastHistoryStore store = new ForecastHistoryStore(directory, 30)) {
+            assertThrows(UncheckedIOException.class, () -> new ForecastHistoryStore(directory, 30));
+        }
+        // Al cerrar se libera el bloqueo
+        try (ForecastHistoryStore store = new ForecastHistoryStore(directory, 30)) {
+            assertEquals(0, store.getRowCount());
+        }
+    }
+}
@@ -0,0 +1,46 @@
+package org.example;
+
+import org.example.WeatherService.City;
+import org.example.WeatherService.Coord;
+import org.example.WeatherService.ForecastItem;
+import org.example.WeatherService.ForecastResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class ForecastMarkersPainterTest {
+
+    private static ForecastResponse response(double lat, double lon) {
+        ForecastResponse response = new ForecastResponse();
+        response.city = new City();
+        response.city.coord = new Coord();
+        response.city.coord.lat = lat;
+        response.city.coord.lon = lon;
+        ForecastItem item = new ForecastItem();
+        item.main = new WeatherService.Main();
+        item.main.temp = 20;
+        response.list = List.of(item);
+        return response;
+    }
+
+    @Test
+    void sitesOutliveCacheEvictionButNotInvalidation() {
+        ForecastCache cache = new ForecastCache(60_000, 2, 0.01);
+        ForecastMarkersPainter painter = new ForecastMarkersPainter(null);
+        cache.addListener(painter);
+
+        for (int i = 0; i < 5; i++) {
+            cache.put("c:" + i, response(40 + i, -3));
+        }
+        assertEquals(2, cache.size());
+        assertEquals(5, painter.getSiteCount());
+
+        cache.invalidate("c:4");
+        assertEquals(4, painter.getSiteCount());
+
+        cache.clear();
+        assertEquals(0, painter.getSiteCount());
+    }
+}
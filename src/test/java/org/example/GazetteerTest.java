@@ -0,0 +1,57 @@
+package org.example;
+
+import org.example.Gazetteer.Place;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class GazetteerTest {
+
+    private static Gazetteer gazetteer(String... lines) throws IOException {
+        return Gazetteer.load(new StringReader(String.join("\n", lines)));
+    }
+
+    @Test
+    void exactMatchIsFoundBehindMorePopulousPrefixMatches() throws IOException {
+        StringBuilder tsv = new StringBuilder("Santa\t\tES\t40.0\t-3.0\t100\n");
+        for (int i = 0; i < Gazetteer.TOP_K + 5; i++) {
+            tsv.append("Santa Cruz ").append(i).append("\t\tES\t28.0\t-16.0\t").append(100_000 + i).append('\n');
+        }
+        Gazetteer gazetteer = Gazetteer.load(new StringReader(tsv.toString()));
+
+        assertTrue(gazetteer.suggest("santa", Gazetteer.TOP_K).stream().noneMatch(place -> place.name.equals("Santa")));
+        List<Place> matches = gazetteer.exactMatches("Santa");
+        assertEquals(1, matches.size());
+        assertEquals("Santa", matches.get(0).name);
+    }
+
+    @Test
+    void exactMatchesUseFullNamesAndAliasesOnly() throws IOException {
+        Gazetteer gazetteer = gazetteer(
+                "Ciudad Real\t\tES\t38.98\t-3.93\t75000",
+                "Córdoba\tCordova\tES\t37.88\t-4.77\t320000",
+                "Córdoba\t\tAR\t-31.42\t-64.18\t1390000",
+                "Ourense\tOrense\tES\t42.34\t-7.86\t105000");
+
+        // Una palabra suelta del nombre sirve para sugerir, no como coincidencia exacta
+        assertEquals(1, gazetteer.suggest("real", 5).size());
+        assertTrue(gazetteer.exactMatches("Real").isEmpty());
+        assertEquals(1, gazetteer.exactMatches("ciudad  real").size());
+
+        // Ambiguo: de más a menos poblada, y el país del formato "nombre, país" filtra
+        List<Place> cordoba = gazetteer.exactMatches("cordoba");
+        assertEquals(List.of("AR", "ES"), cordoba.stream().map(place -> place.country).toList());
+        assertEquals("ES", gazetteer.exactMatches("Córdoba, es").get(0).country);
+        assertEquals(1, gazetteer.exactMatches("Córdoba, es").size());
+        assertEquals("Córdoba", gazetteer.exactMatches("Cordova").get(0).name);
+
+        assertEquals("Ourense", gazetteer.exactMatches("ORENSE").get(0).name);
+        assertTrue(gazetteer.exactMatches("Ouren").isEmpty());
+        assertTrue(gazetteer.exactMatches("").isEmpty());
+    }
+}
@@ -0,0 +1,76 @@
+package org.example;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class LatencyHistogramTest {
+
+    @Test
+    void emptyHistogramReportsZero() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMeanMillis());
+        assertEquals(0, histogram.percentileMillis(0.99));
+    }
+
+    @Test
+    void percentilesStayWithinTheBucketError() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (int ms = 1; ms <= 1000; ms++) {
+            histogram.recordNanos(TimeUnit.MILLISECONDS.toNanos(ms));
+        }
+        assertEquals(1000, histogram.getCount());
+        assertEquals(500.5, histogram.getMeanMillis(), 1e-9);
+        assertEquals(1000, histogram.getMaxMillis(), 1e-9);
+        for (double p : new double[]{0.5, 0.9, 0.99}) {
+            double expected = p * 1000;
+            assertEquals(expected, histogram.percentileMillis(p), expected * 0.016);
+        }
+        // Nunca por encima del máximo registrado
+        assertEquals(1000, histogram.percentileMillis(1.0), 1e-9);
+    }
+
+    @Test
+    void smallValuesAreExact() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(7_000);
+        histogram.recordNanos(-5);
+        assertEquals(0, histogram.percentileMillis(0.5));
+        assertEquals(0.007, histogram.percentileMillis(1.0), 1e-12);
+    }
+
+    @Test
+    void concurrentRecordsAreNotLost() throws InterruptedException {
+        LatencyHistogram histogram = new LatencyHistogram();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            long nanos = TimeUnit.MILLISECONDS.toNanos(t + 1);
+            threads.add(Thread.ofPlatform().start(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    histogram.recordNanos(nanos);
+                }
+            }));
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(80_000, histogram.getCount());
+        assertEquals(4.5, histogram.getMeanMillis(), 1e-9);
+        assertEquals(8, histogram.getMaxMillis(), 1e-9);
+    }
+
+    @Test
+    void resetClearsEverything() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        histogram.recordNanos(TimeUnit.SECONDS.toNanos(2));
+        histogram.reset();
+        assertEquals(0, histogram.getCount());
+        assertEquals(0, histogram.getMaxMillis());
+        assertEquals(0, histogram.percentileMillis(0.5));
+    }
+}
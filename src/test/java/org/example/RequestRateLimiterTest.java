@@ -0,0 +1,125 @@
+package org.example;
+
+import org.example.RequestRateLimiter.Priority;
+import org.example.WeatherService.ForecastResponse;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RequestRateLimiterTest {
+
+    @Test
+    void burstPassesAtOnceAndTheRestQueues() {
+        RequestRateLimiter limiter = new RequestRateLimiter(60, 3);
+        for (int i = 0; i < 3; i++) {
+            assertTrue(limiter.acquire(Priority.INTERACTIVE).isDone());
+        }
+        CompletableFuture<Void> queued = limiter.acquire(Priority.INTERACTIVE);
+        assertFalse(queued.isDone());
+        assertEquals(1, limiter.getQueueDepth(Priority.INTERACTIVE));
+        assertTrue(limiter.isSaturated());
+        queued.cancel(true);
+    }
+
+    @Test
+    void tokensRefillAtTheQuotaRate() throws Exception {
+        // 100 por segundo: una ficha cada 10 ms
+        RequestRateLimiter limiter = new RequestRateLimiter(6000, 1);
+        assertTrue(limiter.acquire(Priority.INTERACTIVE).isDone());
+        long start = System.nanoTime();
+        CompletableFuture<Void> next = limiter.acquire(Priority.INTERACTIVE);
+        assertFalse(next.isDone());
+        next.get(5, TimeUnit.SECONDS);
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(5));
+        assertEquals(2, limiter.getGranted(Priority.INTERACTIVE));
+        assertEquals(0, limiter.getQueueDepth(Priority.INTERACTIVE));
+    }
+
+    @Test
+    void prefetchLeavesTheReserveToInteractive() {
+        // Cubo de 4 sin apenas relleno: la precarga necesita 2 fichas (la suya y 1 de reserva)
+        RequestRateLimiter limiter = new RequestRateLimiter(1, 4);
+        assertTrue(limiter.acquire(Priority.INTERACTIVE).isDone());
+        assertTrue(limiter.acquire(Priority.INTERACTIVE).isDone());
+        assertTrue(limiter.acquire(Priority.PREFETCH).isDone());
+
+        CompletableFuture<Void> prefetch = limiter.acquire(Priority.PREFETCH);
+        ExecutionException error = assertThrows(ExecutionException.class, prefetch::get);
+        assertInstanceOf(WeatherException.class, error.getCause());
+        assertEquals(1, limiter.getRejected(Priority.PREFETCH));
+
+        assertTrue(limiter.acquire(Priority.INTERACTIVE).isDone());
+    }
+
+    @Test
+    void cancelledWaitersFreeTheirQueueSlots() {
+        // Una ficha por segundo: en los 15 s de espera máxima caben 15 peticiones en cola
+        RequestRateLimiter limiter = new RequestRateLimiter(60, 1);
+        assertTrue(limiter.acquire(Priority.INTERACTIVE).isDone());
+        for (int round = 0; round < 3; round++) {
+            List<CompletableFuture<Void>> waiters = new ArrayList<>();
+            for (int i = 0; i < 14; i++) {
+                waiters.add(limiter.acquire(Priority.INTERACTIVE));
+            }
+            assertEquals(14, limiter.getQueueDepth(Priority.INTERACTIVE));
+            waiters.forEach(waiter -> waiter.cancel(true));
+            assertEquals(0, limiter.getQueueDepth(Priority.INTERACTIVE));
+        }
+        assertEquals(0, limiter.getRejected(Priority.INTERACTIVE));
+    }
+
+    @Test
+    void cancelledWaiterDoesNotSpendAToken() throws Exception {
+        RequestRateLimiter limiter = new RequestRateLimiter(600, 1);
+        assertTrue(limiter.acquire(Priority.INTERACTIVE).isDone());
+        limiter.acquire(Priority.INTERACTIVE).cancel(true);
+        CompletableFuture<Void> next = limiter.acquire(Priority.INTERACTIVE);
+        next.get(5, TimeUnit.SECONDS);
+        assertEquals(2, limiter.getGranted(Priority.INTERACTIVE));
+    }
+
+    @Test
+    void supersededSearchLeavesTheLimiterQueue() {
+        RequestRateLimiter limiter = new RequestRateLimiter(60, 1);
+        assertTrue(limiter.acquire(Priority.INTERACTIVE).isDone());
+        // Nunca llega a conectar: la única ficha ya está gastada
+        WeatherService service = new WeatherService(new ForecastCache(), "http://127.0.0.1:9", new CircuitBreaker(), limiter);
+
+        CompletableFuture<ForecastResponse> first = service.getWeatherAsync("Madrid");
+        CompletableFuture<ForecastResponse> second = service.getWeatherAsync("madrid");
+        assertEquals(1, limiter.getQueueDepth(Priority.INTERACTIVE));
+
+        // Otra vista sigue esperando la misma petición
+        first.cancel(true);
+        assertEquals(1, limiter.getQueueDepth(Priority.INTERACTIVE));
+        assertFalse(second.isDone());
+
+        second.cancel(true);
+        assertEquals(0, limiter.getQueueDepth(Priority.INTERACTIVE));
+
+        // La siguiente búsqueda lanza una petición nueva
+        CompletableFuture<ForecastResponse> third = service.getWeatherAsync("Madrid");
+        assertEquals(1, limiter.getQueueDepth(Priority.INTERACTIVE));
+        third.cancel(true);
+        assertEquals(0, limiter.getQueueDepth(Priority.INTERACTIVE));
+    }
+
+    @Test
+    void unlimitedNeverWaits() {
+        RequestRateLimiter limiter = RequestRateLimiter.unlimited();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(limiter.acquire(Priority.PREFETCH).isDone());
+        }
+        assertFalse(limiter.isSaturated());
+    }
+}
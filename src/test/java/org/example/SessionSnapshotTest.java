@@ -0,0 +1,215 @@
+package org.example;
+
+import org.example.WeatherService.City;
+import org.example.WeatherService.Coord;
+import org.example.WeatherService.ForecastItem;
+import org.example.WeatherService.ForecastResponse;
+import org.example.WeatherService.Weather;
+import org.example.WeatherService.Wind;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class SessionSnapshotTest {
+
+    private static final int SLOTS = 40;
+
+    @TempDir
+    Path directory;
+
+    /**
+     * {@code SLOTS} tramos de 3 h con valores distintos por tramo y dos estados del cielo alternos
+     */
+    private static ForecastResponse response(String cityName, double lat, double lon, long fetchedAt) {
+        ForecastResponse response = new ForecastResponse();
+        response.city = new City();
+        response.city.name = cityName;
+        response.city.country = "ES";
+        response.city.timezone = 7200;
+        response.city.coord = new Coord();
+        response.city.coord.lat = lat;
+        response.city.coord.lon = lon;
+        response.fetchedAt = fetchedAt;
+        response.list = new ArrayList<>();
+        for (int i = 0; i < SLOTS; i++) {
+            ForecastItem item = new ForecastItem();
+            item.dt = 1_700_000_000L + i * 10_800L;
+            item.main = new WeatherService.Main();
+            item.main.temp = 10.5 + i;
+            item.main.feels_like = 9.25 + i;
+            item.main.temp_min = 8 + i;
+            item.main.temp_max = 12 + i;
+            item.main.pressure = 1000 + i;
+            item.main.humidity = 40 + i;
+            item.wind = new Wind();
+            item.wind.speed = 0.5 * i;
+            item.wind.deg = 9 * i;
+            item.pop = i / 64.0;
+            Weather weather = new Weather();
+            weather.main = i % 2 == 0 ? "Clear" : "Rain";
+            weather.description = i % 2 == 0 ? "cielo claro" : "lluvia ligera";
+            weather.icon = i % 2 == 0 ? "01d" : "10n";
+            item.weather = List.of(weather);
+            response.list.add(item);
+        }
+        return response;
+    }
+
+    /**
+     * Bytes que ocupa en el fichero el cuerpo de un pronóstico de {@link #response}
+     */
+    private static int bodyBytes(String cityName) {
+        int strings = 4 + cityName.getBytes(StandardCharsets.UTF_8).length + 4 + 2;
+        return 8 + strings + 8 + 8 + 4 + 4 + SLOTS * (8 + 6 * 4 + 3 * 2 + 1);
+    }
+
+    private static void assertSameForecast(ForecastResponse expected, ForecastResponse actual) {
+        assertNotNull(actual);
+        assertEquals(expected.fetchedAt, actual.fetchedAt);
+        assertEquals(expected.city.name, actual.city.name);
+        assertEquals(expected.city.country, actual.city.country);
+        assertEquals(expected.city.timezone, actual.city.timezone);
+        assertEquals(expected.city.coord.lat, actual.city.coord.lat);
+        assertEquals(expected.city.coord.lon, actual.city.coord.lon);
+        assertEquals(expected.list.size(), actual.list.size());
+        for (int i = 0; i < expected.list.size(); i++) {
+            ForecastItem want = expected.list.get(i);
+            ForecastItem got = actual.list.get(i);
+            assertEquals(want.dt, got.dt);
+            // Los valores elegidos son exactos en float
+            assertEquals(want.main.temp, got.main.temp);
+            assertEquals(want.main.feels_like, got.main.feels_like);
+            assertEquals(want.main.temp_min, got.main.temp_min);
+            assertEquals(want.main.temp_max, got.main.temp_max);
+            assertEquals(want.main.pressure, got.main.pressure);
+            assertEquals(want.main.humidity, got.main.humidity);
+            assertEquals(want.wind.speed, got.wind.speed);
+            assertEquals(want.wind.deg, got.wind.deg);
+            assertEquals(want.pop, got.pop);
+            assertEquals(want.weather.get(0).main, got.weather.get(0).main);
+            assertEquals(want.weather.get(0).description, got.weather.get(0).description);
+            assertEquals(want.weather.get(0).icon, got.weather.get(0).icon);
+        }
+    }
+
+    /**
+     * Instantánea con dos pronósticos guardada en disco: "q:madrid" y después "q:sevilla"
+     */
+    private Path saveTwoForecasts(ForecastResponse madrid, ForecastResponse sevilla) throws IOException {
+        SessionSnapshot snapshot = new SessionSnapshot();
+        snapshot.putForecast("q:madrid", madrid);
+        snapshot.putForecast("q:sevilla", sevilla);
+        Path path = directory.resolve("session.bin");
+        snapshot.save(path);
+        return path;
+    }
+
+    @Test
+    void saveAndLoadRoundTrip() throws IOException {
+        ForecastResponse madrid = response("Madrid", 40.4168, -3.7038, 1_700_000_123_456L);
+        ForecastResponse sevilla = response("Sevilla", 37.3891, -5.9845, 1_700_000_654_321L);
+
+        SessionSnapshot snapshot = new SessionSnapshot();
+        snapshot.mapLat = 40.4168;
+        snapshot.mapLon = -3.7038;
+        snapshot.zoom = 7;
+        snapshot.current = LocationQuery.city("Madrid");
+        snapshot.currentKey = "q:madrid";
+        snapshot.pinned.add(new SessionSnapshot.PinnedSite(LocationQuery.city("Sevilla"), "Sevilla"));
+        snapshot.pinned.add(new SessionSnapshot.PinnedSite(LocationQuery.coords(43.2630, -2.9350), null));
+        snapshot.putForecast("q:madrid", madrid);
+        snapshot.putForecast("q:sevilla", sevilla);
+        Path path = directory.resolve("session.bin");
+        snapshot.save(path);
+
+        SessionSnapshot loaded = SessionSnapshot.load(path);
+        assertNotNull(loaded);
+        assertEquals(40.4168, loaded.mapLat);
+        assertEquals(-3.7038, loaded.mapLon);
+        assertEquals(7, loaded.zoom);
+        assertEquals(LocationQuery.city("Madrid"), loaded.current);
+        assertEquals("q:madrid", loaded.currentKey);
+
+        assertEquals(2, loaded.pinned.size());
+        assertEquals(LocationQuery.city("Sevilla"), loaded.pinned.get(0).location);
+        assertEquals("Sevilla", loaded.pinned.get(0).label);
+        assertEquals(LocationQuery.coords(43.2630, -2.9350), loaded.pinned.get(1).location);
+        assertNull(loaded.pinned.get(1).label);
+
+        assertEquals(Set.of("q:madrid", "q:sevilla"), loaded.forecastKeys());
+        assertSameForecast(madrid, loaded.forecast("q:madrid"));
+        assertSameForecast(sevilla, loaded.forecast("q:sevilla"));
+        assertNull(loaded.forecast("q:bilbao"));
+    }
+
+    @Test
+    void missingFileLoadsAsNull() throws IOException {
+        assertNull(SessionSnapshot.load(directory.resolve("no-existe.bin")));
+    }
+
+    @Test
+    void truncatedBodyLosesOnlyThatForecast() throws IOException {
+        ForecastResponse madrid = response("Madrid", 40.4168, -3.7038, 1_700_000_123_456L);
+        Path path = saveTwoForecasts(madrid, response("Sevilla", 37.3891, -5.9845, 1_700_000_654_321L));
+
+        // Se corta el último cuerpo (Sevilla) por la mitad de sus columnas
+        byte[] bytes = Files.readAllBytes(path);
+        Files.write(path, Arrays.copyOf(bytes, bytes.length - bodyBytes("Sevilla") / 2));
+
+        SessionSnapshot loaded = SessionSnapshot.load(path);
+        assertNotNull(loaded);
+        assertNull(loaded.forecast("q:sevilla"));
+        assertSameForecast(madrid, loaded.forecast("q:madrid"));
+    }
+
+    @Test
+    void garbledBodyLosesOnlyThatForecast() throws IOException {
+        ForecastResponse sevilla = response("Sevilla", 37.3891, -5.9845, 1_700_000_654_321L);
+        Path path = saveTwoForecasts(response("Madrid", 40.4168, -3.7038, 1_700_000_123_456L), sevilla);
+
+        // Longitud imposible en el nombre de ciudad del primer cuerpo (Madrid), tras su fetchedAt
+        byte[] bytes = Files.readAllBytes(path);
+        int madridStart = bytes.length - bodyBytes("Sevilla") - bodyBytes("Madrid");
+        ByteBuffer.wrap(bytes).putInt(madridStart + 8, Integer.MAX_VALUE);
+        Files.write(path, bytes);
+
+        SessionSnapshot loaded = SessionSnapshot.load(path);
+        assertNotNull(loaded);
+        assertNull(loaded.forecast("q:madrid"));
+        assertSameForecast(sevilla, loaded.forecast("q:sevilla"));
+
+        // decodeAll descarta el dañado sin afectar a los demás
+        loaded.decodeAll();
+        assertNull(loaded.forecast("q:madrid"));
+        assertNotNull(loaded.forecast("q:sevilla"));
+    }
+
+    @Test
+    void garbledSizeLosesOnlyThatForecast() throws IOException {
+        ForecastResponse sevilla = response("Sevilla", 37.3891, -5.9845, 1_700_000_654_321L);
+        Path path = saveTwoForecasts(response("Madrid", 40.4168, -3.7038, 1_700_000_123_456L), sevilla);
+
+        // Número de tramos negativo en el primer cuerpo: justo antes de sus columnas
+        byte[] bytes = Files.readAllBytes(path);
+        int madridColumns = bytes.length - bodyBytes("Sevilla") - SLOTS * (8 + 6 * 4 + 3 * 2 + 1);
+        ByteBuffer.wrap(bytes).putInt(madridColumns - 4, -SLOTS);
+        Files.write(path, bytes);
+
+        SessionSnapshot loaded = SessionSnapshot.load(path);
+        assertNull(loaded.forecast("q:madrid"));
+        assertSameForecast(sevilla, loaded.forecast("q:sevilla"));
+    }
+}